@@ -0,0 +1,30 @@
+-- Full-text search for GET /api/trips/search (see TripSearchService).
+--
+-- One-off migration, run by hand once per database (the app never runs DDL
+-- for it: ddl-auto cannot express a generated column or a GIN index).
+-- Until it has been run, and on databases other than PostgreSQL, the search
+-- uses the LIKE fallback. Restart the app afterwards: the column is
+-- detected at startup.
+--
+--   psql "$DATABASE_URL" -f db/trip-search-fulltext.sql
+--
+-- Step 1 adds a STORED generated column: PostgreSQL rewrites the trips table
+-- under an ACCESS EXCLUSIVE lock (trips can't be read or written meanwhile,
+-- roughly a few seconds per million rows), so run it in a quiet moment.
+-- Step 2 builds the index without blocking writes. It can't run inside a
+-- transaction block: don't use psql --single-transaction. If it fails it
+-- leaves an INVALID index behind; drop it and run the script again.
+-- Both steps are no-ops when already applied.
+
+\set ON_ERROR_STOP on
+
+-- 1. Search document: title and destination weigh more (A) than the description (B)
+ALTER TABLE trips ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple'::regconfig, coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('simple'::regconfig, coalesce(destination, '')), 'A') ||
+        setweight(to_tsvector('simple'::regconfig, coalesce(description, '')), 'B')
+    ) STORED;
+
+-- 2. GIN index for the @@ match
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_trips_search_vector ON trips USING GIN (search_vector);
@@ -0,0 +1,57 @@
+#!/usr/bin/env bash
+# Runs the same k6 load test against the app started with platform threads
+# and then with virtual threads, and prints throughput and latency for both.
+#
+# Requirements: a built jar (./mvnw package -DskipTests), k6, and the usual
+# .env (database, JWT_SECRET) in the project root.
+#
+#   ./loadtest/compare.sh            # defaults: 200 VUs, 2m, pool of 20 connections
+#   VUS=500 DB_POOL_SIZE=30 ./loadtest/compare.sh
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+JAR=$(ls target/*.jar | grep -v plain | head -n 1)
+PORT=${PORT:-8081}
+OUT=loadtest/results
+mkdir -p "$OUT"
+
+run_mode() {
+    local mode=$1
+    local virtual=$2
+
+    echo "=== $mode threads ==="
+    VIRTUAL_THREADS_ENABLED=$virtual java -jar "$JAR" --server.port="$PORT" > "$OUT/$mode-app.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+
+    # Wait for the app to accept requests
+    for _ in $(seq 1 60); do
+        if curl -s -o /dev/null "http://localhost:$PORT/api/public/.well-known/jwks.json"; then
+            break
+        fi
+        sleep 1
+    done
+
+    k6 run -q -e BASE_URL="http://localhost:$PORT" \
+        --summary-export "$OUT/$mode.json" loadtest/trip-expenses.js
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo
+printf "%-10s %12s %10s %10s %10s\n" "mode" "req/s" "p50 ms" "p99 ms" "failed"
+for mode in platform virtual; do
+    jq -r --arg mode "$mode" '[$mode,
+        (.metrics.http_reqs.rate | floor),
+        (.metrics.http_req_duration["p(50)"] | . * 10 | floor / 10),
+        (.metrics.http_req_duration["p(99)"] | . * 10 | floor / 10),
+        .metrics.http_req_failed.value] | @tsv' "$OUT/$mode.json" |
+        awk -F'\t' '{ printf "%-10s %12s %10s %10s %10s\n", $1, $2, $3, $4, $5 }'
+done
@@ -0,0 +1,56 @@
+-- Seeds trips for the trip search benchmark (default 1,000,000).
+-- The user :'email' (must already exist) becomes member of one seeded trip
+-- every :stride (default 1000), so searches are scoped to ~1000 trips out of 1M.
+--
+--   psql "$DATABASE_URL" -v email=search-bench@example.com -f loadtest/search-seed.sql
+--   psql "$DATABASE_URL" -v email=search-bench@example.com -v trips=100000 -f loadtest/search-seed.sql
+
+\set ON_ERROR_STOP on
+\if :{?trips}
+\else
+    \set trips 1000000
+\endif
+\if :{?stride}
+\else
+    \set stride 1000
+\endif
+
+BEGIN;
+
+CREATE TEMP TABLE seeded_trips (id bigint, n bigint) ON COMMIT DROP;
+
+WITH words AS (
+    SELECT ARRAY['Paris', 'Rome', 'Barcelona', 'Lisbon', 'Berlin', 'Amsterdam', 'Prague', 'Vienna',
+                 'Budapest', 'Athens', 'Dublin', 'Edinburgh', 'Copenhagen', 'Stockholm', 'Oslo',
+                 'Helsinki', 'Krakow', 'Seville', 'Naples', 'Florence'] AS cities,
+           ARRAY['Weekend in', 'Summer in', 'Road trip to', 'Family holiday in', 'Backpacking in',
+                 'Food tour of', 'Christmas in', 'Honeymoon in'] AS kinds
+), inserted AS (
+    INSERT INTO trips (title, description, destination, start_date, end_date, budget, currency, status,
+                       created_at, updated_at)
+    SELECT w.kinds[1 + g % 8] || ' ' || w.cities[1 + (g / 8) % 20] || ' #' || g,
+           'Seeded trip ' || g || ': museums, markets and a day trip to ' || w.cities[1 + (g / 3) % 20],
+           w.cities[1 + (g / 8) % 20],
+           DATE '2020-01-01' + (g % 2000)::int,
+           DATE '2020-01-01' + (g % 2000)::int + 1 + (g % 14)::int,
+           500 + (g % 50) * 100,
+           'EUR',
+           'PLANNING',
+           now(),
+           now()
+    FROM generate_series(1, :trips) AS g, words w
+    RETURNING id
+)
+INSERT INTO seeded_trips (id, n)
+SELECT id, row_number() OVER (ORDER BY id) FROM inserted;
+
+INSERT INTO trip_members (user_id, trip_id, role, joined_at, invitation_status)
+SELECT u.id, s.id, 'ORGANIZER', now(), 'ACCEPTED'
+FROM seeded_trips s
+JOIN users u ON u.email = :'email'
+WHERE s.n % :stride = 0;
+
+COMMIT;
+
+ANALYZE trips;
+ANALYZE trip_members;
@@ -0,0 +1,103 @@
+// k6 load test: read-heavy trip/expense traffic (the typical blocking-on-JDBC requests).
+//
+//   k6 run -e BASE_URL=http://localhost:8081 loadtest/trip-expenses.js
+//
+// setup() registers a fresh user, creates a trip and a few expenses;
+// every virtual user then loops over the trip, expense list/page and balance endpoints.
+
+import http from 'k6/http';
+import { check, fail } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const VUS = parseInt(__ENV.VUS || '200');
+const DURATION = __ENV.DURATION || '2m';
+const EXPENSES = parseInt(__ENV.EXPENSES || '50');
+
+export const options = {
+    scenarios: {
+        steady: {
+            executor: 'constant-vus',
+            vus: VUS,
+            duration: DURATION,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+// yyyy-MM-dd, `days` from today (the API rejects trips in the past and expenses in the future)
+function isoDate(days) {
+    const d = new Date();
+    d.setDate(d.getDate() + days);
+    const pad = (n) => String(n).padStart(2, '0');
+    return `${d.getFullYear()}-${pad(d.getMonth() + 1)}-${pad(d.getDate())}`;
+}
+
+// Abort the run on a failed setup call instead of load testing a broken fixture
+function expectStatus(res, status, what) {
+    if (!check(res, { [what]: (r) => r.status === status })) {
+        fail(`${what} failed: HTTP ${res.status} ${res.body}`);
+    }
+    return res.json();
+}
+
+export function setup() {
+    const json = { headers: { 'Content-Type': 'application/json' } };
+    const email = `loadtest-${Date.now()}@example.com`;
+
+    const register = http.post(`${BASE_URL}/api/auth/register`, JSON.stringify({
+        email: email,
+        password: 'LoadTest123!',
+        firstName: 'Load',
+        lastName: 'Test',
+    }), json);
+    const user = expectStatus(register, 201, 'register');
+
+    const auth = {
+        headers: {
+            'Content-Type': 'application/json',
+            'Authorization': `Bearer ${user.token}`,
+        },
+    };
+
+    const trip = expectStatus(http.post(`${BASE_URL}/api/trips`, JSON.stringify({
+        title: 'Load test trip',
+        destination: 'Rome',
+        startDate: isoDate(0),
+        endDate: isoDate(14),
+        budget: 5000,
+        currency: 'EUR',
+    }), auth), 201, 'create trip');
+
+    for (let i = 0; i < EXPENSES; i++) {
+        expectStatus(http.post(`${BASE_URL}/api/trips/${trip.id}/expenses/shared`, JSON.stringify({
+            description: `Expense ${i}`,
+            amount: 10 + i,
+            currency: 'EUR',
+            category: 'FOOD',
+            date: isoDate(-(i % 14)),
+            splitType: 'EQUAL',
+            participantIds: [user.user.id],
+        }), auth), 201, 'create expense');
+    }
+
+    // Access tokens last 15 minutes: keep DURATION below that
+    return { token: user.token, tripId: trip.id };
+}
+
+export default function (data) {
+    const auth = { headers: { 'Authorization': `Bearer ${data.token}` } };
+
+    const responses = http.batch([
+        ['GET', `${BASE_URL}/api/trips/${data.tripId}`, null, auth],
+        ['GET', `${BASE_URL}/api/trips/${data.tripId}/expenses`, null, auth],
+        ['GET', `${BASE_URL}/api/trips/${data.tripId}/expenses/page?size=20`, null, auth],
+        ['GET', `${BASE_URL}/api/trips/${data.tripId}/settlements/balance-optimized`, null, auth],
+    ]);
+
+    for (const r of responses) {
+        check(r, { 'status 200': (res) => res.status === 200 });
+    }
+}
@@ -0,0 +1,50 @@
+// k6 load test: GET /api/trips/search on a user whose trips are spread over a large table.
+//
+//   k6 run -e BASE_URL=http://localhost:8081 -e EMAIL=search-bench@example.com loadtest/trip-search.js
+//
+// The user must exist and be a member of the seeded trips (see search-seed.sql and search-bench.sh).
+// Every virtual user searches with one of a few keywords: whole words, prefixes and two-word queries.
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const EMAIL = __ENV.EMAIL || 'search-bench@example.com';
+const PASSWORD = __ENV.PASSWORD || 'LoadTest123!';
+const VUS = parseInt(__ENV.VUS || '50');
+const DURATION = __ENV.DURATION || '1m';
+
+const KEYWORDS = ['paris', 'par', 'rome', 'road trip', 'food lis', 'honeymoon', 'museums', 'krak'];
+
+export const options = {
+    scenarios: {
+        steady: {
+            executor: 'constant-vus',
+            vus: VUS,
+            duration: DURATION,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const login = http.post(`${BASE_URL}/api/auth/login`, JSON.stringify({
+        email: EMAIL,
+        password: PASSWORD,
+    }), { headers: { 'Content-Type': 'application/json' } });
+    check(login, { 'logged in': (r) => r.status === 200 });
+
+    // Access tokens last 15 minutes: keep DURATION below that
+    return { token: login.json().token };
+}
+
+export default function (data) {
+    const auth = { headers: { 'Authorization': `Bearer ${data.token}` } };
+    const keyword = KEYWORDS[Math.floor(Math.random() * KEYWORDS.length)];
+
+    const r = http.get(`${BASE_URL}/api/trips/search?keyword=${encodeURIComponent(keyword)}&size=20`, auth);
+    check(r, { 'status 200': (res) => res.status === 200 });
+}
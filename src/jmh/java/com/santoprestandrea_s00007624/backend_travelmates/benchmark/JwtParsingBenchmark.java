@@ -0,0 +1,83 @@
+package com.santoprestandrea_s00007624.backend_travelmates.benchmark;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.UserRole;
+import com.santoprestandrea_s00007624.backend_travelmates.security.JwtClaims;
+import com.santoprestandrea_s00007624.backend_travelmates.security.JwtKeyStore;
+import com.santoprestandrea_s00007624.backend_travelmates.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: TOKEN HANDLING IN JwtAuthenticationFilter
+ *
+ * The work the filter does on the token of an authenticated request:
+ * - before: validateToken and getEmailFromToken each rebuilt the HMAC key
+ *   and a parser, so the token was verified twice
+ * - after: one JwtService.parseAndVerify on the cached parser, whose
+ *   claims are then shared as a request attribute
+ *
+ * Run: mvn -Pjmh test-compile exec:exec -Djmh.args="JwtParsingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtParsingBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtKeyStore keyStore = new JwtKeyStore();
+        ReflectionTestUtils.setField(keyStore, "algorithm", "HS256");
+
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtService, "legacyHs256Cutover", "");
+        ReflectionTestUtils.setField(jwtService, "jwtKeyStore", keyStore);
+        jwtService.init();
+
+        token = jwtService.generateToken(User.builder()
+                .id(1L)
+                .email("mario.rossi@example.com")
+                .firstName("Mario")
+                .lastName("Rossi")
+                .role(UserRole.TRAVELER)
+                .build());
+    }
+
+    @Benchmark
+    public String before() {
+        // validateToken(token)
+        parseWithNewKey(token);
+        // getEmailFromToken(token)
+        return parseWithNewKey(token).getSubject();
+    }
+
+    @Benchmark
+    public JwtClaims after() {
+        return jwtService.parseAndVerify(token);
+    }
+
+    private Claims parseWithNewKey(String jwt) {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(jwt)
+                .getBody();
+    }
+}
@@ -0,0 +1,64 @@
+package com.santoprestandrea_s00007624.backend_travelmates.benchmark;
+
+import com.santoprestandrea_s00007624.backend_travelmates.security.PublicPaths;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: PATH CLASSIFICATION IN JwtAuthenticationFilter.shouldNotFilter
+ *
+ * Classifies a mix of public and protected request paths:
+ * - before: AntPathMatcher.match against every public pattern
+ * - after: PublicPaths.matches (patterns compiled once into prefixes and
+ *   exact paths)
+ *
+ * Run: mvn -Pjmh test-compile exec:exec -Djmh.args="PublicPathsBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublicPathsBenchmark {
+
+    private static final String[] PATHS = {
+            "/api/trips/42/expenses",
+            "/api/auth/login",
+            "/api/trips",
+            "/api/public/health",
+            "/api/users/me",
+            "/error",
+            "/api/authors",
+            "/actuator/health/liveness"
+    };
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    @Benchmark
+    public int before() {
+        int publicPaths = 0;
+        for (String path : PATHS) {
+            for (String pattern : PublicPaths.PATTERNS) {
+                if (antPathMatcher.match(pattern, path)) {
+                    publicPaths++;
+                    break;
+                }
+            }
+        }
+        return publicPaths;
+    }
+
+    @Benchmark
+    public int after() {
+        int publicPaths = 0;
+        for (String path : PATHS) {
+            if (PublicPaths.matches(path)) {
+                publicPaths++;
+            }
+        }
+        return publicPaths;
+    }
+}
@@ -0,0 +1,71 @@
+package com.santoprestandrea_s00007624.backend_travelmates.benchmark;
+
+import com.santoprestandrea_s00007624.backend_travelmates.service.GreedySettlementOptimizer;
+import com.santoprestandrea_s00007624.backend_travelmates.service.MinimumTransferSettlementOptimizer;
+import com.santoprestandrea_s00007624.backend_travelmates.service.SettlementOptimizer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BENCHMARK: GREEDY VS MINIMUM-TRANSFER SETTLEMENT
+ *
+ * Time to turn the balances of a trip into transfers, per solver and
+ * number of members with a non-zero balance. The exact solver gets a
+ * budget large enough never to fall back to greedy, so the numbers are
+ * those of the bitmask DP itself (they size settlement.optimizer.*).
+ *
+ * Run: mvn -Pjmh test-compile exec:exec -Djmh.args="SettlementOptimizerBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SettlementOptimizerBenchmark {
+
+    @Param({ "4", "8", "12", "16", "20" })
+    private int members;
+
+    @Param({ "greedy", "min-transfer" })
+    private String solver;
+
+    private SettlementOptimizer optimizer;
+    private Map<Long, BigDecimal> balances;
+
+    @Setup
+    public void setUp() {
+        GreedySettlementOptimizer greedy = new GreedySettlementOptimizer();
+        MinimumTransferSettlementOptimizer minimumTransfer = new MinimumTransferSettlementOptimizer();
+        ReflectionTestUtils.setField(minimumTransfer, "greedySettlementOptimizer", greedy);
+        ReflectionTestUtils.setField(minimumTransfer, "timeBudgetMs", 60_000L);
+        ReflectionTestUtils.setField(minimumTransfer, "maxTableBytes", Long.MAX_VALUE);
+        optimizer = "greedy".equals(solver) ? greedy : minimumTransfer;
+
+        // Non-zero whole euros up to 50: zero-sum subgroups are common, as in real trips
+        Random random = new Random(members);
+        long total;
+        do {
+            balances = new HashMap<>();
+            total = 0;
+            for (long userId = 1; userId < members; userId++) {
+                long cents = (random.nextInt(50) + 1) * (random.nextBoolean() ? 100L : -100L);
+                balances.put(userId, BigDecimal.valueOf(cents, 2));
+                total += cents;
+            }
+        } while (total == 0);
+        balances.put((long) members, BigDecimal.valueOf(-total, 2));
+    }
+
+    @Benchmark
+    public List<SettlementOptimizer.Transfer> optimize() {
+        return optimizer.optimize(balances);
+    }
+}
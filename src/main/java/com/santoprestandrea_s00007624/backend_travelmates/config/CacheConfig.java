@@ -0,0 +1,55 @@
+package com.santoprestandrea_s00007624.backend_travelmates.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * CACHE CONFIGURATION
+ *
+ * In-memory caches for read-heavy, derived data, backed by Caffeine:
+ * - bounded (trip.statistics-cache.max-size entries, least used evicted)
+ * - every entry expires trip.statistics-cache.ttl-seconds after being written
+ *
+ * The manager is transaction-aware: an eviction done inside a transaction
+ * (e.g. @CacheEvict on an expense write) is applied only after commit, so
+ * values cached by reads while the write was still uncommitted are dropped.
+ * A read that loaded the old data before the commit can still store it
+ * just after the eviction: the TTL is what bounds how long such a stale
+ * value can be served.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Trip spending statistics, key = trip id
+     */
+    public static final String TRIP_STATISTICS = "tripStatistics";
+
+    @Value("${trip.statistics-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${trip.statistics-cache.max-size:10000}")
+    private long maxSize;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats());
+        caffeineCacheManager.setCacheNames(List.of(TRIP_STATISTICS));
+        caffeineCacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -0,0 +1,24 @@
+package com.santoprestandrea_s00007624.backend_travelmates.config;
+
+import com.santoprestandrea_s00007624.backend_travelmates.security.InMemoryLoginRateLimiter;
+import com.santoprestandrea_s00007624.backend_travelmates.security.LoginRateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the default LoginRateLimiter
+ *
+ * The in-memory limiter is per instance. A shared implementation (e.g.
+ * backed by Redis) only has to be declared as a LoginRateLimiter bean
+ * (@Component or @Bean) to replace it.
+ */
+@Configuration
+public class LoginRateLimiterConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(LoginRateLimiter.class)
+    public InMemoryLoginRateLimiter loginRateLimiter() {
+        return new InMemoryLoginRateLimiter();
+    }
+}
@@ -0,0 +1,12 @@
+package com.santoprestandrea_s00007624.backend_travelmates.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (e.g. ledger verification)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,6 +1,7 @@
 package com.santoprestandrea_s00007624.backend_travelmates.config;
 
 import com.santoprestandrea_s00007624.backend_travelmates.security.JwtAuthenticationFilter;
+import com.santoprestandrea_s00007624.backend_travelmates.security.PublicPaths;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,8 +9,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -50,11 +49,11 @@ public class SecurityConfig {
 
                 // AUTHORIZATIONS: who can access what
                 .authorizeHttpRequests(auth -> auth
-                        // PUBLIC endpoints (accessible without login)
-                        .requestMatchers("/api/auth/**").permitAll()
-                        .requestMatchers("/api/public/**").permitAll()
-                        .requestMatchers("/error").permitAll()
-                        .requestMatchers("/h2-console/**").permitAll() // Dev only
+                        // PUBLIC endpoints (accessible without login), see PublicPaths
+                        .requestMatchers(PublicPaths.PATTERNS).permitAll()
+
+                        // Metrics and the other actuator endpoints: ADMIN only
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                         // All other endpoints REQUIRE AUTHENTICATION
                         .anyRequest().authenticated())
@@ -103,14 +102,4 @@ public class SecurityConfig {
 
         return source;
     }
-
-    /**
-     * PASSWORD ENCODER
-     *
-     * Uses BCrypt to encrypt passwords securely.
-     */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
\ No newline at end of file
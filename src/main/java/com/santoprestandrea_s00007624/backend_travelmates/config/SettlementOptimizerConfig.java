@@ -0,0 +1,31 @@
+package com.santoprestandrea_s00007624.backend_travelmates.config;
+
+import com.santoprestandrea_s00007624.backend_travelmates.service.GreedySettlementOptimizer;
+import com.santoprestandrea_s00007624.backend_travelmates.service.MinimumTransferSettlementOptimizer;
+import com.santoprestandrea_s00007624.backend_travelmates.service.SettlementOptimizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Selects the SettlementOptimizer used for settlement suggestions
+ *
+ * settlement.optimizer = min-transfer (default) | greedy
+ */
+@Configuration
+public class SettlementOptimizerConfig {
+
+    @Bean
+    @Primary
+    public SettlementOptimizer settlementOptimizer(
+            @Value("${settlement.optimizer:min-transfer}") String optimizer,
+            GreedySettlementOptimizer greedy,
+            MinimumTransferSettlementOptimizer minimumTransfer) {
+        return switch (optimizer) {
+            case "greedy" -> greedy;
+            case "min-transfer" -> minimumTransfer;
+            default -> throw new IllegalArgumentException("Unknown settlement optimizer: " + optimizer);
+        };
+    }
+}
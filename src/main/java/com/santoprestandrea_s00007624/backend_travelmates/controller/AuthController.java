@@ -1,29 +1,36 @@
 package com.santoprestandrea_s00007624.backend_travelmates.controller;
 
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.LoginRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.RefreshTokenRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.RegisterRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.LoginResponse;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.UserResponse;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.UserRole;
 import com.santoprestandrea_s00007624.backend_travelmates.exception.EmailAlreadyExistsException;
+import com.santoprestandrea_s00007624.backend_travelmates.exception.ServiceUnavailableException;
+import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
 import com.santoprestandrea_s00007624.backend_travelmates.mapper.UserMapper;
+import com.santoprestandrea_s00007624.backend_travelmates.security.LoginRateLimiter;
 import com.santoprestandrea_s00007624.backend_travelmates.service.JwtService;
+import com.santoprestandrea_s00007624.backend_travelmates.service.PasswordHashingService;
+import com.santoprestandrea_s00007624.backend_travelmates.service.RefreshTokenService;
 import com.santoprestandrea_s00007624.backend_travelmates.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * REST Controller for authentication operations (register, login, current user)
+ * REST Controller for authentication operations (register, login, refresh, logout, current user)
  */
 @RestController
 @RequestMapping("/api/auth")
@@ -38,11 +45,17 @@ public class AuthController {
     private JwtService jwtService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     /**
      * Register a new user
      * @param request Registration data (email, password, personal info)
@@ -61,7 +74,7 @@ public class AuthController {
             // Create new user with encoded password and default role
             User user = User.builder()
                     .email(request.getEmail())
-                    .password(passwordEncoder.encode(request.getPassword()))
+                    .password(passwordHashingService.encode(request.getPassword()))
                     .firstName(request.getFirstName())
                     .lastName(request.getLastName())
                     .dateOfBirth(request.getDateOfBirth())
@@ -74,10 +87,13 @@ public class AuthController {
             // Save user and generate JWT token
             User savedUser = userService.save(user);
             String token = jwtService.generateToken(savedUser);
+            String refreshToken = refreshTokenService.issue(savedUser);
             UserResponse userResponse = userMapper.toResponse(savedUser);
 
             LoginResponse response = LoginResponse.builder()
                     .token(token)
+                    .expiresIn(jwtService.getExpirationSeconds())
+                    .refreshToken(refreshToken)
                     .user(userResponse)
                     .build();
 
@@ -90,6 +106,9 @@ public class AuthController {
             error.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
 
+        } catch (ServiceUnavailableException e) {
+            return serviceUnavailable(e);
+
         } catch (Exception e) {
             logger.error("Error during registration: {}", e.getMessage());
             Map<String, String> error = new HashMap<>();
@@ -101,10 +120,22 @@ public class AuthController {
     /**
      * Authenticate user and generate JWT token
      * @param request Login credentials (email and password)
-     * @return LoginResponse with JWT token and user data, or error message
+     * @return LoginResponse with JWT token and user data, or error message (429 if throttled)
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        // Throttle before any database lookup or password hash
+        String clientIp = httpRequest.getRemoteAddr();
+        long retryAfter = loginRateLimiter.tryAcquire(clientIp, request.getEmail());
+        if (retryAfter > 0) {
+            logger.warn("Login rate limit exceeded for email: {} from {}", request.getEmail(), clientIp);
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Too many login attempts, please retry later");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(error);
+        }
+
         try {
             logger.info("Login attempt for email: {}", request.getEmail());
 
@@ -117,25 +148,40 @@ public class AuthController {
                 throw new RuntimeException("Account disabled");
             }
 
-            // Verify password
-            if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+            // Verify password (on the hashing pool, not on this thread)
+            if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
                 logger.warn("Wrong password for user: {}", request.getEmail());
                 throw new RuntimeException("Invalid credentials");
             }
 
+            // Hash made with an older cost factor: upgrade it in the background
+            if (passwordHashingService.needsRehash(user.getPassword())) {
+                Long userId = user.getId();
+                String oldHash = user.getPassword();
+                passwordHashingService.rehashAsync(request.getPassword(),
+                        hash -> userService.updatePassword(userId, oldHash, hash));
+            }
+
             // Update last login timestamp and generate token
+            loginRateLimiter.onSuccess(clientIp, request.getEmail());
             userService.updateLastLogin(user.getId());
             String token = jwtService.generateToken(user);
+            String refreshToken = refreshTokenService.issue(user);
             UserResponse userResponse = userMapper.toResponse(user);
 
             LoginResponse response = LoginResponse.builder()
                     .token(token)
+                    .expiresIn(jwtService.getExpirationSeconds())
+                    .refreshToken(refreshToken)
                     .user(userResponse)
                     .build();
 
             logger.info("Login successful for user: {}", user.getEmail());
             return ResponseEntity.ok(response);
 
+        } catch (ServiceUnavailableException e) {
+            return serviceUnavailable(e);
+
         } catch (RuntimeException e) {
             logger.warn("Login failed for email: {}", request.getEmail());
             Map<String, String> error = new HashMap<>();
@@ -150,6 +196,45 @@ public class AuthController {
         }
     }
 
+    /**
+     * Exchange a refresh token for a new access token (and a new refresh token)
+     * No password check: the refresh token is verified with a single hash lookup
+     * @param request The refresh token received at login or at the last refresh
+     * @return LoginResponse with the new tokens, or unauthorized status
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        try {
+            RefreshTokenService.RotatedToken rotated = refreshTokenService.rotate(request.getRefreshToken());
+            User user = rotated.user();
+
+            LoginResponse response = LoginResponse.builder()
+                    .token(jwtService.generateToken(user))
+                    .expiresIn(jwtService.getExpirationSeconds())
+                    .refreshToken(rotated.refreshToken())
+                    .user(userMapper.toResponse(user))
+                    .build();
+
+            return ResponseEntity.ok(response);
+
+        } catch (UnauthorizedException e) {
+            logger.warn("Refresh failed: {}", e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+    }
+
+    /**
+     * Logout: revoke the refresh token (and every token rotated from it)
+     * The access token stays valid until it expires (a few minutes)
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        refreshTokenService.revoke(request.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Get current authenticated user information
      * @param authHeader Authorization header containing JWT token
@@ -161,7 +246,7 @@ public class AuthController {
         try {
             // Extract token from "Bearer <token>" format
             String token = authHeader.substring(7);
-            String email = jwtService.getEmailFromToken(token);
+            String email = jwtService.parseAndVerify(token).email();
 
             // Retrieve user from database
             User user = userService.findByEmail(email)
@@ -175,4 +260,15 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
     }
+
+    /**
+     * 503 + Retry-After when the password hashing pool is saturated
+     */
+    private ResponseEntity<Map<String, String>> serviceUnavailable(ServiceUnavailableException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+    }
 }
@@ -2,17 +2,26 @@ package com.santoprestandrea_s00007624.backend_travelmates.controller;
 
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreatePersonalExpenseRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.ExpenseFilterRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.UpdateExpenseRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.*;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import com.santoprestandrea_s00007624.backend_travelmates.service.ExpenseImportService;
 import com.santoprestandrea_s00007624.backend_travelmates.service.ExpenseService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -29,6 +38,9 @@ public class ExpenseController {
     @Autowired
     private ExpenseService expenseService;
 
+    @Autowired
+    private ExpenseImportService expenseImportService;
+
     /**
      * CREATE SHARED EXPENSE
      *
@@ -80,6 +92,37 @@ public class ExpenseController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * BULK IMPORT EXPENSES
+     *
+     * POST /api/trips/{tripId}/expenses/bulk
+     *
+     * Content-Type: application/json → array of rows (see BulkExpenseRow)
+     * Content-Type: text/csv → header + one expense per line
+     *
+     * The body is streamed, so large files are fine. Valid rows are saved,
+     * invalid rows are listed in the response with their row number.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkImportResponse> importExpensesJson(
+            @PathVariable Long tripId,
+            HttpServletRequest request,
+            @AuthenticationPrincipal User currentUser) throws IOException {
+
+        BulkImportResponse response = expenseImportService.importJson(tripId, request.getInputStream(), currentUser);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<BulkImportResponse> importExpensesCsv(
+            @PathVariable Long tripId,
+            HttpServletRequest request,
+            @AuthenticationPrincipal User currentUser) throws IOException {
+
+        BulkImportResponse response = expenseImportService.importCsv(tripId, request.getInputStream(), currentUser);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * GET ALL EXPENSES FOR A TRIP
      *
@@ -96,6 +139,46 @@ public class ExpenseController {
         return ResponseEntity.ok(expenses);
     }
 
+    /**
+     * GET EXPENSES PAGE (KEYSET PAGINATION + FILTERS)
+     *
+     * GET /api/trips/{tripId}/expenses/page
+     *
+     * Query params (all optional):
+     * - cursor: nextCursor from the previous page
+     * - size: page size (default 50, max 100)
+     * - category, paidBy (user id)
+     * - from, to: date range (yyyy-MM-dd, inclusive)
+     * - minAmount, maxAmount: amount range (inclusive)
+     *
+     * Newest expenses first.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ExpensePageResponse> getTripExpensesPage(
+            @PathVariable Long tripId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) ExpenseCategory category,
+            @RequestParam(required = false) Long paidBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @AuthenticationPrincipal User currentUser) {
+
+        ExpenseFilterRequest filter = ExpenseFilterRequest.builder()
+                .category(category)
+                .paidByUserId(paidBy)
+                .fromDate(from)
+                .toDate(to)
+                .minAmount(minAmount)
+                .maxAmount(maxAmount)
+                .build();
+
+        ExpensePageResponse page = expenseService.getTripExpensesPage(tripId, filter, cursor, size, currentUser);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * GET EXPENSE BY ID
      *
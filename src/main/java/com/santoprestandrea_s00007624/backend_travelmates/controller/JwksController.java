@@ -0,0 +1,37 @@
+package com.santoprestandrea_s00007624.backend_travelmates.controller;
+
+import com.santoprestandrea_s00007624.backend_travelmates.security.JwtKeyStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWKS CONTROLLER
+ *
+ * Publishes the public keys that verify our JWTs, so other services can
+ * check tokens without sharing any secret.
+ *
+ * GET /api/public/.well-known/jwks.json
+ *
+ * Empty key list when tokens are signed with HS256.
+ */
+@RestController
+@RequestMapping("/api/public/.well-known")
+public class JwksController {
+
+    @Autowired
+    private JwtKeyStore jwtKeyStore;
+
+    @GetMapping("/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(jwtKeyStore.getJwks());
+    }
+}
@@ -7,10 +7,14 @@ import com.santoprestandrea_s00007624.backend_travelmates.dto.request.UpdateTrip
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripBalanceResponse;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripDetailResponse;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripMemberResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripPageResponse;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripSpendingStatisticsResponse;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.*;
 import com.santoprestandrea_s00007624.backend_travelmates.mapper.TripMapper;
 import com.santoprestandrea_s00007624.backend_travelmates.service.ExpenseService;
+import com.santoprestandrea_s00007624.backend_travelmates.service.TripSearchService;
+import com.santoprestandrea_s00007624.backend_travelmates.service.TripStatisticsService;
 import com.santoprestandrea_s00007624.backend_travelmates.service.TripService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,6 +41,8 @@ import java.util.List;
 @RequestMapping("/api/trips")
 public class TripController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private TripService tripService;
 
@@ -46,6 +52,12 @@ public class TripController {
     @Autowired
     private ExpenseService expenseService;
 
+    @Autowired
+    private TripStatisticsService tripStatisticsService;
+
+    @Autowired
+    private TripSearchService tripSearchService;
+
     // ===== HELPER: GET CURRENT USER ID =====
 
     private Long getCurrentUserId() {
@@ -93,22 +105,37 @@ public class TripController {
     /**
      * GET /api/trips - LIST ALL TRIPS FOR CURRENT USER
      *
-     * Returns all trips the user participates in (as ORGANIZER or PARTICIPANT).
+     * Returns the trips the user participates in (as ORGANIZER or PARTICIPANT),
+     * latest start date first. One database query, whatever the number of trips.
+     *
+     * Query params (all optional):
+     * - status: only trips with this status
+     * - size: page size (max 100); without it, all the trips are returned
+     * - cursor: X-Next-Cursor header of the previous page
      *
      * RESPONSE: 200 OK + List<TripResponse>
+     * Header X-Next-Cursor is set when there is another page.
      */
     @GetMapping
-    public ResponseEntity<List<TripResponse>> getMyTrips() {
+    public ResponseEntity<List<TripResponse>> getMyTrips(
+            @RequestParam(required = false) TripStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         Long currentUserId = getCurrentUserId();
-        List<Trip> trips = tripService.findTripsByUserId(currentUserId);
-        List<TripResponse> response = tripMapper.toResponseList(trips);
-        return ResponseEntity.ok(response);
+        TripPageResponse page = tripService.findTripPageByUserId(currentUserId, status, cursor, size);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     /**
      * GET /api/trips/{id} - TRIP DETAILS
      *
      * Only trip members can view details.
+     * Two queries: trip + members + users, then all the statistics.
      *
      * RESPONSE: 200 OK + TripDetailResponse
      */
@@ -116,10 +143,8 @@ public class TripController {
     public ResponseEntity<TripDetailResponse> getTripById(@PathVariable Long id) {
         Long currentUserId = getCurrentUserId();
 
-        Trip trip = tripService.findByIdOrThrow(id);
-
-        // Verify user is a member
-        tripService.checkUserIsMember(trip, currentUserId);
+        // Load with members and users, verifying the user is a member
+        Trip trip = tripService.findDetailForMember(id, currentUserId);
 
         TripDetailResponse response = tripMapper.toDetailResponse(trip);
         return ResponseEntity.ok(response);
@@ -141,44 +166,43 @@ public class TripController {
     /**
      * GET /api/trips/search?keyword=paris
      *
-     * Search trips by title or destination.
-     * Only among current user's trips.
+     * Search trips by title, destination or description.
+     * Only among current user's trips, best match first (see TripSearchService).
+     *
+     * Query params:
+     * - keyword: one or more words, each matched as a prefix ("par" finds "Paris")
+     * - size: page size (default 20, max 100)
+     * - cursor: X-Next-Cursor header of the previous page
+     *
+     * RESPONSE: 200 OK + List<TripResponse>
+     * Header X-Next-Cursor is set when there is another page.
      */
     @GetMapping("/search")
-    public ResponseEntity<List<TripResponse>> searchTrips(@RequestParam String keyword) {
-        // For security, search only among user's trips
+    public ResponseEntity<List<TripResponse>> searchTrips(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         Long currentUserId = getCurrentUserId();
-        List<Trip> allUserTrips = tripService.findTripsByUserId(currentUserId);
-
-        // Filter locally by keyword
-        List<Trip> filtered = allUserTrips.stream()
-                .filter(trip -> trip.getTitle().toLowerCase().contains(keyword.toLowerCase()) ||
-                        trip.getDestination().toLowerCase().contains(keyword.toLowerCase()))
-                .toList();
+        TripPageResponse page = tripSearchService.search(currentUserId, keyword, cursor, size);
 
-        List<TripResponse> response = tripMapper.toResponseList(filtered);
-        return ResponseEntity.ok(response);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     /**
      * GET /api/trips/status/{status} - FILTER BY STATUS
      *
      * Example: /api/trips/status/ACTIVE
+     * Same as GET /api/trips?status=ACTIVE (filtered in the query).
      */
     @GetMapping("/status/{status}")
     public ResponseEntity<List<TripResponse>> getTripsByStatus(@PathVariable TripStatus status) {
         Long currentUserId = getCurrentUserId();
-
-        // Find all user's trips
-        List<Trip> allUserTrips = tripService.findTripsByUserId(currentUserId);
-
-        // Filter by status
-        List<Trip> filtered = allUserTrips.stream()
-                .filter(trip -> trip.getStatus() == status)
-                .toList();
-
-        List<TripResponse> response = tripMapper.toResponseList(filtered);
-        return ResponseEntity.ok(response);
+        TripPageResponse page = tripService.findTripPageByUserId(currentUserId, status, null, null);
+        return ResponseEntity.ok(page.getItems());
     }
 
     // ===== UPDATE =====
@@ -353,6 +377,28 @@ public class TripController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * GET /api/trips/{id}/statistics - SPENDING STATISTICS
+     *
+     * Category breakdown, spend per day with budget burn-down, top payers,
+     * average expense. Amounts are in the trip currency.
+     * Only trip members can view statistics.
+     *
+     * RESPONSE: 200 OK + TripSpendingStatisticsResponse
+     */
+    @GetMapping("/{id}/statistics")
+    public ResponseEntity<TripSpendingStatisticsResponse> getTripStatistics(@PathVariable Long id) {
+        Long currentUserId = getCurrentUserId();
+
+        Trip trip = tripService.findByIdOrThrow(id);
+
+        // Verify user is a member (before reading the cache)
+        tripService.checkUserIsMember(trip, currentUserId);
+
+        TripSpendingStatisticsResponse response = tripStatisticsService.getStatistics(id);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * GET /api/trips/{tripId}/balance - CALCULATE TRIP BALANCE
      *
@@ -38,7 +38,9 @@ public class UserController {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         User currentUser = (User) authentication.getPrincipal();
 
-        UserResponse response = userMapper.toResponse(currentUser);
+        // The principal only carries the cached fields: load the full profile
+        User profile = userService.findByIdOrThrow(currentUser.getId());
+        UserResponse response = userMapper.toResponse(profile);
         return ResponseEntity.ok(response);
     }
 
@@ -0,0 +1,65 @@
+package com.santoprestandrea_s00007624.backend_travelmates.dto.request;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SplitType;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO - BULK EXPENSE ROW
+ *
+ * One row of a bulk import (POST /api/trips/{tripId}/expenses/bulk).
+ * It carries the union of the shared and personal expense fields plus a
+ * "type" discriminator. The importer turns it into a
+ * CreateSharedExpenseRequest or CreatePersonalExpenseRequest and validates
+ * that request with the usual rules.
+ *
+ * JSON EXAMPLE (body is an array of rows):
+ * [
+ * {"type": "SHARED", "description": "Dinner", "amount": 120.00, "currency": "EUR",
+ * "category": "FOOD", "date": "2025-06-15", "splitType": "EQUAL", "participantIds": [1, 2, 3]},
+ * {"type": "PERSONAL", "description": "Train ticket", "amount": 50.00, "currency": "EUR",
+ * "category": "TRANSPORT", "date": "2025-06-10", "forUserId": 2}
+ * ]
+ *
+ * CSV EXAMPLE (header names match the JSON fields, in any order):
+ * type,description,amount,currency,category,date,splitType,participantIds,splits,forUserId
+ * SHARED,Dinner,120.00,EUR,FOOD,2025-06-15,EQUAL,1;2;3,,
+ * SHARED,Hotel,200.00,EUR,ACCOMMODATION,2025-06-10,PERCENTAGE,,1:50;2:50,
+ * PERSONAL,Train ticket,50.00,EUR,TRANSPORT,2025-06-10,,,,2
+ *
+ * In CSV, "splits" is a list of userId:value pairs. The value is a
+ * percentage for PERCENTAGE splits and an amount for CUSTOM splits.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkExpenseRow {
+
+    /**
+     * SHARED or PERSONAL
+     */
+    private String type;
+
+    private String description;
+    private BigDecimal amount;
+    private String currency;
+    private ExpenseCategory category;
+    private LocalDate date;
+
+    // Shared expense fields
+    private SplitType splitType;
+    private List<Long> participantIds;
+    private List<CreateSharedExpenseRequest.SplitDetailRequest> splits;
+
+    // Personal expense field
+    private Long forUserId;
+
+    private String receiptImageUrl;
+    private String notes;
+}
@@ -0,0 +1,29 @@
+package com.santoprestandrea_s00007624.backend_travelmates.dto.request;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO - EXPENSE FILTER
+ *
+ * Optional filters for the paginated expense listing.
+ * Every null field means "no filter". Date and amount bounds are inclusive;
+ * amounts are compared in the trip currency.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpenseFilterRequest {
+
+    private ExpenseCategory category;
+    private Long paidByUserId;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+}
@@ -0,0 +1,62 @@
+package com.santoprestandrea_s00007624.backend_travelmates.dto.response;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO - BULK IMPORT RESPONSE
+ *
+ * Per-row report of a bulk expense import.
+ * Row numbers are 1-based: array index + 1 for JSON, record number for CSV
+ * (the header is not counted).
+ *
+ * JSON EXAMPLE:
+ * {
+ * "totalRows": 250,
+ * "imported": 248,
+ * "failed": 2,
+ * "aborted": false,
+ * "errorsTruncated": false,
+ * "errors": [
+ * { "row": 17, "message": "amount: Amount must be greater than 0" },
+ * { "row": 92, "message": "User 42 is not a member of this trip" }
+ * ]
+ * }
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkImportResponse {
+
+    private int totalRows;
+    private int imported;
+    private int failed;
+
+    /**
+     * True if the body could not be read to the end (malformed JSON/CSV).
+     * Rows before the failure point are still imported.
+     */
+    private boolean aborted;
+
+    /**
+     * True if more rows failed than are listed in errors
+     */
+    private boolean errorsTruncated;
+
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RowError {
+        private int row;
+        private String message;
+    }
+}
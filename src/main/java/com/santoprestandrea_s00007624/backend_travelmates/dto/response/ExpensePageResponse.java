@@ -0,0 +1,32 @@
+package com.santoprestandrea_s00007624.backend_travelmates.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO - EXPENSE PAGE RESPONSE
+ *
+ * One page of the keyset-paginated expense listing.
+ *
+ * JSON EXAMPLE:
+ * {
+ * "items": [ ... ],
+ * "nextCursor": "2025-06-12:481",
+ * "hasMore": true
+ * }
+ *
+ * Pass nextCursor back as ?cursor= to get the following page.
+ * nextCursor is null on the last page.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpensePageResponse {
+
+    private List<ExpenseResponse> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
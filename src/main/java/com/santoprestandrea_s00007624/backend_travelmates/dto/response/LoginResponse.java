@@ -13,6 +13,17 @@ public class LoginResponse {
 
     private String token;
     private String type = "Bearer";
+
+    /**
+     * Seconds until the access token expires
+     */
+    private long expiresIn;
+
+    /**
+     * Opaque token for POST /api/auth/refresh (rotated on every use)
+     */
+    private String refreshToken;
+
     private UserResponse user;
 
     public LoginResponse(String token, UserResponse user) {
@@ -15,6 +15,7 @@ import java.util.Map;
  * "tripId": 10,
  * "tripTitle": "Paris 2025",
  * "totalExpenses": 500.00,
+ * "unconvertedExpenses": 0,
  * "currency": "EUR",
  * "userBalances": {
  * "1": { // Mario
@@ -51,6 +52,13 @@ public class TripBalanceResponse {
     private Long tripId;
     private String tripTitle;
     private BigDecimal totalExpenses;
+
+    /**
+     * Expenses with no exchange rate to the trip currency yet: they are
+     * left out of totalExpenses and of every balance below
+     */
+    private Long unconvertedExpenses;
+
     private String currency;
     private Map<Long, UserBalanceDetail> userBalances;
     private java.util.List<SettlementSuggestion> settlements;
@@ -0,0 +1,26 @@
+package com.santoprestandrea_s00007624.backend_travelmates.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO - TRIP PAGE RESPONSE
+ *
+ * One page of the keyset-paginated "my trips" listing.
+ * The controller returns the items as the body and nextCursor in the
+ * X-Next-Cursor header, so GET /api/trips keeps its array response.
+ *
+ * nextCursor ("yyyy-MM-dd:id") is null on the last page.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TripPageResponse {
+
+    private List<TripResponse> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
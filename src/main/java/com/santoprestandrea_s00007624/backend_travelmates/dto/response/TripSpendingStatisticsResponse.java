@@ -0,0 +1,108 @@
+package com.santoprestandrea_s00007624.backend_travelmates.dto.response;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO - TRIP SPENDING STATISTICS
+ *
+ * Spending breakdown of a trip. All amounts are in the trip currency.
+ *
+ * JSON EXAMPLE:
+ * {
+ * "tripId": 10,
+ * "currency": "EUR",
+ * "totalExpenses": 850.50,
+ * "numberOfExpenses": 12,
+ * "unconvertedExpenses": 0,
+ * "averageExpense": 70.88,
+ * "budget": 1500.00,
+ * "budgetRemaining": 649.50,
+ * "budgetUsedPercentage": 56.70,
+ * "byCategory": [ { "category": "FOOD", "total": 320.00, "count": 6 } ],
+ * "byDay": [ { "date": "2025-06-01", "total": 120.00, "cumulative": 120.00, "budgetRemaining": 1380.00 } ],
+ * "topPayers": [ { "userId": 1, "name": "Mario Rossi", "total": 500.00, "count": 7 } ]
+ * }
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TripSpendingStatisticsResponse {
+
+    private Long tripId;
+    private String currency;
+
+    private BigDecimal totalExpenses;
+    private Long numberOfExpenses;
+
+    /**
+     * Expenses with no exchange rate to the trip currency yet: included in
+     * numberOfExpenses, left out of every total and of the average
+     */
+    private Long unconvertedExpenses;
+
+    private BigDecimal averageExpense;
+
+    /**
+     * Trip budget (null if not set), with what is left of it
+     */
+    private BigDecimal budget;
+    private BigDecimal budgetRemaining;
+    private BigDecimal budgetUsedPercentage;
+
+    /**
+     * Highest total first
+     */
+    private List<CategoryTotal> byCategory;
+
+    /**
+     * Budget burn-down, oldest day first
+     */
+    private List<DailyTotal> byDay;
+
+    /**
+     * Highest total first
+     */
+    private List<PayerTotal> topPayers;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CategoryTotal {
+        private ExpenseCategory category;
+        private BigDecimal total;
+        private Long count;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DailyTotal {
+        private LocalDate date;
+        private BigDecimal total;
+        private BigDecimal cumulative;
+        private BigDecimal budgetRemaining;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class PayerTotal {
+        private Long userId;
+        private String name;
+        private BigDecimal total;
+        private Long count;
+    }
+}
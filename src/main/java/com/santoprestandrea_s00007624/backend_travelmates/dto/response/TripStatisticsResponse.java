@@ -12,6 +12,7 @@ import java.math.BigDecimal;
  * JSON EXAMPLE:
  * {
  * "totalExpenses": 850.50,
+ * "unconvertedExpenses": 0,
  * "numberOfActivities": 5,
  * "numberOfDocuments": 3
  * }
@@ -28,6 +29,11 @@ public class TripStatisticsResponse {
      */
     private BigDecimal totalExpenses;
 
+    /**
+     * EXPENSES LEFT OUT OF THE TOTAL (no exchange rate to the trip currency yet)
+     */
+    private Integer unconvertedExpenses;
+
     /**
      * NUMBER OF ACTIVITIES
      */
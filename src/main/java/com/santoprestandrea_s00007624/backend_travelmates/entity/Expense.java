@@ -20,7 +20,10 @@ import java.time.LocalDateTime;
  *   └── PersonalExpense (one-to-one reimbursement)
  */
 @Entity
-@Table(name = "expenses")
+@Table(name = "expenses", indexes = {
+        // Keyset pagination of a trip's expenses (see ExpenseRepository.findPageByTrip)
+        @Index(name = "idx_expenses_trip_date_id", columnList = "trip_id, date DESC, id DESC")
+})
 @Inheritance(strategy = InheritanceType.JOINED)
 @DiscriminatorColumn(name = "expense_type", discriminatorType = DiscriminatorType.STRING)
 @Getter
@@ -53,6 +56,15 @@ public abstract class Expense {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal amount;
 
+    /**
+     * Amount converted into the trip currency at write time
+     * (see ExpenseNormalizationService). Null only for rows that could not
+     * be converted yet: they are left out of every sum and counted as
+     * "unconvertedExpenses" in the balance and statistics responses.
+     */
+    @Column(name = "normalized_amount", precision = 12, scale = 2)
+    private BigDecimal normalizedAmount;
+
     /**
      * Currency code (ISO 4217: EUR, USD, GBP, etc.)
      */
@@ -103,4 +115,12 @@ public abstract class Expense {
      */
     @Column(length = 1000)
     private String notes;
+
+    /**
+     * Amount in the trip currency, zero if it could not be converted yet
+     * (an amount in another currency must not be added to trip totals)
+     */
+    public BigDecimal getAmountInTripCurrency() {
+        return normalizedAmount != null ? normalizedAmount : BigDecimal.ZERO;
+    }
 }
@@ -32,8 +32,13 @@ import java.math.BigDecimal;
 @Builder
 public class ExpenseSplit {
 
+    /**
+     * Sequence-based id (not IDENTITY) so Hibernate can batch split inserts.
+     * allocationSize must match the INCREMENT BY of expense_splits_seq.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_split_seq")
+    @SequenceGenerator(name = "expense_split_seq", sequenceName = "expense_splits_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -56,6 +61,12 @@ public class ExpenseSplit {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal amount;
 
+    /**
+     * Amount converted into the trip currency (same rate as the expense)
+     */
+    @Column(name = "normalized_amount", precision = 12, scale = 2)
+    private BigDecimal normalizedAmount;
+
     /**
      * Percentage for PERCENTAGE split type (0-100)
      * Null for EQUAL and CUSTOM splits
@@ -69,4 +80,12 @@ public class ExpenseSplit {
     @Column(nullable = false)
     @Builder.Default
     private Boolean isPaid = false;
+
+    /**
+     * Amount in the trip currency, zero if it could not be converted yet
+     * (an amount in another currency must not be added to trip totals)
+     */
+    public BigDecimal getAmountInTripCurrency() {
+        return normalizedAmount != null ? normalizedAmount : BigDecimal.ZERO;
+    }
 }
@@ -0,0 +1,55 @@
+package com.santoprestandrea_s00007624.backend_travelmates.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * FX RATE - Daily exchange rate against the base currency
+ *
+ * One row per (date, currency): 1 unit of the base currency
+ * (fx.rates.base-currency, EUR by default) is worth "rate" units of
+ * "currency". The base currency itself has no rows (rate = 1).
+ *
+ * The table is filled from a CSV file (see FxRateService) and read into
+ * memory in one go: conversions never query it.
+ *
+ * DATABASE EXAMPLE:
+ * ┌────────────┬──────────┬────────────┐
+ * │ rate_date  │ currency │    rate    │
+ * ├────────────┼──────────┼────────────┤
+ * │ 2025-06-10 │   USD    │ 1.14190000 │
+ * │ 2025-06-10 │   GBP    │ 0.84430000 │
+ * └────────────┴──────────┴────────────┘
+ */
+@Entity
+@Table(name = "fx_rates", uniqueConstraints = @UniqueConstraint(
+        name = "uk_fx_rates_date_currency", columnNames = { "rate_date", "currency" }))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FxRate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rate_date", nullable = false)
+    private LocalDate rateDate;
+
+    /**
+     * Quoted currency (ISO 4217)
+     */
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    /**
+     * Units of currency per 1 unit of the base currency
+     */
+    @Column(nullable = false, precision = 18, scale = 8)
+    private BigDecimal rate;
+}
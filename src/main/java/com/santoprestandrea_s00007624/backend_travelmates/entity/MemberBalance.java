@@ -0,0 +1,78 @@
+package com.santoprestandrea_s00007624.backend_travelmates.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * MEMBER BALANCE - Per-member balance ledger (projection)
+ *
+ * Keeps the running totals of a user inside a trip, so that reading a
+ * trip balance is a single indexed lookup instead of a recomputation.
+ *
+ * The rows are updated with deltas by ExpenseService and SettlementService
+ * in the same transaction as the expense/settlement change, and can always
+ * be rebuilt from the raw rows (see MemberBalanceService).
+ *
+ * DATABASE EXAMPLE:
+ * ┌─────────┬─────────┬────────────┬────────────┬───────────────────────┐
+ * │ trip_id │ user_id │ total_paid │ total_owed │ settlement_adjustment │
+ * ├─────────┼─────────┼────────────┼────────────┼───────────────────────┤
+ * │    1    │    5    │   250.00   │   125.00   │        -25.00         │
+ * │    1    │    8    │   100.00   │   125.00   │         25.00         │
+ * └─────────┴─────────┴────────────┴────────────┴───────────────────────┘
+ */
+@Entity
+@Table(name = "member_balances", uniqueConstraints = @UniqueConstraint(
+        name = "uk_member_balances_trip_user", columnNames = { "trip_id", "user_id" }))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MemberBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trip_id", nullable = false)
+    private Long tripId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * Sum of all expenses paid by the user
+     */
+    @Column(name = "total_paid", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal totalPaid = BigDecimal.ZERO;
+
+    /**
+     * Sum of all splits assigned to the user + unpaid personal expenses
+     */
+    @Column(name = "total_owed", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal totalOwed = BigDecimal.ZERO;
+
+    /**
+     * Net effect of COMPLETED settlements
+     * (+ amount for the payer, - amount for the receiver)
+     */
+    @Column(name = "settlement_adjustment", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal settlementAdjustment = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * Net balance from expenses only (totalPaid - totalOwed)
+     */
+    public BigDecimal getNetBalance() {
+        return totalPaid.subtract(totalOwed);
+    }
+}
@@ -0,0 +1,73 @@
+package com.santoprestandrea_s00007624.backend_travelmates.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * REFRESH TOKEN
+ *
+ * Long-lived, opaque token used to obtain new (short-lived) access tokens
+ * without sending the password again (POST /api/auth/refresh).
+ *
+ * SECURITY:
+ * - Only the SHA-256 hash of the token is stored: a leaked table cannot be
+ * used to log in
+ * - Every refresh rotates the token: the old one is marked as used and a
+ * new one of the same "family" is issued
+ * - If an already used token shows up again, someone has a copy of it:
+ * the whole family is revoked (the user must log in again)
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_user", columnList = "user_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * SHA-256 of the token, hex encoded
+     */
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    /**
+     * Shared by all the tokens obtained from the same login
+     */
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Set when the token has been exchanged (rotation)
+     */
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+
+    /**
+     * Set on logout, deactivation or reuse detection
+     */
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -123,6 +123,15 @@ public class Trip {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * When the member_balances ledger of this trip was (re)built from the
+     * raw rows. Null = not built yet (trip older than the ledger): balances
+     * are then computed from the expenses (see MemberBalanceService).
+     * Written only by the ledger rebuild, never by entity updates.
+     */
+    @Column(name = "ledger_built_at", updatable = false)
+    private LocalDateTime ledgerBuiltAt;
+
     // ===== RELATIONSHIPS =====
 
     /**
@@ -146,6 +155,18 @@ public class Trip {
     @Builder.Default
     private List<TripMember> members = new ArrayList<>();
 
+    // ===== LIFECYCLE =====
+
+    /**
+     * A new trip has no expenses yet: its (empty) ledger is complete
+     */
+    @PrePersist
+    protected void onCreate() {
+        if (ledgerBuiltAt == null) {
+            ledgerBuiltAt = LocalDateTime.now();
+        }
+    }
+
     // ===== HELPER METHODS =====
 
     /**
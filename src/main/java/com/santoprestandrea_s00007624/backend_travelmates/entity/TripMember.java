@@ -29,7 +29,12 @@ import java.time.LocalDateTime;
  * └────┴─────────┴─────────┴──────────────┴────────────┘
  */
 @Entity
-@Table(name = "trip_members")
+@Table(name = "trip_members", indexes = {
+        // "My trips" listing and permission lookups by (user, trip)
+        @Index(name = "idx_trip_members_user_trip", columnList = "user_id, trip_id"),
+        // Member counts and member lists of a trip
+        @Index(name = "idx_trip_members_trip", columnList = "trip_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -57,6 +57,14 @@ public class User {
 
     @Column(nullable = false)
     private Boolean isActive = true;
+
+    /**
+     * Embedded in every JWT ("ver" claim). Incrementing it revokes all the
+     * tokens issued before (see TokenRevocationList).
+     */
+    @Builder.Default
+    @Column(name = "token_version", nullable = false, columnDefinition = "integer not null default 0")
+    private Integer tokenVersion = 0;
 }
 
 
@@ -0,0 +1,24 @@
+package com.santoprestandrea_s00007624.backend_travelmates.exception;
+
+/**
+ * EXCEPTION: SERVICE TEMPORARILY UNAVAILABLE
+ *
+ * Thrown when the server is deliberately shedding load and the client
+ * should retry later (HTTP 503 with a Retry-After header).
+ *
+ * EXAMPLES:
+ * - The password hashing queue is full during a login burst
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
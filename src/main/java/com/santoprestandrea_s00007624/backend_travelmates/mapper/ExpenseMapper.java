@@ -2,9 +2,11 @@ package com.santoprestandrea_s00007624.backend_travelmates.mapper;
 
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.*;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.*;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.ExpenseSplitRow;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.stream.Collectors;
 
 /**
@@ -32,6 +34,21 @@ public class ExpenseMapper {
         return toBaseResponse(expense);
     }
 
+    /**
+     * Converts Expense to response type using preloaded split rows
+     * (SharedExpense.splits is never touched)
+     *
+     * @param splitRows rows of this expense, ignored for personal expenses
+     */
+    public ExpenseResponse toResponse(Expense expense, List<ExpenseSplitRow> splitRows) {
+        if (expense instanceof SharedExpense) {
+            return toSharedExpenseResponse((SharedExpense) expense, splitRows.stream()
+                    .map(this::toExpenseSplitResponse)
+                    .collect(Collectors.toList()));
+        }
+        return toResponse(expense);
+    }
+
     /**
      * Base expense response
      */
@@ -57,6 +74,12 @@ public class ExpenseMapper {
      * Shared expense response (includes splits)
      */
     public SharedExpenseResponse toSharedExpenseResponse(SharedExpense expense) {
+        return toSharedExpenseResponse(expense, expense.getSplits().stream()
+                .map(this::toExpenseSplitResponse)
+                .collect(Collectors.toList()));
+    }
+
+    private SharedExpenseResponse toSharedExpenseResponse(SharedExpense expense, List<ExpenseSplitResponse> splits) {
         return SharedExpenseResponse.sharedExpenseBuilder()
                 .id(expense.getId())
                 .tripId(expense.getTrip().getId())
@@ -72,9 +95,7 @@ public class ExpenseMapper {
                 .createdBy(userMapper.toResponse(expense.getCreatedBy()))
                 .expenseType("SHARED")
                 .splitType(expense.getSplitType())
-                .splits(expense.getSplits().stream()
-                        .map(this::toExpenseSplitResponse)
-                        .collect(Collectors.toList()))
+                .splits(splits)
                 .build();
     }
 
@@ -101,6 +122,32 @@ public class ExpenseMapper {
                 .build();
     }
 
+    /**
+     * Expense split response from a projection row
+     */
+    public ExpenseSplitResponse toExpenseSplitResponse(ExpenseSplitRow row) {
+        return ExpenseSplitResponse.builder()
+                .id(row.splitId())
+                .user(UserResponse.builder()
+                        .id(row.userId())
+                        .email(row.userEmail())
+                        .firstName(row.userFirstName())
+                        .lastName(row.userLastName())
+                        .dateOfBirth(row.userDateOfBirth())
+                        .phoneNumber(row.userPhoneNumber())
+                        .bio(row.userBio())
+                        .profileImageUrl(row.userProfileImageUrl())
+                        .role(row.userRole())
+                        .registrationDate(row.userRegistrationDate())
+                        .lastLogin(row.userLastLogin())
+                        .isActive(row.userIsActive())
+                        .build())
+                .amount(row.amount())
+                .percentage(row.percentage())
+                .isPaid(row.isPaid())
+                .build();
+    }
+
     /**
      * Expense split response
      */
@@ -5,13 +5,14 @@ import com.santoprestandrea_s00007624.backend_travelmates.dto.request.UpdateTrip
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.*;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.TripMember;
-import com.santoprestandrea_s00007624.backend_travelmates.repository.ActivityRepository;
-import com.santoprestandrea_s00007624.backend_travelmates.repository.DocumentRepository;
-import com.santoprestandrea_s00007624.backend_travelmates.repository.ExpenseRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.TripRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripDetailStatistics;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,13 +32,7 @@ public class TripMapper {
     private UserMapper userMapper;
 
     @Autowired
-    private ExpenseRepository expenseRepository;
-
-    @Autowired
-    private ActivityRepository activityRepository;
-
-    @Autowired
-    private DocumentRepository documentRepository;
+    private TripRepository tripRepository;
 
     // ===== ENTITY → DTO =====
 
@@ -70,6 +65,35 @@ public class TripMapper {
                 .build();
     }
 
+    /**
+     * TripSummary → TripResponse
+     *
+     * Same fields as toResponse(Trip), but the member count was already
+     * computed by the query: no lazy collection is touched.
+     */
+    public TripResponse toResponse(TripSummary trip) {
+        if (trip == null) {
+            return null;
+        }
+
+        return TripResponse.builder()
+                .id(trip.id())
+                .title(trip.title())
+                .description(trip.description())
+                .destination(trip.destination())
+                .startDate(trip.startDate())
+                .endDate(trip.endDate())
+                .budget(trip.budget())
+                .currency(trip.currency())
+                .coverImageUrl(trip.coverImageUrl())
+                .status(trip.status())
+                .createdAt(trip.createdAt())
+                .updatedAt(trip.updatedAt())
+                .durationInDays(ChronoUnit.DAYS.between(trip.startDate(), trip.endDate()) + 1)
+                .memberCount(trip.memberCount() != null ? trip.memberCount().intValue() : 0)
+                .build();
+    }
+
     /**
      * TRIP → TripDetailResponse (complete version)
      *
@@ -194,27 +218,21 @@ public class TripMapper {
     // ===== STATISTICS CALCULATION =====
 
     /**
-     * Calcola le statistiche per un viaggio
+     * Calcola le statistiche per un viaggio (una sola query, vedi
+     * TripRepository.findDetailStatistics)
      */
     private TripStatisticsResponse createStatistics(Trip trip) {
-        Long tripId = trip.getId();
-
-        // Calcola costo totale spese
-        BigDecimal totalCost = expenseRepository.getTotalExpenses(tripId);
-        if (totalCost == null) {
-            totalCost = BigDecimal.ZERO;
-        }
-
-        // Conta attività
-        Long totalActivities = activityRepository.countByTrip_Id(tripId);
-
-        // Conta documenti
-        Long totalDocuments = documentRepository.countByTrip_Id(tripId);
+        TripDetailStatistics statistics = tripRepository.findDetailStatistics(trip.getId())
+                .orElse(new TripDetailStatistics(BigDecimal.ZERO, 0L, 0L, 0L));
 
         return TripStatisticsResponse.builder()
-                .totalExpenses(totalCost)
-                .numberOfActivities(totalActivities != null ? totalActivities.intValue() : 0)
-                .numberOfDocuments(totalDocuments != null ? totalDocuments.intValue() : 0)
+                .totalExpenses(statistics.totalExpenses() != null ? statistics.totalExpenses() : BigDecimal.ZERO)
+                .unconvertedExpenses(statistics.unconvertedExpenses() != null
+                        ? statistics.unconvertedExpenses().intValue() : 0)
+                .numberOfActivities(statistics.numberOfActivities() != null
+                        ? statistics.numberOfActivities().intValue() : 0)
+                .numberOfDocuments(statistics.numberOfDocuments() != null
+                        ? statistics.numberOfDocuments().intValue() : 0)
                 .build();
     }
 
@@ -231,4 +249,13 @@ public class TripMapper {
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * List of TripSummary → List of TripResponse
+     */
+    public List<TripResponse> toSummaryResponseList(List<TripSummary> trips) {
+        return trips.stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
 }
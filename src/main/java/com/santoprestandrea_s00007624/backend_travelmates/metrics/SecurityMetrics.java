@@ -0,0 +1,42 @@
+package com.santoprestandrea_s00007624.backend_travelmates.metrics;
+
+import com.santoprestandrea_s00007624.backend_travelmates.security.PrincipalCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * SECURITY METRICS
+ *
+ * Publishes the counters that PrincipalCache already keeps:
+ * - travelmates.principal.cache.requests{result=hit|miss}
+ * - travelmates.principal.cache.evictions
+ * - travelmates.principal.cache.size
+ */
+@Component
+public class SecurityMetrics implements MeterBinder {
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("travelmates.principal.cache.requests", principalCache,
+                cache -> cache.stats().hits())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("travelmates.principal.cache.requests", principalCache,
+                cache -> cache.stats().misses())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("travelmates.principal.cache.evictions", principalCache,
+                cache -> cache.stats().evictions())
+                .register(registry);
+        Gauge.builder("travelmates.principal.cache.size", principalCache,
+                cache -> cache.stats().size())
+                .register(registry);
+    }
+}
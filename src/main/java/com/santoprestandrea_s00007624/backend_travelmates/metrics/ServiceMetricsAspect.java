@@ -0,0 +1,65 @@
+package com.santoprestandrea_s00007624.backend_travelmates.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * SERVICE METRICS
+ *
+ * Times every public method of the business services and publishes it as
+ * "travelmates.service" (seconds), tagged with:
+ * - class: e.g. ExpenseService
+ * - method: e.g. createSharedExpense
+ * - outcome: SUCCESS | ERROR
+ * - exception: simple name of the thrown exception, "none" on success
+ *
+ * Repository calls are timed by Spring Data itself
+ * ("spring.data.repository.invocations", tagged by repository, method and
+ * state), so they are not wrapped a second time here.
+ *
+ * Outermost advice: calls rejected by @RequireTripRole are timed too.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+
+    public static final String METRIC_NAME = "travelmates.service";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.santoprestandrea_s00007624.backend_travelmates.service.ExpenseService.*(..)) || "
+            + "execution(public * com.santoprestandrea_s00007624.backend_travelmates.service.SettlementService.*(..)) || "
+            + "execution(public * com.santoprestandrea_s00007624.backend_travelmates.service.TripService.*(..)) || "
+            + "execution(public * com.santoprestandrea_s00007624.backend_travelmates.service.TripSearchService.*(..)) || "
+            + "execution(public * com.santoprestandrea_s00007624.backend_travelmates.service.ActivityService.*(..)) || "
+            + "execution(public * com.santoprestandrea_s00007624.backend_travelmates.service.DocumentService.*(..)) || "
+            + "execution(public * com.santoprestandrea_s00007624.backend_travelmates.service.TripNoteService.*(..))")
+    public Object timeServiceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("Execution time of business service methods")
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", "none".equals(exception) ? "SUCCESS" : "ERROR")
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
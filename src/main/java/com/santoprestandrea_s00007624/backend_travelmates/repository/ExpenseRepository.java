@@ -2,6 +2,8 @@ package com.santoprestandrea_s00007624.backend_travelmates.repository;
 
 import com.santoprestandrea_s00007624.backend_travelmates.entity.Expense;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.ExpenseTotals;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * REPOSITORY FOR EXPENSE (BASE)
@@ -17,13 +20,22 @@ import java.util.List;
  * Manages database access for all expense types.
  */
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, ExpenseRepositoryCustom {
 
     /**
      * Find all expenses for a trip, ordered by date (newest first)
+     *
+     * Payer and creator are loaded in the same query.
      */
+    @EntityGraph(attributePaths = {"paidBy", "createdBy"})
     List<Expense> findByTrip_IdOrderByDateDesc(Long tripId);
 
+    /**
+     * Find an expense with payer and creator loaded in the same query
+     */
+    @EntityGraph(attributePaths = {"paidBy", "createdBy"})
+    Optional<Expense> findWithUsersById(Long id);
+
     /**
      * Find all expenses for a trip by category
      */
@@ -34,6 +46,14 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
      */
     List<Expense> findByTrip_IdAndPaidBy_Id(Long tripId, Long userId);
 
+    /**
+     * Total paid per user in a trip (one row per payer)
+     *
+     * Returns: [userId, SUM(amount)]
+     */
+    @Query("SELECT e.paidBy.id, SUM(e.normalizedAmount) FROM Expense e WHERE e.trip.id = :tripId GROUP BY e.paidBy.id")
+    List<Object[]> getTotalPaidPerUser(@Param("tripId") Long tripId);
+
     /**
      * Find expenses within a date range
      */
@@ -44,23 +64,59 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
             @Param("endDate") LocalDate endDate);
 
     /**
-     * Calculate total expenses for a trip
+     * Total expenses of a trip in the trip currency, with the number of
+     * expenses left out of it (no exchange rate yet)
      */
-    @Query("SELECT SUM(e.amount) FROM Expense e WHERE e.trip.id = :tripId")
-    BigDecimal getTotalExpenses(@Param("tripId") Long tripId);
+    @Query("SELECT new com.santoprestandrea_s00007624.backend_travelmates.repository.projection.ExpenseTotals(" +
+            "SUM(e.normalizedAmount), COUNT(e) - COUNT(e.normalizedAmount)) " +
+            "FROM Expense e WHERE e.trip.id = :tripId")
+    ExpenseTotals getExpenseTotals(@Param("tripId") Long tripId);
 
     /**
      * Calculate total by category (for statistics)
      */
-    @Query("SELECT e.category, SUM(e.amount) FROM Expense e WHERE e.trip.id = :tripId GROUP BY e.category")
+    @Query("SELECT e.category, SUM(e.normalizedAmount) FROM Expense e WHERE e.trip.id = :tripId GROUP BY e.category")
     List<Object[]> getTotalByCategory(@Param("tripId") Long tripId);
 
     /**
      * Find users who paid the most (top payers)
      */
-    @Query("SELECT e.paidBy, SUM(e.amount) FROM Expense e WHERE e.trip.id = :tripId GROUP BY e.paidBy ORDER BY SUM(e.amount) DESC")
+    @Query("SELECT e.paidBy, SUM(e.normalizedAmount) FROM Expense e WHERE e.trip.id = :tripId GROUP BY e.paidBy ORDER BY SUM(e.normalizedAmount) DESC")
     List<Object[]> getTopPayers(@Param("tripId") Long tripId);
 
+    /**
+     * SPENDING STATISTICS OF A TRIP (one statement)
+     *
+     * GROUPING SETS computes four aggregations in a single scan:
+     * per category, per day, per payer and the grand total.
+     *
+     * Returns rows of:
+     * [groupingSet, category, date, payerId, payerFirstName, payerLastName, SUM(amount), COUNT(*), unconverted]
+     * groupingSet: 'CATEGORY' | 'DAY' | 'PAYER' | 'TOTAL'
+     * Amounts are in the trip currency; "unconverted" counts the expenses
+     * of the bucket left out of SUM(amount) because they have no rate yet.
+     */
+    @Query(value = "SELECT CASE " +
+            "WHEN GROUPING(e.category) = 0 THEN 'CATEGORY' " +
+            "WHEN GROUPING(e.date) = 0 THEN 'DAY' " +
+            "WHEN GROUPING(e.paid_by_user_id) = 0 THEN 'PAYER' " +
+            "ELSE 'TOTAL' END, " +
+            "e.category, e.date, e.paid_by_user_id, u.first_name, u.last_name, " +
+            "SUM(e.normalized_amount), COUNT(*), COUNT(*) - COUNT(e.normalized_amount) " +
+            "FROM expenses e JOIN users u ON u.id = e.paid_by_user_id " +
+            "WHERE e.trip_id = :tripId " +
+            "GROUP BY GROUPING SETS ((e.category), (e.date), (e.paid_by_user_id, u.first_name, u.last_name), ())",
+            nativeQuery = true)
+    List<Object[]> getSpendingStatistics(@Param("tripId") Long tripId);
+
+    /**
+     * Currency pairs still missing a normalized amount, per trip
+     *
+     * Returns: [tripId, expenseCurrency, tripCurrency]
+     */
+    @Query("SELECT DISTINCT e.trip.id, e.currency, e.trip.currency FROM Expense e WHERE e.normalizedAmount IS NULL")
+    List<Object[]> findUnnormalizedCurrencyPairs();
+
     /**
      * Count expenses in a trip
      */
@@ -69,6 +125,6 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     /**
      * Calculate average expense amount
      */
-    @Query("SELECT AVG(e.amount) FROM Expense e WHERE e.trip.id = :tripId")
+    @Query("SELECT AVG(e.normalizedAmount) FROM Expense e WHERE e.trip.id = :tripId")
     BigDecimal getAverageExpense(@Param("tripId") Long tripId);
 }
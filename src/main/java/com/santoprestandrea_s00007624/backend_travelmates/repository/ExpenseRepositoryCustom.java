@@ -0,0 +1,37 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Expense;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * CUSTOM QUERIES FOR EXPENSE
+ *
+ * Queries whose WHERE clause depends on the arguments, so they cannot be
+ * a single @Query (see ExpenseRepositoryCustomImpl).
+ */
+public interface ExpenseRepositoryCustom {
+
+    /**
+     * KEYSET PAGE OF A TRIP'S EXPENSES (newest first)
+     *
+     * Ordered by (date DESC, id DESC). The next page starts strictly after
+     * the last row of the previous one (cursorDate/cursorId, both null for
+     * the first page), so deep pages cost the same as the first one.
+     * Uses idx_expenses_trip_date_id.
+     *
+     * paidBy and createdBy are fetch-joined: one query per page.
+     * Every filter is optional (null = no filter); amount bounds apply to
+     * the amount in the trip currency.
+     *
+     * @param limit maximum number of rows returned
+     */
+    List<Expense> findPageByTrip(Long tripId, LocalDate cursorDate, Long cursorId,
+            ExpenseCategory category, Long paidByUserId,
+            LocalDate fromDate, LocalDate toDate,
+            BigDecimal minAmount, BigDecimal maxAmount,
+            int limit);
+}
@@ -0,0 +1,80 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Expense;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * IMPLEMENTATION OF ExpenseRepositoryCustom
+ *
+ * Builds the query from the filters that are actually set: no
+ * "(:param IS NULL OR ...)" conditions, which keep the planner from using
+ * the index and make every combination share one generic plan.
+ */
+public class ExpenseRepositoryCustomImpl implements ExpenseRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Expense> findPageByTrip(Long tripId, LocalDate cursorDate, Long cursorId,
+            ExpenseCategory category, Long paidByUserId,
+            LocalDate fromDate, LocalDate toDate,
+            BigDecimal minAmount, BigDecimal maxAmount,
+            int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT e FROM Expense e " +
+                "JOIN FETCH e.paidBy " +
+                "JOIN FETCH e.createdBy " +
+                "WHERE e.trip.id = :tripId");
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("tripId", tripId);
+
+        // 1. Keyset: row-value comparison, a single range scan on (trip_id, date, id)
+        if (cursorDate != null && cursorId != null) {
+            jpql.append(" AND (e.date, e.id) < (:cursorDate, :cursorId)");
+            params.put("cursorDate", cursorDate);
+            params.put("cursorId", cursorId);
+        }
+
+        // 2. Optional filters, only when set
+        if (category != null) {
+            jpql.append(" AND e.category = :category");
+            params.put("category", category);
+        }
+        if (paidByUserId != null) {
+            jpql.append(" AND e.paidBy.id = :paidByUserId");
+            params.put("paidByUserId", paidByUserId);
+        }
+        if (fromDate != null) {
+            jpql.append(" AND e.date >= :fromDate");
+            params.put("fromDate", fromDate);
+        }
+        if (toDate != null) {
+            jpql.append(" AND e.date <= :toDate");
+            params.put("toDate", toDate);
+        }
+        // Amount in the trip currency: unconverted expenses never match
+        if (minAmount != null) {
+            jpql.append(" AND e.normalizedAmount >= :minAmount");
+            params.put("minAmount", minAmount);
+        }
+        if (maxAmount != null) {
+            jpql.append(" AND e.normalizedAmount <= :maxAmount");
+            params.put("maxAmount", maxAmount);
+        }
+
+        jpql.append(" ORDER BY e.date DESC, e.id DESC");
+
+        TypedQuery<Expense> query = entityManager.createQuery(jpql.toString(), Expense.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
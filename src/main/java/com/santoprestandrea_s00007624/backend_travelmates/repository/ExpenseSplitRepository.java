@@ -31,9 +31,17 @@ public interface ExpenseSplitRepository extends JpaRepository<ExpenseSplit, Long
     /**
      * Calculate total amount a user owes in a trip (from splits)
      */
-    @Query("SELECT SUM(s.amount) FROM ExpenseSplit s WHERE s.sharedExpense.trip.id = :tripId AND s.user.id = :userId AND s.isPaid = false")
+    @Query("SELECT SUM(s.normalizedAmount) FROM ExpenseSplit s WHERE s.sharedExpense.trip.id = :tripId AND s.user.id = :userId AND s.isPaid = false")
     BigDecimal getTotalOwedByUser(@Param("tripId") Long tripId, @Param("userId") Long userId);
 
+    /**
+     * Total of all splits (paid and unpaid) per user in a trip
+     *
+     * Returns: [userId, SUM(amount)]
+     */
+    @Query("SELECT s.user.id, SUM(s.normalizedAmount) FROM ExpenseSplit s WHERE s.sharedExpense.trip.id = :tripId GROUP BY s.user.id")
+    List<Object[]> getTotalSplitsPerUser(@Param("tripId") Long tripId);
+
     /**
      * Find all splits for a user across all their trips
      */
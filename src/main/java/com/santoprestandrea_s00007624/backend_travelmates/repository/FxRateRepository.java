@@ -0,0 +1,15 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.FxRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * REPOSITORY FOR FX RATE
+ *
+ * Only read in bulk (findAll) to build the in-memory rate snapshot.
+ * Rows are written by FxRateService when the CSV file is imported.
+ */
+@Repository
+public interface FxRateRepository extends JpaRepository<FxRate, Long> {
+}
@@ -0,0 +1,69 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.MemberBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * REPOSITORY FOR MEMBER BALANCE (LEDGER)
+ *
+ * Lookups and atomic delta updates on the member_balances projection.
+ */
+@Repository
+public interface MemberBalanceRepository extends JpaRepository<MemberBalance, Long> {
+
+    /**
+     * Find all ledger rows of a trip
+     *
+     * Uses the unique index on (trip_id, user_id).
+     */
+    List<MemberBalance> findByTripId(Long tripId);
+
+    /**
+     * TRIP-LEVEL LEDGER LOCKS (PostgreSQL advisory locks, key = trip id)
+     *
+     * Held until the end of the transaction. Delta writers take the shared
+     * lock (their upserts commute, so they don't block each other); a
+     * rebuild takes the exclusive one, so it never runs while a delta is
+     * uncommitted and no delta lands between its read and its rewrite.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock_shared(:tripId)) l", nativeQuery = true)
+    Integer lockTripShared(@Param("tripId") Long tripId);
+
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:tripId)) l", nativeQuery = true)
+    Integer lockTripExclusive(@Param("tripId") Long tripId);
+
+    /**
+     * Delete all ledger rows of a trip (before a rebuild or a trip deletion)
+     */
+    @Modifying
+    @Query("DELETE FROM MemberBalance b WHERE b.tripId = :tripId")
+    void deleteByTripId(@Param("tripId") Long tripId);
+
+    /**
+     * ADD A DELTA TO A LEDGER ROW (creates the row if missing)
+     *
+     * Single atomic statement: concurrent writers on the same member
+     * never lose an update and never collide on the unique key.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO member_balances " +
+            "(trip_id, user_id, total_paid, total_owed, settlement_adjustment, updated_at) " +
+            "VALUES (:tripId, :userId, :paid, :owed, :adjustment, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (trip_id, user_id) DO UPDATE SET " +
+            "total_paid = member_balances.total_paid + EXCLUDED.total_paid, " +
+            "total_owed = member_balances.total_owed + EXCLUDED.total_owed, " +
+            "settlement_adjustment = member_balances.settlement_adjustment + EXCLUDED.settlement_adjustment, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    void applyDelta(@Param("tripId") Long tripId,
+            @Param("userId") Long userId,
+            @Param("paid") BigDecimal paid,
+            @Param("owed") BigDecimal owed,
+            @Param("adjustment") BigDecimal adjustment);
+}
@@ -2,6 +2,8 @@ package com.santoprestandrea_s00007624.backend_travelmates.repository;
 
 import com.santoprestandrea_s00007624.backend_travelmates.entity.PersonalExpense;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -33,4 +35,12 @@ public interface PersonalExpenseRepository extends JpaRepository<PersonalExpense
      * Find all unpaid personal expenses in a trip
      */
     List<PersonalExpense> findByTrip_IdAndIsPaidFalse(Long tripId);
+
+    /**
+     * Total of unpaid personal expenses per debtor in a trip
+     *
+     * Returns: [forUserId, SUM(amount)]
+     */
+    @Query("SELECT p.forUser.id, SUM(p.normalizedAmount) FROM PersonalExpense p WHERE p.trip.id = :tripId AND p.isPaid = false GROUP BY p.forUser.id")
+    List<Object[]> getTotalUnpaidPerDebtor(@Param("tripId") Long tripId);
 }
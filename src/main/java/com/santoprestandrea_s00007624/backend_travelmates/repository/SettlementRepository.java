@@ -55,4 +55,20 @@ public interface SettlementRepository extends JpaRepository<Settlement, Long> {
      */
     @Query("SELECT COALESCE(SUM(s.amount), 0) FROM Settlement s WHERE s.trip.id = :tripId AND s.toUser.id = :userId AND s.status = 'PENDING'")
     BigDecimal calculateTotalToReceive(@Param("tripId") Long tripId, @Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Total of COMPLETED settlements sent per user in a trip
+     *
+     * Returns: [fromUserId, SUM(amount)]
+     */
+    @Query("SELECT s.fromUser.id, SUM(s.amount) FROM Settlement s WHERE s.trip.id = :tripId AND s.status = 'COMPLETED' GROUP BY s.fromUser.id")
+    List<Object[]> getCompletedSentPerUser(@Param("tripId") Long tripId);
+
+    /**
+     * Total of COMPLETED settlements received per user in a trip
+     *
+     * Returns: [toUserId, SUM(amount)]
+     */
+    @Query("SELECT s.toUser.id, SUM(s.amount) FROM Settlement s WHERE s.trip.id = :tripId AND s.status = 'COMPLETED' GROUP BY s.toUser.id")
+    List<Object[]> getCompletedReceivedPerUser(@Param("tripId") Long tripId);
+}
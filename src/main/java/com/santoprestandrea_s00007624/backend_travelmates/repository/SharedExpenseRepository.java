@@ -1,11 +1,13 @@
 package com.santoprestandrea_s00007624.backend_travelmates.repository;
 
 import com.santoprestandrea_s00007624.backend_travelmates.entity.SharedExpense;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.ExpenseSplitRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -21,6 +23,20 @@ public interface SharedExpenseRepository extends JpaRepository<SharedExpense, Lo
      */
     List<SharedExpense> findByTrip_Id(Long tripId);
 
+    /**
+     * Split rows of several shared expenses, with their user (one query)
+     *
+     * Projection: no ExpenseSplit or User entities are loaded, only the
+     * columns of the response. Callers chunk long id lists (bind parameter limit).
+     */
+    @Query("SELECT new com.santoprestandrea_s00007624.backend_travelmates.repository.projection.ExpenseSplitRow(" +
+            "s.sharedExpense.id, s.id, s.amount, s.percentage, s.isPaid, " +
+            "u.id, u.email, u.firstName, u.lastName, u.dateOfBirth, u.phoneNumber, u.bio, " +
+            "u.profileImageUrl, u.role, u.registrationDate, u.lastLogin, u.isActive) " +
+            "FROM ExpenseSplit s JOIN s.user u " +
+            "WHERE s.sharedExpense.id IN :expenseIds ORDER BY s.id")
+    List<ExpenseSplitRow> findSplitRows(@Param("expenseIds") Collection<Long> expenseIds);
+
     /**
      * Find shared expenses where a user is involved (either paid or owes)
      */
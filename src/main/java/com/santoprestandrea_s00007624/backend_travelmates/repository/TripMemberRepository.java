@@ -2,11 +2,13 @@ package com.santoprestandrea_s00007624.backend_travelmates.repository;
 
 import com.santoprestandrea_s00007624.backend_travelmates.entity.MemberRole;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.TripMember;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripAccess;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +29,24 @@ public interface TripMemberRepository extends JpaRepository<TripMember, Long> {
      */
     List<TripMember> findByTrip_Id(Long tripId);
 
+    /**
+     * FIND ALL MEMBERS OF A TRIP WITH THEIR USER
+     *
+     * Same as findByTrip_Id, but loads the users in the same query
+     * (avoids one extra SELECT per member when reading member.getUser()).
+     */
+    @Query("SELECT tm FROM TripMember tm JOIN FETCH tm.user WHERE tm.trip.id = :tripId")
+    List<TripMember> findByTripIdWithUser(@Param("tripId") Long tripId);
+
+    /**
+     * FIND WHICH OF THE GIVEN USERS ARE MEMBERS OF A TRIP
+     *
+     * Validates a whole list of participants with one query instead of
+     * one existsBy... call per user.
+     */
+    @Query("SELECT tm.user.id FROM TripMember tm WHERE tm.trip.id = :tripId AND tm.user.id IN :userIds")
+    List<Long> findMemberUserIds(@Param("tripId") Long tripId, @Param("userIds") Collection<Long> userIds);
+
     /**
      * FIND ALL TRIPS OF A USER
      *
@@ -52,6 +72,17 @@ public interface TripMemberRepository extends JpaRepository<TripMember, Long> {
      */
     Optional<TripMember> findByTrip_IdAndUser_Id(Long tripId, Long userId);
 
+    /**
+     * ROLE AND INVITATION STATUS OF A USER IN A TRIP
+     *
+     * Only the two columns needed for permission checks (cached by
+     * TripAccessService), no entity loaded.
+     */
+    @Query("SELECT new com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripAccess(" +
+            "tm.trip.id, tm.user.id, tm.role, tm.invitationStatus) " +
+            "FROM TripMember tm WHERE tm.trip.id = :tripId AND tm.user.id = :userId")
+    Optional<TripAccess> findAccess(@Param("tripId") Long tripId, @Param("userId") Long userId);
+
     /**
      * CHECK IF USER IS MEMBER OF A TRIP
      *
@@ -3,13 +3,18 @@ package com.santoprestandrea_s00007624.backend_travelmates.repository;
 
 import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.TripStatus;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripDetailStatistics;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * REPOSITORY FOR TRIP
@@ -18,7 +23,7 @@ import java.util.List;
  * Spring Data JPA automatically generates implementations!
  */
 @Repository
-public interface TripRepository extends JpaRepository<Trip, Long> {
+public interface TripRepository extends JpaRepository<Trip, Long>, TripRepositoryCustom {
 
     // ===== AUTOMATIC QUERIES (Spring generates SQL) =====
 
@@ -65,8 +70,56 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
      */
     List<Trip> findByStartDateAfterAndEndDateBefore(LocalDate fromDate, LocalDate toDate);
 
+    /**
+     * FIND A TRIP WITH MEMBERS AND THEIR USERS
+     *
+     * Trip, members and users in one JOIN query (trip detail page), instead
+     * of one query for the collection and one per member's user.
+     */
+    @EntityGraph(attributePaths = {"members", "members.user"})
+    Optional<Trip> findWithMembersById(Long id);
+
     // ===== CUSTOM QUERIES (with @Query) =====
 
+    /**
+     * STATISTICS OF THE TRIP DETAIL PAGE
+     *
+     * Total expenses in the trip currency, number of expenses left out of
+     * it (no exchange rate yet), number of activities and number of
+     * documents: four subqueries, one statement.
+     * Empty if the trip does not exist.
+     */
+    @Query("SELECT new com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripDetailStatistics(" +
+            "(SELECT COALESCE(SUM(e.normalizedAmount), 0) FROM Expense e WHERE e.trip.id = t.id), " +
+            "(SELECT COUNT(e) FROM Expense e WHERE e.trip.id = t.id AND e.normalizedAmount IS NULL), " +
+            "(SELECT COUNT(a) FROM Activity a WHERE a.trip.id = t.id), " +
+            "(SELECT COUNT(d) FROM Document d WHERE d.trip.id = t.id)) " +
+            "FROM Trip t WHERE t.id = :tripId")
+    Optional<TripDetailStatistics> findDetailStatistics(@Param("tripId") Long tripId);
+
+    /**
+     * IDS OF ALL TRIPS
+     *
+     * Used by background jobs that process trips one at a time.
+     */
+    @Query("SELECT t.id FROM Trip t ORDER BY t.id")
+    List<Long> findAllIds();
+
+    /**
+     * IDS OF THE TRIPS WHOSE BALANCE LEDGER WAS NEVER BUILT
+     */
+    @Query("SELECT t.id FROM Trip t WHERE t.ledgerBuiltAt IS NULL ORDER BY t.id")
+    List<Long> findIdsWithoutLedger();
+
+    /**
+     * MARK THE BALANCE LEDGER OF A TRIP AS BUILT
+     *
+     * Native: ledger_built_at is not updatable through the entity.
+     */
+    @Modifying
+    @Query(value = "UPDATE trips SET ledger_built_at = :builtAt WHERE id = :tripId", nativeQuery = true)
+    void markLedgerBuilt(@Param("tripId") Long tripId, @Param("builtAt") LocalDateTime builtAt);
+
     /**
      * FIND USER'S TRIPS WITH SPECIFIC STATUS
      *
@@ -103,15 +156,4 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
      */
     @Query("SELECT COUNT(t) FROM Trip t JOIN t.members m WHERE m.user.id = :userId")
     Long countTripsByUserId(@Param("userId") Long userId);
-
-    /**
-     * SEARCH TRIPS (title OR destination)
-     *
-     * Case-insensitive search in title and destination.
-     *
-     * Example: tripRepository.searchTrips("paris");
-     * Finds: "Vacation in Paris", "Weekend Paris", etc.
-     */
-    @Query("SELECT t FROM Trip t WHERE LOWER(t.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(t.destination) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Trip> searchTrips(@Param("keyword") String keyword);
 }
@@ -0,0 +1,32 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.TripStatus;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripSummary;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * CUSTOM QUERIES FOR TRIP
+ *
+ * Queries whose WHERE clause depends on the arguments, so they cannot be
+ * a single @Query (see TripRepositoryCustomImpl).
+ */
+public interface TripRepositoryCustom {
+
+    /**
+     * KEYSET PAGE OF A USER'S TRIPS, WITH MEMBER COUNTS
+     *
+     * One query for the whole list: the summary columns plus the member
+     * count (correlated subquery), no Trip entity and no members collection
+     * loaded.
+     *
+     * Ordered by (startDate DESC, id DESC); the next page starts strictly
+     * after the last row of the previous one (cursorDate/cursorId, both
+     * null for the first page). status is optional (null = no filter).
+     *
+     * @param limit maximum number of rows, null for all of them
+     */
+    List<TripSummary> findSummariesByUserId(Long userId, TripStatus status,
+            LocalDate cursorDate, Long cursorId, Integer limit);
+}
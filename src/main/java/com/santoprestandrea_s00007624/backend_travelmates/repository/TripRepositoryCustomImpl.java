@@ -0,0 +1,57 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.TripStatus;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * IMPLEMENTATION OF TripRepositoryCustom
+ *
+ * Same approach as ExpenseRepositoryCustomImpl: only the conditions that
+ * apply are added, and the cursor is a row-value comparison.
+ */
+public class TripRepositoryCustomImpl implements TripRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TripSummary> findSummariesByUserId(Long userId, TripStatus status,
+            LocalDate cursorDate, Long cursorId, Integer limit) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripSummary(" +
+                "t.id, t.title, t.description, t.destination, t.startDate, t.endDate, t.budget, t.currency, " +
+                "t.coverImageUrl, t.status, t.createdAt, t.updatedAt, " +
+                "(SELECT COUNT(c) FROM TripMember c WHERE c.trip = t)) " +
+                "FROM Trip t JOIN t.members m " +
+                "WHERE m.user.id = :userId");
+
+        if (status != null) {
+            jpql.append(" AND t.status = :status");
+        }
+        boolean hasCursor = cursorDate != null && cursorId != null;
+        if (hasCursor) {
+            jpql.append(" AND (t.startDate, t.id) < (:cursorDate, :cursorId)");
+        }
+        jpql.append(" ORDER BY t.startDate DESC, t.id DESC");
+
+        TypedQuery<TripSummary> query = entityManager.createQuery(jpql.toString(), TripSummary.class)
+                .setParameter("userId", userId);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (hasCursor) {
+            query.setParameter("cursorDate", cursorDate)
+                    .setParameter("cursorId", cursorId);
+        }
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        return query.getResultList();
+    }
+}
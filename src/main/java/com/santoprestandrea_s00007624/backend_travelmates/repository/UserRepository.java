@@ -3,6 +3,9 @@ package com.santoprestandrea_s00007624.backend_travelmates.repository;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -27,4 +30,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Find users by role
     // Spring generates: SELECT * FROM users WHERE role = ?
     List<User> findByRole(UserRole role);
+
+    // Ids of disabled accounts (seed of TokenRevocationList)
+    @Query("SELECT u.id FROM User u WHERE u.isActive = false")
+    List<Long> findInactiveUserIds();
+
+    // Users whose tokens have been revoked at least once
+    // Returns: [userId, tokenVersion]
+    @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersion > 0")
+    List<Object[]> findTokenVersions();
+
+    // Replace a password hash, touching only that column and only if it has
+    // not been changed in the meantime (returns 0 in that case)
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :userId AND u.password = :oldHash")
+    int updatePasswordHash(@Param("userId") Long userId, @Param("oldHash") String oldHash,
+            @Param("newHash") String newHash);
 }
@@ -0,0 +1,35 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository.projection;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.UserRole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * PROJECTION: EXPENSE SPLIT ROW
+ *
+ * Read-only view of a split, used to build ExpenseSplitResponse without
+ * loading ExpenseSplit entities or initializing SharedExpense.splits.
+ * Only the user columns exposed by UserResponse are read (no password
+ * hash, no User entity in the persistence context).
+ */
+public record ExpenseSplitRow(
+        Long sharedExpenseId,
+        Long splitId,
+        BigDecimal amount,
+        BigDecimal percentage,
+        Boolean isPaid,
+        Long userId,
+        String userEmail,
+        String userFirstName,
+        String userLastName,
+        LocalDate userDateOfBirth,
+        String userPhoneNumber,
+        String userBio,
+        String userProfileImageUrl,
+        UserRole userRole,
+        LocalDateTime userRegistrationDate,
+        LocalDateTime userLastLogin,
+        Boolean userIsActive) {
+}
@@ -0,0 +1,15 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * PROJECTION: EXPENSE TOTALS OF A TRIP
+ *
+ * Sum of the expenses converted into the trip currency (null if there are
+ * none), and how many expenses were left out because no exchange rate was
+ * available for them.
+ */
+public record ExpenseTotals(
+        BigDecimal total,
+        Long unconvertedExpenses) {
+}
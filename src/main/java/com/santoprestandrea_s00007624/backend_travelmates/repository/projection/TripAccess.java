@@ -0,0 +1,22 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository.projection;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.MemberRole;
+
+/**
+ * TRIP ACCESS
+ *
+ * What a user may do in a trip: role and invitation status of their
+ * TripMember row, without loading the entity (or the trip and the user).
+ *
+ * Cached by TripAccessService.
+ */
+public record TripAccess(Long tripId, Long userId, MemberRole role, String invitationStatus) {
+
+    public boolean isOrganizer() {
+        return role == MemberRole.ORGANIZER;
+    }
+
+    public boolean hasAcceptedInvitation() {
+        return "ACCEPTED".equals(invitationStatus);
+    }
+}
@@ -0,0 +1,16 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * PROJECTION: TRIP DETAIL STATISTICS
+ *
+ * The aggregates shown in the trip detail page, computed by
+ * TripRepository.findDetailStatistics in a single statement.
+ */
+public record TripDetailStatistics(
+        BigDecimal totalExpenses,
+        Long unconvertedExpenses,
+        Long numberOfActivities,
+        Long numberOfDocuments) {
+}
@@ -0,0 +1,30 @@
+package com.santoprestandrea_s00007624.backend_travelmates.repository.projection;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.TripStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * PROJECTION: TRIP SUMMARY
+ *
+ * Columns of a trip list row plus the member count computed in SQL, used to
+ * build TripResponse without loading Trip entities or initializing
+ * Trip.members.
+ */
+public record TripSummary(
+        Long id,
+        String title,
+        String description,
+        String destination,
+        LocalDate startDate,
+        LocalDate endDate,
+        BigDecimal budget,
+        String currency,
+        String coverImageUrl,
+        TripStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long memberCount) {
+}
@@ -0,0 +1,19 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the Long parameter holding the ID of the user performing the action
+ * in a @RequireTripRole method.
+ *
+ * Not needed when the method takes the current User as a parameter.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ActingUserId {
+}
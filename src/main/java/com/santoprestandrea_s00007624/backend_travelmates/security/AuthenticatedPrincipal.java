@@ -0,0 +1,70 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.UserRole;
+
+/**
+ * AUTHENTICATED PRINCIPAL
+ *
+ * Immutable snapshot of the fields of a User needed to authenticate a
+ * request and to render "who did it" in responses (createdBy, paidBy...).
+ * This is what PrincipalCache stores - never the password or the full
+ * profile.
+ *
+ * Controllers and services still receive a User as principal: toUser()
+ * builds a new, detached User for each request, so a caller that modifies
+ * its principal cannot change the cached snapshot.
+ */
+public record AuthenticatedPrincipal(
+        Long id,
+        String email,
+        String firstName,
+        String lastName,
+        String profileImageUrl,
+        UserRole role,
+        boolean isActive) {
+
+    public static AuthenticatedPrincipal from(User user) {
+        return new AuthenticatedPrincipal(
+                user.getId(),
+                user.getEmail(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getProfileImageUrl(),
+                user.getRole(),
+                Boolean.TRUE.equals(user.getIsActive()));
+    }
+
+    /**
+     * Principal rebuilt from the claims of a self-contained token
+     * (stateless mode). The profile image is not in the token.
+     */
+    public static AuthenticatedPrincipal from(JwtClaims claims) {
+        return new AuthenticatedPrincipal(
+                claims.userId(),
+                claims.email(),
+                claims.firstName(),
+                claims.lastName(),
+                null,
+                UserRole.valueOf(claims.role()),
+                Boolean.TRUE.equals(claims.active()));
+    }
+
+    /**
+     * Detached User with only the snapshot fields set, for identity checks
+     * and the mappers. Not an entity: to set a relation use
+     * userRepository.getReferenceById(user.getId()), and load the full
+     * profile from UserService.
+     */
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .email(email)
+                .firstName(firstName)
+                .lastName(lastName)
+                .profileImageUrl(profileImageUrl)
+                .role(role)
+                .isActive(isActive)
+                .build();
+    }
+}
@@ -0,0 +1,167 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IN-MEMORY LOGIN RATE LIMITER (TOKEN BUCKETS)
+ *
+ * One bucket per client IP and one per email:
+ * - a bucket holds up to "capacity" attempts
+ * - it refills continuously at "refill-per-minute"
+ * - every login attempt takes one token; no token → 429
+ *
+ * The refill is lazy (computed from the elapsed time when the bucket is
+ * used), so there is no timer per bucket and an existing bucket is used
+ * without allocating anything. ConcurrentHashMap spreads the keys over
+ * independently locked bins, and each bucket is locked only for its own
+ * few arithmetic operations.
+ *
+ * Buckets idle long enough to be full again carry no information and are
+ * evicted periodically.
+ *
+ * Registered by LoginRateLimiterConfig only when no other LoginRateLimiter
+ * bean exists.
+ */
+public class InMemoryLoginRateLimiter implements LoginRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryLoginRateLimiter.class);
+
+    @Value("${login.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${login.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${login.rate-limit.ip.refill-per-minute:10}")
+    private int ipRefillPerMinute;
+
+    @Value("${login.rate-limit.email.capacity:5}")
+    private int emailCapacity;
+
+    @Value("${login.rate-limit.email.refill-per-minute:2}")
+    private int emailRefillPerMinute;
+
+    private final ConcurrentHashMap<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenBucket> emailBuckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String clientIp, String email) {
+        return tryAcquire(clientIp, email, System.nanoTime());
+    }
+
+    /**
+     * tryAcquire at the given System.nanoTime() instant (tests move time forward)
+     */
+    long tryAcquire(String clientIp, String email, long now) {
+        if (!enabled) {
+            return 0;
+        }
+
+        // 1. IP budget (blocks a single source trying many accounts)
+        TokenBucket ipBucket = ipBuckets.computeIfAbsent(clientIp,
+                key -> new TokenBucket(ipCapacity, ipRefillPerMinute, now));
+        long wait = ipBucket.tryConsume(now);
+        if (wait > 0) {
+            return toSeconds(wait);
+        }
+
+        // 2. Email budget (blocks many sources trying one account)
+        TokenBucket emailBucket = emailBuckets.computeIfAbsent(normalize(email),
+                key -> new TokenBucket(emailCapacity, emailRefillPerMinute, now));
+        wait = emailBucket.tryConsume(now);
+        return wait > 0 ? toSeconds(wait) : 0;
+    }
+
+    @Override
+    public void onSuccess(String clientIp, String email) {
+        emailBuckets.remove(normalize(email));
+    }
+
+    /**
+     * Drops the buckets that have refilled completely (= idle)
+     */
+    @Scheduled(fixedDelayString = "${login.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        evictIdleBuckets(System.nanoTime());
+    }
+
+    void evictIdleBuckets(long now) {
+        int before = ipBuckets.size() + emailBuckets.size();
+
+        ipBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        emailBuckets.values().removeIf(bucket -> bucket.isFull(now));
+
+        int evicted = before - ipBuckets.size() - emailBuckets.size();
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle login rate-limit buckets", evicted);
+        }
+    }
+
+    int bucketCount() {
+        return ipBuckets.size() + emailBuckets.size();
+    }
+
+    // ===== HELPER METHODS =====
+
+    private String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Rounded up: waiting exactly that long is enough
+    private long toSeconds(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    /**
+     * Token bucket with lazy refill. Tokens are counted in nanoseconds of
+     * refill time to keep everything in long arithmetic.
+     */
+    private static final class TokenBucket {
+
+        private final long nanosPerToken;
+        private final long capacityNanos;
+
+        // Time "credit" available: capacityNanos = full bucket
+        private long availableNanos;
+        private long lastRefill;
+
+        TokenBucket(int capacity, int refillPerMinute, long now) {
+            this.nanosPerToken = TimeUnit.MINUTES.toNanos(1) / Math.max(1, refillPerMinute);
+            this.capacityNanos = nanosPerToken * Math.max(1, capacity);
+            this.availableNanos = capacityNanos;
+            this.lastRefill = now;
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+         */
+        synchronized long tryConsume(long now) {
+            refill(now);
+            if (availableNanos >= nanosPerToken) {
+                availableNanos -= nanosPerToken;
+                return 0;
+            }
+            return nanosPerToken - availableNanos;
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return availableNanos >= capacityNanos;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastRefill;
+            if (elapsed > 0) {
+                availableNanos = Math.min(capacityNanos, availableNanos + elapsed);
+                lastRefill = now;
+            }
+        }
+    }
+}
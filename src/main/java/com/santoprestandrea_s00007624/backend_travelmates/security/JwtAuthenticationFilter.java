@@ -2,7 +2,6 @@ package com.santoprestandrea_s00007624.backend_travelmates.security;
 
 import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
 import com.santoprestandrea_s00007624.backend_travelmates.service.JwtService;
-import com.santoprestandrea_s00007624.backend_travelmates.service.UserService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,16 +9,17 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -30,9 +30,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtService jwtService;
 
     @Autowired
-    private UserService userService;
+    private PrincipalCache principalCache;
 
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    // Build the Authentication from the token claims only (no user lookup)
+    @Value("${security.stateless-auth.enabled:false}")
+    private boolean statelessAuth;
 
     /**
      * THIS METHOD IS EXECUTED FOR EVERY HTTP REQUEST
@@ -41,7 +46,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * 1. Extracts the token from the "Authorization" header
      * 2. If there's no token → let it pass (public endpoints)
      * 3. If there's a token → validate it
-     * 4. If valid → load the user and authenticate them
+     * 4. If valid → load the user (cached) and authenticate them
      * 5. If invalid → block (401 Unauthorized)
      */
     @Override
@@ -60,8 +65,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 return;
             }
 
-            // STEP 3: Validate the token
-            if (!jwtService.validateToken(token)) {
+            // STEP 3: Validate the token (parsed only once per request)
+            Optional<JwtClaims> parsedClaims = jwtService.tryParse(token);
+            if (parsedClaims.isEmpty()) {
                 logger.warn("Invalid or expired JWT token");
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.setContentType("application/json");
@@ -69,12 +75,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 return;
             }
 
-            // STEP 4: Extract the email from the token
-            String email = jwtService.getEmailFromToken(token);
+            // STEP 4: Share the claims with the rest of the request
+            JwtClaims claims = parsedClaims.get();
+            request.setAttribute(JwtClaims.REQUEST_ATTRIBUTE, claims);
+            String email = claims.email();
+
+            if (tokenRevocationList.isRevoked(claims)) {
+                logger.warn("Revoked JWT token used by: {}", email);
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"error\": \"Token revoked\"}");
+                return;
+            }
+
+            // STEP 5: Load the user
+            // - stateless mode: straight from the claims, no lookup at all
+            // - otherwise (or for older tokens): principal cache, the database only on a miss
+            AuthenticatedPrincipal principal = statelessAuth && claims.isSelfContained()
+                    ? AuthenticatedPrincipal.from(claims)
+                    : principalCache.get(claims.userId())
+                            .orElseThrow(() -> new RuntimeException("User not found"));
 
-            // STEP 5: Load the user from the database
-            User user = userService.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            if (!principal.isActive()) {
+                logger.warn("Token used by disabled account: {}", email);
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"error\": \"Account disabled\"}");
+                return;
+            }
+
+            User user = principal.toUser();
 
             // STEP 6: Create the "Authentication" object for Spring Security
             // This tells Spring: "This user is authenticated and has this role"
@@ -122,14 +152,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * PUBLIC ENDPOINTS THAT DON'T REQUIRE AUTHENTICATION
      *
      * If the request goes to one of these endpoints, the filter is NOT executed.
+     * The list is shared with SecurityConfig (see PublicPaths).
      */
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
-        String path = request.getRequestURI();
-
-        return pathMatcher.match("/api/auth/**", path) || // Login and registration
-                pathMatcher.match("/api/public/**", path) || // Public endpoints
-                pathMatcher.match("/error", path) || // Error page
-                pathMatcher.match("/h2-console/**", path); // H2 Console (dev only)
+        return PublicPaths.matches(request.getRequestURI());
     }
 }
@@ -0,0 +1,40 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import java.time.Instant;
+
+/**
+ * VERIFIED JWT CLAIMS
+ *
+ * Immutable result of JwtService.parseAndVerify: the token has already been
+ * checked (signature + expiration) when an instance exists.
+ *
+ * JwtAuthenticationFilter stores it as a request attribute
+ * (REQUEST_ATTRIBUTE), so code running later in the same request can read
+ * the claims without parsing the token again:
+ *
+ * JwtClaims claims = (JwtClaims) request.getAttribute(JwtClaims.REQUEST_ATTRIBUTE);
+ *
+ * lastName, tokenVersion and active are null in tokens issued before they
+ * were added: such tokens cannot be used in stateless mode.
+ */
+public record JwtClaims(
+        String email,
+        Long userId,
+        String firstName,
+        String lastName,
+        String role,
+        Integer tokenVersion,
+        Boolean active,
+        Instant issuedAt,
+        Instant expiresAt) {
+
+    public static final String REQUEST_ATTRIBUTE = JwtClaims.class.getName();
+
+    /**
+     * True if the token carries everything needed to authenticate without
+     * loading the user (stateless mode)
+     */
+    public boolean isSelfContained() {
+        return userId != null && role != null && tokenVersion != null && active != null;
+    }
+}
@@ -0,0 +1,167 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JWT KEY STORE (ES256)
+ *
+ * Loads the asymmetric keys used to sign and verify JWTs from local PEM
+ * files, once at startup:
+ * - jwt.signing.private-key: PKCS#8 EC private key (P-256) used to sign new tokens
+ * - jwt.signing.public-keys-dir: one X.509 public key per file, named "<kid>.pem"
+ * - jwt.signing.active-kid: kid of the signing key (its public key must be in the directory)
+ *
+ * KEY ROTATION:
+ * 1. Add the new public key to the directory and restart → tokens signed with
+ * it are accepted everywhere
+ * 2. Switch active-kid and private-key to the new key
+ * 3. Remove the old public key once the old tokens have expired
+ *
+ * Parsed keys are kept by kid, so verification never decodes key material.
+ * Only used when jwt.signing.algorithm=ES256.
+ */
+@Component
+public class JwtKeyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyStore.class);
+
+    @Value("${jwt.signing.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${jwt.signing.active-kid:}")
+    private String activeKid;
+
+    @Value("${jwt.signing.private-key:}")
+    private String privateKeyFile;
+
+    @Value("${jwt.signing.public-keys-dir:}")
+    private String publicKeysDir;
+
+    private PrivateKey signingKey;
+    private Map<String, PublicKey> verificationKeys = Map.of();
+    private Map<String, Object> jwks = Map.of("keys", List.of());
+
+    @PostConstruct
+    public void init() throws IOException, GeneralSecurityException {
+        if (!isAsymmetric()) {
+            return;
+        }
+        if (activeKid.isBlank() || privateKeyFile.isBlank() || publicKeysDir.isBlank()) {
+            throw new IllegalStateException(
+                    "ES256 requires jwt.signing.active-kid, jwt.signing.private-key and jwt.signing.public-keys-dir");
+        }
+
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+
+        // 1. Signing key
+        signingKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(readPem(Path.of(privateKeyFile))));
+
+        // 2. Verification keys, one per file: <kid>.pem
+        Map<String, PublicKey> keys = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Path.of(publicKeysDir), "*.pem")) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String kid = fileName.substring(0, fileName.length() - ".pem".length());
+                keys.put(kid, keyFactory.generatePublic(new X509EncodedKeySpec(readPem(file))));
+            }
+        }
+        if (!keys.containsKey(activeKid)) {
+            throw new IllegalStateException("No public key found for the active kid: " + activeKid);
+        }
+        verificationKeys = Map.copyOf(keys);
+
+        // 3. JWKS document, built once
+        List<Map<String, Object>> jwkList = new ArrayList<>();
+        keys.forEach((kid, key) -> jwkList.add(toJwk(kid, (ECPublicKey) key)));
+        jwks = Map.of("keys", List.copyOf(jwkList));
+
+        logger.info("Loaded {} JWT verification keys, signing with kid {}", keys.size(), activeKid);
+    }
+
+    public boolean isAsymmetric() {
+        return "ES256".equalsIgnoreCase(algorithm);
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    public PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Public key for a kid, or null if unknown
+     */
+    public PublicKey getVerificationKey(String kid) {
+        return kid != null ? verificationKeys.get(kid) : null;
+    }
+
+    /**
+     * JWKS document (RFC 7517) with all the verification keys
+     */
+    public Map<String, Object> getJwks() {
+        return jwks;
+    }
+
+    // ===== HELPER METHODS =====
+
+    private byte[] readPem(Path file) throws IOException {
+        String base64 = Files.readAllLines(file).stream()
+                .filter(line -> !line.startsWith("-----"))
+                .map(String::trim)
+                .reduce("", String::concat);
+        return Base64.getDecoder().decode(base64);
+    }
+
+    private Map<String, Object> toJwk(String kid, ECPublicKey key) {
+        if (key.getParams().getCurve().getField().getFieldSize() != 256) {
+            throw new IllegalStateException("Key " + kid + " is not a P-256 key");
+        }
+
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("x", base64Url(key.getW().getAffineX()));
+        jwk.put("y", base64Url(key.getW().getAffineY()));
+        return jwk;
+    }
+
+    /**
+     * Coordinate as a 32-byte big-endian value (BigInteger may add a sign
+     * byte or drop leading zeros)
+     */
+    private String base64Url(BigInteger coordinate) {
+        byte[] raw = coordinate.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
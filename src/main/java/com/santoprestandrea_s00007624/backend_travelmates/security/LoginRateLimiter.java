@@ -0,0 +1,27 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+/**
+ * LOGIN RATE LIMITER
+ *
+ * Throttles login attempts per client IP and per email before any
+ * database lookup or password hash is done.
+ *
+ * The default implementation (InMemoryLoginRateLimiter) keeps the buckets
+ * in this instance's memory; an implementation backed by a shared store
+ * (e.g. Redis) can replace it by declaring another LoginRateLimiter bean.
+ */
+public interface LoginRateLimiter {
+
+    /**
+     * Takes one attempt from the IP and the email budgets.
+     *
+     * @return 0 if the attempt is allowed, otherwise the seconds to wait
+     */
+    long tryAcquire(String clientIp, String email);
+
+    /**
+     * Called after a successful login: the email budget is restored, so
+     * a user who mistyped the password a few times is not locked out.
+     */
+    void onSuccess(String clientIp, String email);
+}
@@ -0,0 +1,170 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import com.santoprestandrea_s00007624.backend_travelmates.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PRINCIPAL CACHE
+ *
+ * Bounded, TTL-based cache of AuthenticatedPrincipal keyed by user id (the
+ * "userId" claim of the JWT). JwtAuthenticationFilter reads from here
+ * instead of querying the users table on every authenticated request.
+ *
+ * CONSISTENCY:
+ * - UserService invalidates the entry whenever it changes a user
+ * (profile, activation, deletion), so changes are visible on the next request
+ * - the TTL bounds staleness for anything that bypasses UserService
+ *
+ * When the cache is full, expired entries are dropped first, then a batch
+ * of arbitrary entries (they are just reloaded on the next request).
+ */
+@Component
+public class PrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${security.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // ===== METRICS =====
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record Entry(AuthenticatedPrincipal principal, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    /**
+     * Cache statistics (cumulative since startup)
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    // ===== READ =====
+
+    /**
+     * Returns the principal of the user, loading it from the database on a
+     * miss or after the TTL. Empty if the user does not exist (anymore).
+     */
+    public Optional<AuthenticatedPrincipal> get(Long userId) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+
+        if (entry != null && !entry.isExpired(now)) {
+            hits.increment();
+            return Optional.of(entry.principal());
+        }
+
+        misses.increment();
+        Optional<AuthenticatedPrincipal> loaded = userRepository.findById(userId)
+                .map(AuthenticatedPrincipal::from);
+
+        if (loaded.isPresent()) {
+            ensureCapacity(now);
+            entries.put(userId, new Entry(loaded.get(), now + ttlSeconds * 1_000_000_000L));
+        } else {
+            entries.remove(userId);
+        }
+        return loaded;
+    }
+
+    // ===== INVALIDATION =====
+
+    /**
+     * Drops the cached principal of a user.
+     *
+     * Inside a transaction the entry is dropped again after commit: a
+     * request that reloads the user before the commit would otherwise cache
+     * the old row for a full TTL.
+     */
+    public void invalidate(Long userId) {
+        entries.remove(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(userId);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    // ===== METRICS =====
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    @Scheduled(fixedDelayString = "${security.principal-cache.stats-log-interval-ms:300000}")
+    public void logStats() {
+        Stats stats = stats();
+        if (stats.hits() + stats.misses() > 0) {
+            logger.info("Principal cache: size={}, hits={}, misses={}, evictions={}, hitRate={}",
+                    stats.size(), stats.hits(), stats.misses(), stats.evictions(),
+                    String.format("%.3f", stats.hitRate()));
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    private void ensureCapacity(long now) {
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        // 1. Drop expired entries
+        entries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().isExpired(now);
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        // 2. Still full: drop ~10% of the entries
+        int toEvict = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<Long> it = entries.keySet().iterator();
+        while (toEvict > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+            toEvict--;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PUBLIC PATHS
+ *
+ * The endpoints that don't require authentication, in one place:
+ * - SecurityConfig permits them (permitAll)
+ * - JwtAuthenticationFilter skips them (shouldNotFilter)
+ *
+ * The patterns are compiled once into plain prefixes / exact paths, so the
+ * check done by the filter on every request is just a few startsWith and
+ * equals (no parsing, no allocation).
+ *
+ * Only two pattern forms are supported:
+ * - "/exact/path"
+ * - "/prefix/**" → "/prefix" and everything below it
+ */
+public final class PublicPaths {
+
+    public static final String[] PATTERNS = {
+            "/api/auth/**", // Login and registration
+            "/api/public/**", // Public endpoints
+            "/error", // Error page
+            "/h2-console/**", // H2 Console (dev only)
+            "/actuator/health/**" // Health probes only; the other actuator endpoints need an ADMIN token
+    };
+
+    private static final String[] PREFIXES;
+    private static final String[] EXACT_PATHS;
+
+    static {
+        List<String> prefixes = new ArrayList<>();
+        List<String> exactPaths = new ArrayList<>();
+
+        for (String pattern : PATTERNS) {
+            if (pattern.endsWith("/**")) {
+                prefixes.add(pattern.substring(0, pattern.length() - 3));
+            } else {
+                exactPaths.add(pattern);
+            }
+        }
+        for (String path : prefixes) {
+            checkLiteral(path);
+        }
+        for (String path : exactPaths) {
+            checkLiteral(path);
+        }
+
+        PREFIXES = prefixes.toArray(new String[0]);
+        EXACT_PATHS = exactPaths.toArray(new String[0]);
+    }
+
+    private PublicPaths() {
+    }
+
+    /**
+     * True if the request path is public
+     */
+    public static boolean matches(String path) {
+        for (String exact : EXACT_PATHS) {
+            if (exact.equals(path)) {
+                return true;
+            }
+        }
+        for (String prefix : PREFIXES) {
+            // "/api/auth" matches "/api/auth" and "/api/auth/...", not "/api/authors"
+            if (path.startsWith(prefix)
+                    && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void checkLiteral(String path) {
+        if (path.indexOf('*') >= 0 || path.indexOf('?') >= 0 || path.indexOf('{') >= 0) {
+            throw new IllegalStateException("Unsupported public path pattern: " + path);
+        }
+    }
+}
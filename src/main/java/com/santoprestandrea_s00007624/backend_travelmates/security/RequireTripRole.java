@@ -0,0 +1,38 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * REQUIRE A ROLE IN A TRIP
+ *
+ * Checked by TripPermissionAspect before the method runs (and before its
+ * transaction is opened), so nothing is loaded for a denied request.
+ *
+ * The trip is the parameter annotated with @TripId. The user is the User
+ * parameter, or the Long parameter annotated with @ActingUserId.
+ *
+ * EXAMPLE:
+ * @RequireTripRole(value = TripPermission.ORGANIZER, message = "Only organizers can create activities")
+ * public ActivityResponse createActivity(@TripId Long tripId, CreateActivityRequest request, User currentUser)
+ *
+ * ERRORS:
+ * - 404 if the trip does not exist
+ * - 403 "You are not a member of this trip" if the user is not a member
+ * - 403 with message() if the user is a member without the required role
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequireTripRole {
+
+    TripPermission value() default TripPermission.MEMBER;
+
+    /**
+     * Error message when the user is a member but not an organizer
+     */
+    String message() default "Only organizers can perform this action";
+}
@@ -0,0 +1,100 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import com.santoprestandrea_s00007624.backend_travelmates.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TOKEN REVOCATION LIST
+ *
+ * Keeps revoked tokens out without querying the database per request.
+ * A token is rejected if:
+ * - its user is disabled (or deleted)
+ * - its "ver" claim is lower than the user's current token version
+ *
+ * Only users with revoked tokens are kept in memory: the list is seeded at
+ * startup from the users table and then fed by UserService (deactivate,
+ * delete, token version bump).
+ *
+ * NOTE: the list is local to this instance. With several instances, a
+ * change made on one of them reaches the others only on restart, so the
+ * stateless mode is meant for single-instance deployments (or short
+ * token lifetimes).
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Set<Long> disabledUsers = ConcurrentHashMap.newKeySet();
+
+    // userId → current token version (only users whose version is > 0)
+    private final Map<Long, Integer> tokenVersions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        disabledUsers.addAll(userRepository.findInactiveUserIds());
+        for (Object[] row : userRepository.findTokenVersions()) {
+            tokenVersions.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        logger.info("Token revocation list loaded: {} disabled users, {} revoked token versions",
+                disabledUsers.size(), tokenVersions.size());
+    }
+
+    // ===== CHECK =====
+
+    public boolean isRevoked(JwtClaims claims) {
+        Long userId = claims.userId();
+        if (userId == null) {
+            return false;
+        }
+        if (disabledUsers.contains(userId)) {
+            return true;
+        }
+
+        Integer currentVersion = tokenVersions.get(userId);
+        int tokenVersion = claims.tokenVersion() != null ? claims.tokenVersion() : 0;
+        return currentVersion != null && tokenVersion < currentVersion;
+    }
+
+    // ===== UPDATES (applied after commit when called in a transaction) =====
+
+    public void userDisabled(Long userId) {
+        afterCommit(() -> disabledUsers.add(userId));
+    }
+
+    public void userEnabled(Long userId) {
+        afterCommit(() -> disabledUsers.remove(userId));
+    }
+
+    public void tokenVersionChanged(Long userId, int newVersion) {
+        afterCommit(() -> tokenVersions.merge(userId, newVersion, Math::max));
+    }
+
+    // ===== HELPER METHODS =====
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+/**
+ * LEVEL REQUIRED BY @RequireTripRole
+ *
+ * - MEMBER: any member of the trip, whatever their MemberRole
+ * - ORGANIZER: members with MemberRole.ORGANIZER
+ *
+ * "Author or organizer" rules need the entity (note, document, expense...)
+ * and stay in the service method: annotate it with MEMBER and compare the
+ * author there, TripAccessService.isOrganizer is free after the check.
+ */
+public enum TripPermission {
+    MEMBER,
+    ORGANIZER
+}
@@ -0,0 +1,130 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import com.santoprestandrea_s00007624.backend_travelmates.exception.ResourceNotFoundException;
+import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.TripRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripAccess;
+import com.santoprestandrea_s00007624.backend_travelmates.service.TripAccessService;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ASPECT FOR @RequireTripRole
+ *
+ * 1. Finds the trip ID and the user ID in the method arguments (parameter
+ * positions are resolved once per method and cached)
+ * 2. Reads the role with TripAccessService: a scalar projection query, or
+ * nothing at all when the permission cache is warm
+ * 3. Throws before the method body runs
+ *
+ * Runs before the transaction and cache interceptors (right after
+ * ServiceMetricsAspect), so a denied call opens no transaction and loads
+ * no entity.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class TripPermissionAspect {
+
+    @Autowired
+    private TripAccessService tripAccessService;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    private final Map<Method, Binding> bindings = new ConcurrentHashMap<>();
+
+    /**
+     * Argument positions of the trip ID and of the user (or user ID)
+     */
+    private record Binding(int tripIdIndex, int userIndex) {
+    }
+
+    @Before("@annotation(requireTripRole)")
+    public void checkTripRole(JoinPoint joinPoint, RequireTripRole requireTripRole) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Binding binding = bindings.computeIfAbsent(method, TripPermissionAspect::bind);
+        Object[] args = joinPoint.getArgs();
+
+        Long tripId = (Long) args[binding.tripIdIndex()];
+        Long userId = userId(args[binding.userIndex()]);
+        if (tripId == null || userId == null) {
+            throw new IllegalArgumentException("Trip ID and user are required");
+        }
+
+        Optional<TripAccess> access = tripAccessService.find(tripId, userId);
+
+        if (access.isEmpty()) {
+            // Only on the denial path: tell a missing trip from a non-member
+            if (!tripRepository.existsById(tripId)) {
+                throw new ResourceNotFoundException("Trip not found with id: " + tripId);
+            }
+            throw new UnauthorizedException("You are not a member of this trip");
+        }
+
+        // Pending and declined invitees have no access
+        if (!access.get().hasAcceptedInvitation()) {
+            throw new UnauthorizedException("You have not accepted the invitation to this trip");
+        }
+
+        if (requireTripRole.value() == TripPermission.ORGANIZER && !access.get().isOrganizer()) {
+            throw new UnauthorizedException(requireTripRole.message());
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    private static Long userId(Object arg) {
+        if (arg instanceof User user) {
+            return user.getId();
+        }
+        return (Long) arg;
+    }
+
+    /**
+     * Finds the @TripId parameter and the acting user (@ActingUserId, or
+     * else the first User parameter)
+     */
+    private static Binding bind(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        Annotation[][] annotations = method.getParameterAnnotations();
+
+        int tripIdIndex = -1;
+        int actingUserIdIndex = -1;
+        int userIndex = -1;
+        for (int i = 0; i < types.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof TripId && types[i] == Long.class) {
+                    tripIdIndex = i;
+                } else if (annotation instanceof ActingUserId && types[i] == Long.class) {
+                    actingUserIdIndex = i;
+                }
+            }
+            if (userIndex < 0 && types[i] == User.class) {
+                userIndex = i;
+            }
+        }
+
+        if (actingUserIdIndex >= 0) {
+            userIndex = actingUserIdIndex;
+        }
+        if (tripIdIndex < 0 || userIndex < 0) {
+            throw new IllegalStateException("@RequireTripRole on " + method
+                    + " needs a @TripId Long parameter and a User or @ActingUserId Long parameter");
+        }
+        return new Binding(tripIdIndex, userIndex);
+    }
+}
@@ -3,13 +3,18 @@ package com.santoprestandrea_s00007624.backend_travelmates.service;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateActivityRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.UpdateActivityRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.ActivityResponse;
-import com.santoprestandrea_s00007624.backend_travelmates.entity.*;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Activity;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ActivityCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
 import com.santoprestandrea_s00007624.backend_travelmates.exception.ResourceNotFoundException;
 import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
 import com.santoprestandrea_s00007624.backend_travelmates.mapper.ActivityMapper;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.ActivityRepository;
-import com.santoprestandrea_s00007624.backend_travelmates.repository.TripMemberRepository;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.TripRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.UserRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.security.RequireTripRole;
+import com.santoprestandrea_s00007624.backend_travelmates.security.TripId;
+import com.santoprestandrea_s00007624.backend_travelmates.security.TripPermission;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,7 +39,7 @@ public class ActivityService {
     private TripRepository tripRepository;
 
     @Autowired
-    private TripMemberRepository tripMemberRepository;
+    private UserRepository userRepository;
 
     @Autowired
     private ActivityMapper activityMapper;
@@ -47,25 +52,15 @@ public class ActivityService {
      * Create a new activity for a trip
      * Only ORGANIZER can create activities
      */
-    public ActivityResponse createActivity(Long tripId, CreateActivityRequest request, User currentUser) {
-        // 1. Check if trip exists
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new ResourceNotFoundException("Trip not found with id: " + tripId));
-
-        // 2. Check if user is a member with ORGANIZER role
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        if (membership.getRole() != MemberRole.ORGANIZER) {
-            throw new UnauthorizedException("Only organizers can create activities");
-        }
-
-        // 3. Create activity
+    @RequireTripRole(value = TripPermission.ORGANIZER, message = "Only organizers can create activities")
+    public ActivityResponse createActivity(@TripId Long tripId, CreateActivityRequest request, User currentUser) {
+        // 1. Create activity (trip and role already checked: a reference is enough)
         Activity activity = activityMapper.toEntity(request);
-        activity.setTrip(trip);
-        activity.setCreatedBy(currentUser);
+        activity.setTrip(tripRepository.getReferenceById(tripId));
+        // Creator as a managed reference: currentUser is the cached principal, not an entity
+        activity.setCreatedBy(userRepository.getReferenceById(currentUser.getId()));
 
-        // 4. Save and return
+        // 2. Save and return
         Activity savedActivity = activityRepository.save(activity);
         return activityMapper.toResponse(savedActivity);
     }
@@ -78,7 +73,8 @@ public class ActivityService {
      * Update an existing activity
      * Only ORGANIZER can update activities
      */
-    public ActivityResponse updateActivity(Long tripId, Long activityId, UpdateActivityRequest request,
+    @RequireTripRole(value = TripPermission.ORGANIZER, message = "Only organizers can update activities")
+    public ActivityResponse updateActivity(@TripId Long tripId, Long activityId, UpdateActivityRequest request,
             User currentUser) {
         // 1. Check if activity exists and belongs to the trip
         Activity activity = activityRepository.findById(activityId)
@@ -88,18 +84,10 @@ public class ActivityService {
             throw new UnauthorizedException("Activity does not belong to this trip");
         }
 
-        // 2. Check if user is ORGANIZER
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        if (membership.getRole() != MemberRole.ORGANIZER) {
-            throw new UnauthorizedException("Only organizers can update activities");
-        }
-
-        // 3. Update activity
+        // 2. Update activity
         activityMapper.updateEntity(activity, request);
 
-        // 4. Save and return
+        // 3. Save and return
         Activity updatedActivity = activityRepository.save(activity);
         return activityMapper.toResponse(updatedActivity);
     }
@@ -112,7 +100,8 @@ public class ActivityService {
      * Delete an activity
      * Only ORGANIZER can delete activities
      */
-    public void deleteActivity(Long tripId, Long activityId, User currentUser) {
+    @RequireTripRole(value = TripPermission.ORGANIZER, message = "Only organizers can delete activities")
+    public void deleteActivity(@TripId Long tripId, Long activityId, User currentUser) {
         // 1. Check if activity exists and belongs to the trip
         Activity activity = activityRepository.findById(activityId)
                 .orElseThrow(() -> new ResourceNotFoundException("Activity not found with id: " + activityId));
@@ -121,15 +110,7 @@ public class ActivityService {
             throw new UnauthorizedException("Activity does not belong to this trip");
         }
 
-        // 2. Check if user is ORGANIZER
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        if (membership.getRole() != MemberRole.ORGANIZER) {
-            throw new UnauthorizedException("Only organizers can delete activities");
-        }
-
-        // 3. Delete activity
+        // 2. Delete activity
         activityRepository.delete(activity);
     }
 
@@ -141,13 +122,10 @@ public class ActivityService {
      * Get all activities for a trip
      * All trip members can view activities
      */
-    public List<ActivityResponse> getActivitiesByTrip(Long tripId, User currentUser, ActivityCategory category,
+    @RequireTripRole
+    public List<ActivityResponse> getActivitiesByTrip(@TripId Long tripId, User currentUser, ActivityCategory category,
             Boolean upcomingOnly) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get activities based on filters
+        // 1. Get activities based on filters
         List<Activity> activities;
 
         if (upcomingOnly != null && upcomingOnly) {
@@ -161,7 +139,7 @@ public class ActivityService {
             activities = activityRepository.findActiveActivitiesByTripId(tripId);
         }
 
-        // 3. Convert to response
+        // 2. Convert to response
         return activities.stream()
                 .map(activityMapper::toResponse)
                 .collect(Collectors.toList());
@@ -170,40 +148,34 @@ public class ActivityService {
     /**
      * Get a single activity by ID
      */
-    public ActivityResponse getActivityById(Long tripId, Long activityId, User currentUser) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get activity
+    @RequireTripRole
+    public ActivityResponse getActivityById(@TripId Long tripId, Long activityId, User currentUser) {
+        // 1. Get activity
         Activity activity = activityRepository.findById(activityId)
                 .orElseThrow(() -> new ResourceNotFoundException("Activity not found with id: " + activityId));
 
-        // 3. Verify activity belongs to trip
+        // 2. Verify activity belongs to trip
         if (!activity.getTrip().getId().equals(tripId)) {
             throw new UnauthorizedException("Activity does not belong to this trip");
         }
 
-        // 4. Return response
+        // 3. Return response
         return activityMapper.toResponse(activity);
     }
 
     /**
      * Get upcoming activities for a trip (next 7 days)
      */
-    public List<ActivityResponse> getUpcomingActivities(Long tripId, User currentUser) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get upcoming activities
+    @RequireTripRole
+    public List<ActivityResponse> getUpcomingActivities(@TripId Long tripId, User currentUser) {
+        // 1. Get upcoming activities
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime weekFromNow = now.plusDays(7);
 
         List<Activity> activities = activityRepository.findByTripIdAndScheduledDateBetween(
                 tripId, now, weekFromNow);
 
-        // 3. Convert to response
+        // 2. Convert to response
         return activities.stream()
                 .map(activityMapper::toResponse)
                 .collect(Collectors.toList());
@@ -212,15 +184,12 @@ public class ActivityService {
     /**
      * Get confirmed activities for a trip
      */
-    public List<ActivityResponse> getConfirmedActivities(Long tripId, User currentUser) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get confirmed activities
+    @RequireTripRole
+    public List<ActivityResponse> getConfirmedActivities(@TripId Long tripId, User currentUser) {
+        // 1. Get confirmed activities
         List<Activity> activities = activityRepository.findByTrip_IdAndIsConfirmedTrueOrderByScheduledDateAsc(tripId);
 
-        // 3. Convert to response
+        // 2. Convert to response
         return activities.stream()
                 .map(activityMapper::toResponse)
                 .collect(Collectors.toList());
@@ -229,7 +198,8 @@ public class ActivityService {
     /**
      * Cancel an activity (soft delete)
      */
-    public ActivityResponse cancelActivity(Long tripId, Long activityId, User currentUser) {
+    @RequireTripRole(value = TripPermission.ORGANIZER, message = "Only organizers can cancel activities")
+    public ActivityResponse cancelActivity(@TripId Long tripId, Long activityId, User currentUser) {
         // 1. Check if activity exists
         Activity activity = activityRepository.findById(activityId)
                 .orElseThrow(() -> new ResourceNotFoundException("Activity not found with id: " + activityId));
@@ -238,15 +208,7 @@ public class ActivityService {
             throw new UnauthorizedException("Activity does not belong to this trip");
         }
 
-        // 2. Check if user is ORGANIZER
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        if (membership.getRole() != MemberRole.ORGANIZER) {
-            throw new UnauthorizedException("Only organizers can cancel activities");
-        }
-
-        // 3. Cancel activity
+        // 2. Cancel activity
         activity.setIsCancelled(true);
         Activity cancelledActivity = activityRepository.save(activity);
 
@@ -0,0 +1,92 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV RECORD READER
+ *
+ * Minimal RFC 4180 record reader: comma separator, double-quoted fields
+ * (may contain commas, newlines and "" escapes), LF or CRLF line endings.
+ * Reads one record at a time, so the input is never held in memory.
+ * Shared by the bulk expense import and the FX rates import.
+ */
+class CsvReader {
+
+    /**
+     * The input is not valid CSV from this point on
+     */
+    static class CsvFormatException extends RuntimeException {
+        CsvFormatException(String message) {
+            super(message);
+        }
+    }
+
+    private final BufferedReader reader;
+    private final int maxFieldLength;
+
+    CsvReader(BufferedReader reader, int maxFieldLength) {
+        this.reader = reader;
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    /**
+     * @return the fields of the next record, or null at end of input
+     * @throws CsvFormatException on an unterminated quoted field or a field
+     *                            longer than maxFieldLength
+     */
+    List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean readAnything = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            readAnything = true;
+            char ch = (char) c;
+
+            if (inQuotes) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                inQuotes = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+
+            if (field.length() > maxFieldLength) {
+                throw new CsvFormatException("Field longer than " + maxFieldLength + " characters");
+            }
+        }
+
+        if (!readAnything) {
+            return null;
+        }
+        if (inQuotes) {
+            throw new CsvFormatException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
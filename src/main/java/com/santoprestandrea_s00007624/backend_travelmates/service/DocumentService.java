@@ -2,13 +2,17 @@ package com.santoprestandrea_s00007624.backend_travelmates.service;
 
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.UploadDocumentRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.DocumentResponse;
-import com.santoprestandrea_s00007624.backend_travelmates.entity.*;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Document;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.DocumentCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
 import com.santoprestandrea_s00007624.backend_travelmates.exception.ResourceNotFoundException;
 import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
 import com.santoprestandrea_s00007624.backend_travelmates.mapper.DocumentMapper;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.DocumentRepository;
-import com.santoprestandrea_s00007624.backend_travelmates.repository.TripMemberRepository;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.TripRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.UserRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.security.RequireTripRole;
+import com.santoprestandrea_s00007624.backend_travelmates.security.TripId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,7 +36,10 @@ public class DocumentService {
     private TripRepository tripRepository;
 
     @Autowired
-    private TripMemberRepository tripMemberRepository;
+    private UserRepository userRepository;
+
+    @Autowired
+    private TripAccessService tripAccessService;
 
     @Autowired
     private DocumentMapper documentMapper;
@@ -45,21 +52,15 @@ public class DocumentService {
      * Upload a new document to a trip
      * All trip members can upload documents
      */
-    public DocumentResponse uploadDocument(Long tripId, UploadDocumentRequest request, User currentUser) {
-        // 1. Check if trip exists
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new ResourceNotFoundException("Trip not found with id: " + tripId));
-
-        // 2. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 3. Create document
+    @RequireTripRole
+    public DocumentResponse uploadDocument(@TripId Long tripId, UploadDocumentRequest request, User currentUser) {
+        // 1. Create document (trip and membership already checked: a reference is enough)
         Document document = documentMapper.toEntity(request);
-        document.setTrip(trip);
-        document.setUploadedBy(currentUser);
+        document.setTrip(tripRepository.getReferenceById(tripId));
+        // Uploader as a managed reference: currentUser is the cached principal, not an entity
+        document.setUploadedBy(userRepository.getReferenceById(currentUser.getId()));
 
-        // 4. Save and return
+        // 2. Save and return
         Document savedDocument = documentRepository.save(document);
         return documentMapper.toResponse(savedDocument);
     }
@@ -72,7 +73,8 @@ public class DocumentService {
      * Delete a document
      * Only the uploader or ORGANIZER can delete
      */
-    public void deleteDocument(Long tripId, Long documentId, User currentUser) {
+    @RequireTripRole
+    public void deleteDocument(@TripId Long tripId, Long documentId, User currentUser) {
         // 1. Check if document exists and belongs to the trip
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Document not found with id: " + documentId));
@@ -81,12 +83,9 @@ public class DocumentService {
             throw new UnauthorizedException("Document does not belong to this trip");
         }
 
-        // 2. Check if user is the uploader or ORGANIZER
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
+        // 2. Check if user is the uploader or ORGANIZER (role memoized by the membership check)
         boolean isUploader = document.getUploadedBy().getId().equals(currentUser.getId());
-        boolean isOrganizer = membership.getRole() == MemberRole.ORGANIZER;
+        boolean isOrganizer = tripAccessService.isOrganizer(tripId, currentUser.getId());
 
         if (!isUploader && !isOrganizer) {
             throw new UnauthorizedException("Only the uploader or organizers can delete this document");
@@ -104,12 +103,9 @@ public class DocumentService {
      * Get all documents for a trip
      * All trip members can view documents
      */
-    public List<DocumentResponse> getDocumentsByTrip(Long tripId, User currentUser, DocumentCategory category) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get documents based on filters
+    @RequireTripRole
+    public List<DocumentResponse> getDocumentsByTrip(@TripId Long tripId, User currentUser, DocumentCategory category) {
+        // 1. Get documents based on filters
         List<Document> documents;
 
         if (category != null) {
@@ -120,7 +116,7 @@ public class DocumentService {
             documents = documentRepository.findByTrip_IdOrderByUploadDateDesc(tripId);
         }
 
-        // 3. Convert to response
+        // 2. Convert to response
         return documents.stream()
                 .map(documentMapper::toResponse)
                 .collect(Collectors.toList());
@@ -129,37 +125,31 @@ public class DocumentService {
     /**
      * Get a single document by ID
      */
-    public DocumentResponse getDocumentById(Long tripId, Long documentId, User currentUser) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get document
+    @RequireTripRole
+    public DocumentResponse getDocumentById(@TripId Long tripId, Long documentId, User currentUser) {
+        // 1. Get document
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Document not found with id: " + documentId));
 
-        // 3. Verify document belongs to trip
+        // 2. Verify document belongs to trip
         if (!document.getTrip().getId().equals(tripId)) {
             throw new UnauthorizedException("Document does not belong to this trip");
         }
 
-        // 4. Return response
+        // 3. Return response
         return documentMapper.toResponse(document);
     }
 
     /**
      * Get documents uploaded by current user
      */
-    public List<DocumentResponse> getMyDocuments(Long tripId, User currentUser) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get user's documents
+    @RequireTripRole
+    public List<DocumentResponse> getMyDocuments(@TripId Long tripId, User currentUser) {
+        // 1. Get user's documents
         List<Document> documents = documentRepository.findByTrip_IdAndUploadedBy_IdOrderByUploadDateDesc(
                 tripId, currentUser.getId());
 
-        // 3. Convert to response
+        // 2. Convert to response
         return documents.stream()
                 .map(documentMapper::toResponse)
                 .collect(Collectors.toList());
@@ -168,15 +158,12 @@ public class DocumentService {
     /**
      * Search documents by file name
      */
-    public List<DocumentResponse> searchDocuments(Long tripId, String keyword, User currentUser) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Search documents
+    @RequireTripRole
+    public List<DocumentResponse> searchDocuments(@TripId Long tripId, String keyword, User currentUser) {
+        // 1. Search documents
         List<Document> documents = documentRepository.searchByFileName(tripId, keyword);
 
-        // 3. Convert to response
+        // 2. Convert to response
         return documents.stream()
                 .map(documentMapper::toResponse)
                 .collect(Collectors.toList());
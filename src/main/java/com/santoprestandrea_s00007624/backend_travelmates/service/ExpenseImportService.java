@@ -0,0 +1,486 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.BulkExpenseRow;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreatePersonalExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.BulkImportResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.config.CacheConfig;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SplitType;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.TripMember;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import com.santoprestandrea_s00007624.backend_travelmates.exception.ResourceNotFoundException;
+import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.TripMemberRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.TripRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.security.RequireTripRole;
+import com.santoprestandrea_s00007624.backend_travelmates.security.TripId;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * SERVICE: BULK EXPENSE IMPORT
+ *
+ * Imports many expenses in one request (JSON array or CSV).
+ *
+ * HOW IT WORKS:
+ * 1. The body is read as a stream, one row at a time (Jackson streaming
+ *    parser for JSON, CsvReader for CSV): the file is never
+ *    held in memory
+ * 2. Each row is validated with the same Bean Validation rules as the
+ *    single-expense endpoints
+ * 3. The permission, the trip and its members are resolved once per
+ *    import, not per row
+ * 4. Valid rows are written in chunks (expense.import.chunk-size), one
+ *    transaction per chunk, with the write path of ExpenseService (splits +
+ *    ledger included) called directly, not through its per-row proxy
+ * 5. If a chunk fails, it is rolled back and its rows are retried one by one,
+ *    so a single bad row only rejects itself
+ * 6. The persistence context is cleared after every chunk; the statistics
+ *    cache of the trip is evicted once, at the end
+ *
+ * Memory use depends on the chunk size, not on the file size.
+ */
+@Service
+public class ExpenseImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseImportService.class);
+
+    private static final String TYPE_SHARED = "SHARED";
+    private static final String TYPE_PERSONAL = "PERSONAL";
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private TripMemberRepository tripMemberRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${expense.import.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${expense.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${expense.import.max-csv-field-length:10000}")
+    private int maxCsvFieldLength;
+
+    // ===== ENTRY POINTS =====
+
+    /**
+     * IMPORT FROM A JSON ARRAY
+     *
+     * The body must be a JSON array of BulkExpenseRow objects.
+     */
+    @CacheEvict(value = CacheConfig.TRIP_STATISTICS, key = "#tripId")
+    @RequireTripRole
+    public BulkImportResponse importJson(@TripId Long tripId, InputStream body, User currentUser) {
+        ImportRun run = new ImportRun(tripId, currentUser);
+
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Body must be a JSON array of expenses");
+            }
+
+            int rowNumber = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    run.abort("Unexpected end of JSON after row " + rowNumber);
+                    break;
+                }
+                rowNumber++;
+
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    run.reject(rowNumber, "Expected a JSON object");
+                    continue;
+                }
+
+                // Only the current row is materialized
+                JsonNode node = objectMapper.readTree(parser);
+                BulkExpenseRow row;
+                try {
+                    row = objectMapper.treeToValue(node, BulkExpenseRow.class);
+                } catch (JacksonException e) {
+                    run.reject(rowNumber, "Invalid row: " + e.getOriginalMessage());
+                    continue;
+                }
+                run.accept(rowNumber, row);
+            }
+        } catch (JacksonException e) {
+            run.abort("Malformed JSON: " + e.getOriginalMessage());
+        }
+
+        return run.finish();
+    }
+
+    /**
+     * IMPORT FROM CSV
+     *
+     * The first record is the header. Column names match the BulkExpenseRow
+     * fields (case-insensitive, any order, unknown columns are ignored).
+     */
+    @CacheEvict(value = CacheConfig.TRIP_STATISTICS, key = "#tripId")
+    @RequireTripRole
+    public BulkImportResponse importCsv(@TripId Long tripId, InputStream body, User currentUser) throws IOException {
+        ImportRun run = new ImportRun(tripId, currentUser);
+        CsvReader reader = new CsvReader(
+                new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), maxCsvFieldLength);
+
+        try {
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV body is empty");
+            }
+            Map<Integer, String> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(i, header.get(i).trim().toLowerCase(Locale.ROOT));
+            }
+
+            int rowNumber = 0;
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue; // skip empty lines
+                }
+                rowNumber++;
+
+                try {
+                    run.accept(rowNumber, toRow(columns, record));
+                } catch (IllegalArgumentException e) {
+                    run.reject(rowNumber, e.getMessage());
+                }
+            }
+        } catch (CsvReader.CsvFormatException e) {
+            run.abort("Malformed CSV: " + e.getMessage());
+        }
+
+        return run.finish();
+    }
+
+    // ===== ROW CONVERSION =====
+
+    /**
+     * Build the single-expense request for a row (null type is rejected)
+     */
+    private Object toRequest(BulkExpenseRow row) {
+        String type = row.getType() == null ? null : row.getType().trim().toUpperCase(Locale.ROOT);
+
+        if (TYPE_SHARED.equals(type)) {
+            CreateSharedExpenseRequest request = new CreateSharedExpenseRequest();
+            request.setDescription(row.getDescription());
+            request.setAmount(row.getAmount());
+            request.setCurrency(row.getCurrency());
+            request.setCategory(row.getCategory());
+            request.setDate(row.getDate());
+            request.setSplitType(row.getSplitType());
+            request.setParticipantIds(row.getParticipantIds());
+            request.setSplits(row.getSplits());
+            request.setReceiptImageUrl(row.getReceiptImageUrl());
+            request.setNotes(row.getNotes());
+            return request;
+        }
+
+        if (TYPE_PERSONAL.equals(type)) {
+            CreatePersonalExpenseRequest request = new CreatePersonalExpenseRequest();
+            request.setDescription(row.getDescription());
+            request.setAmount(row.getAmount());
+            request.setCurrency(row.getCurrency());
+            request.setCategory(row.getCategory());
+            request.setDate(row.getDate());
+            request.setForUserId(row.getForUserId());
+            request.setReceiptImageUrl(row.getReceiptImageUrl());
+            request.setNotes(row.getNotes());
+            return request;
+        }
+
+        throw new IllegalArgumentException("type must be SHARED or PERSONAL");
+    }
+
+    /**
+     * Map a CSV record onto a BulkExpenseRow using the header
+     */
+    private BulkExpenseRow toRow(Map<Integer, String> columns, List<String> record) {
+        BulkExpenseRow row = new BulkExpenseRow();
+        String splits = null;
+
+        for (int i = 0; i < record.size(); i++) {
+            String column = columns.get(i);
+            String value = record.get(i).trim();
+            if (column == null || value.isEmpty()) {
+                continue;
+            }
+
+            try {
+                switch (column) {
+                    case "type" -> row.setType(value);
+                    case "description" -> row.setDescription(value);
+                    case "amount" -> row.setAmount(new BigDecimal(value));
+                    case "currency" -> row.setCurrency(value);
+                    case "category" -> row.setCategory(ExpenseCategory.valueOf(value.toUpperCase(Locale.ROOT)));
+                    case "date" -> row.setDate(LocalDate.parse(value));
+                    case "splittype" -> row.setSplitType(SplitType.valueOf(value.toUpperCase(Locale.ROOT)));
+                    case "participantids" -> row.setParticipantIds(Arrays.stream(value.split(";"))
+                            .map(String::trim)
+                            .filter(id -> !id.isEmpty())
+                            .map(Long::valueOf)
+                            .collect(Collectors.toList()));
+                    case "splits" -> splits = value;
+                    case "foruserid" -> row.setForUserId(Long.valueOf(value));
+                    case "receiptimageurl" -> row.setReceiptImageUrl(value);
+                    case "notes" -> row.setNotes(value);
+                    default -> {
+                        // unknown column: ignored
+                    }
+                }
+            } catch (IllegalArgumentException | java.time.DateTimeException e) {
+                throw new IllegalArgumentException("Invalid value for column '" + column + "': " + value);
+            }
+        }
+
+        // "splits" depends on splitType, which may come later in the record
+        if (splits != null) {
+            row.setSplits(parseSplits(splits, row.getSplitType()));
+        }
+
+        return row;
+    }
+
+    /**
+     * Parse "userId:value;userId:value" (value = percentage or amount)
+     */
+    private List<CreateSharedExpenseRequest.SplitDetailRequest> parseSplits(String value, SplitType splitType) {
+        List<CreateSharedExpenseRequest.SplitDetailRequest> details = new ArrayList<>();
+
+        for (String pair : value.split(";")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            String[] parts = pair.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid value for column 'splits': " + pair);
+            }
+
+            CreateSharedExpenseRequest.SplitDetailRequest detail = new CreateSharedExpenseRequest.SplitDetailRequest();
+            try {
+                detail.setUserId(Long.valueOf(parts[0].trim()));
+                BigDecimal splitValue = new BigDecimal(parts[1].trim());
+                if (splitType == SplitType.PERCENTAGE) {
+                    detail.setPercentage(splitValue);
+                } else {
+                    detail.setAmount(splitValue);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for column 'splits': " + pair);
+            }
+            details.add(detail);
+        }
+
+        return details;
+    }
+
+    private String describe(Set<? extends ConstraintViolation<?>> violations) {
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private String describe(RuntimeException e) {
+        if (e instanceof IllegalArgumentException
+                || e instanceof ResourceNotFoundException
+                || e instanceof UnauthorizedException) {
+            return e.getMessage();
+        }
+        logger.warn("Bulk import row failed", e);
+        return "Could not save expense";
+    }
+
+    // ===== IMPORT STATE =====
+
+    private record ImportRow(int rowNumber, Object request) {
+    }
+
+    /**
+     * State of one import: the trip and its members, the pending chunk and
+     * the report being built.
+     *
+     * The trip and the member users are loaded once and stay detached
+     * between chunks: expenses and splits only use them as references
+     * (their ids) and the trip currency.
+     */
+    private class ImportRun {
+
+        private final Trip trip;
+        private final Map<Long, TripMember> membersByUserId = new HashMap<>();
+        private final User payer;
+        private final TransactionTemplate transactionTemplate;
+        private final List<ImportRow> chunk = new ArrayList<>();
+        private final BulkImportResponse report = new BulkImportResponse();
+
+        ImportRun(Long tripId, User currentUser) {
+            this.trip = tripRepository.findById(tripId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
+            for (TripMember member : tripMemberRepository.findByTripIdWithUser(tripId)) {
+                membersByUserId.put(member.getUser().getId(), member);
+            }
+            // Membership already checked by @RequireTripRole
+            this.payer = membersByUserId.get(currentUser.getId()).getUser();
+            this.transactionTemplate = new TransactionTemplate(transactionManager);
+        }
+
+        /**
+         * Validate a parsed row and queue it for the current chunk
+         */
+        void accept(int rowNumber, BulkExpenseRow row) {
+            Object request;
+            try {
+                request = toRequest(row);
+            } catch (IllegalArgumentException e) {
+                reject(rowNumber, e.getMessage());
+                return;
+            }
+
+            Set<ConstraintViolation<Object>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                reject(rowNumber, describe(violations));
+                return;
+            }
+
+            report.setTotalRows(report.getTotalRows() + 1);
+            chunk.add(new ImportRow(rowNumber, request));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Record a row that failed before reaching the database
+         */
+        void reject(int rowNumber, String message) {
+            report.setTotalRows(report.getTotalRows() + 1);
+            recordFailure(rowNumber, message);
+        }
+
+        /**
+         * Stop reading: the body is unreadable from here on (reported as row 0)
+         */
+        void abort(String message) {
+            report.setAborted(true);
+            addError(0, message);
+        }
+
+        BulkImportResponse finish() {
+            flush();
+            return report;
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            try {
+                // 1. Whole chunk in one transaction
+                transactionTemplate.executeWithoutResult(status -> chunk.forEach(this::persist));
+                report.setImported(report.getImported() + chunk.size());
+            } catch (RuntimeException chunkFailure) {
+                // 2. Chunk rolled back: retry each row alone to isolate the bad ones
+                entityManager.clear();
+                for (ImportRow row : chunk) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> persist(row));
+                        report.setImported(report.getImported() + 1);
+                    } catch (RuntimeException e) {
+                        entityManager.clear();
+                        recordFailure(row.rowNumber(), describe(e));
+                    }
+                }
+            } finally {
+                chunk.clear();
+                // 3. Detach everything written so far
+                entityManager.clear();
+            }
+        }
+
+        private void persist(ImportRow row) {
+            if (row.request() instanceof CreateSharedExpenseRequest shared) {
+                expenseService.saveSharedExpense(trip, payer, shared, this::participants);
+            } else {
+                CreatePersonalExpenseRequest personal = (CreatePersonalExpenseRequest) row.request();
+                TripMember forMember = membersByUserId.get(personal.getForUserId());
+                if (forMember == null || !forMember.hasAcceptedInvitation()) {
+                    throw new IllegalArgumentException(
+                            "User " + personal.getForUserId() + " is not a member of this trip");
+                }
+                expenseService.savePersonalExpense(trip, payer, personal, forMember.getUser());
+            }
+        }
+
+        /**
+         * Split participants, from the members loaded at the start (no query)
+         */
+        private Map<Long, User> participants(Collection<Long> userIds) {
+            Map<Long, User> users = new HashMap<>();
+            for (Long userId : userIds) {
+                TripMember member = membersByUserId.get(userId);
+                if (member == null) {
+                    throw new IllegalArgumentException("User " + userId + " is not a member of this trip");
+                }
+                users.put(userId, member.getUser());
+            }
+            return users;
+        }
+
+        private void recordFailure(int rowNumber, String message) {
+            report.setFailed(report.getFailed() + 1);
+            addError(rowNumber, message);
+        }
+
+        private void addError(int rowNumber, String message) {
+            if (report.getErrors().size() < maxReportedErrors) {
+                report.getErrors().add(new BulkImportResponse.RowError(rowNumber, message));
+            } else {
+                report.setErrorsTruncated(true);
+            }
+        }
+    }
+}
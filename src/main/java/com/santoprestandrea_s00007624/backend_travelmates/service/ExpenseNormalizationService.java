@@ -0,0 +1,138 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.config.CacheConfig;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Expense;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseSplit;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SharedExpense;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.ExpenseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * SERVICE: EXPENSE CURRENCY NORMALIZATION
+ *
+ * Stores on every expense (and split) its amount converted into the trip
+ * currency, at write time. Balances and statistics are then plain SQL sums
+ * of normalized_amount, whatever currency each expense was paid in.
+ *
+ * The rate used is the one of the expense date (see FxRateService).
+ *
+ * MISSING RATES:
+ * if there is no rate for the expense currency (e.g. fx.rates.file only
+ * has the bundled sample), normalized_amount stays null and the expense is
+ * left out of every total and balance (an amount in another currency
+ * cannot be added to them); responses report it as "unconvertedExpenses".
+ * FxRateJob retries those expenses at startup and after every rates reload.
+ */
+@Service
+public class ExpenseNormalizationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseNormalizationService.class);
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private MemberBalanceService memberBalanceService;
+
+    /**
+     * Set expense.normalizedAmount from amount, currency, date and trip currency
+     * (null if no rate is available)
+     */
+    public void normalize(Expense expense) {
+        expense.setNormalizedAmount(toTripCurrency(expense, expense.getAmount()));
+    }
+
+    /**
+     * Set normalizedAmount on every split of a shared expense
+     * (same rate as the expense itself)
+     *
+     * Each split is rounded on its own, so the rounded splits may be a few
+     * cents off the converted total: the difference goes to the largest
+     * split, so the splits always add up to the normalized expense.
+     */
+    public void normalizeSplits(SharedExpense expense) {
+        List<ExpenseSplit> splits = expense.getSplits();
+        if (splits.isEmpty()) {
+            return;
+        }
+
+        // 1. Converted total (= normalizedAmount when the splits cover the whole expense)
+        BigDecimal rawTotal = splits.stream()
+                .map(ExpenseSplit::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal total = toTripCurrency(expense, rawTotal);
+        if (total == null) {
+            splits.forEach(split -> split.setNormalizedAmount(null));
+            return;
+        }
+
+        // 2. Convert each split
+        BigDecimal assigned = BigDecimal.ZERO;
+        ExpenseSplit largest = splits.get(0);
+        for (ExpenseSplit split : splits) {
+            BigDecimal normalized = toTripCurrency(expense, split.getAmount());
+            split.setNormalizedAmount(normalized);
+            assigned = assigned.add(normalized);
+            if (split.getAmount().compareTo(largest.getAmount()) > 0) {
+                largest = split;
+            }
+        }
+
+        // 3. Rounding remainder to the largest split
+        BigDecimal remainder = total.subtract(assigned);
+        if (remainder.signum() != 0) {
+            largest.setNormalizedAmount(largest.getNormalizedAmount().add(remainder));
+        }
+    }
+
+    /**
+     * RENORMALIZE A WHOLE TRIP
+     *
+     * Used when the trip currency changes (and to backfill rows written
+     * before normalization existed). Rates come from the in-memory
+     * snapshot, so there is no per-row lookup; the updates are flushed as
+     * JDBC batches. The balance ledger of the trip is rebuilt afterwards.
+     */
+    @Transactional
+    @CacheEvict(value = CacheConfig.TRIP_STATISTICS, key = "#tripId")
+    public void renormalizeTrip(Long tripId) {
+        List<Expense> expenses = expenseRepository.findByTrip_IdOrderByDateDesc(tripId);
+
+        for (Expense expense : expenses) {
+            normalize(expense);
+            if (expense instanceof SharedExpense sharedExpense) {
+                normalizeSplits(sharedExpense);
+            }
+        }
+
+        expenseRepository.flush();
+        memberBalanceService.rebuild(tripId);
+    }
+
+    /**
+     * Amount in the trip currency, null if there is no rate for it
+     */
+    private BigDecimal toTripCurrency(Expense expense, BigDecimal amount) {
+        String tripCurrency = expense.getTrip().getCurrency();
+        if (tripCurrency == null) {
+            return amount;
+        }
+        return fxRateService.tryConvert(amount, expense.getCurrency(), tripCurrency, expense.getDate())
+                .orElseGet(() -> {
+                    logger.warn("No exchange rate from {} to {} on {}, expense left out of the totals",
+                            expense.getCurrency(), tripCurrency, expense.getDate());
+                    return null;
+                });
+    }
+}
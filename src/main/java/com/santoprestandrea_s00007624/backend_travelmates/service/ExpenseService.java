@@ -1,7 +1,9 @@
 package com.santoprestandrea_s00007624.backend_travelmates.service;
 
+import com.santoprestandrea_s00007624.backend_travelmates.config.CacheConfig;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreatePersonalExpenseRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.ExpenseFilterRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.UpdateExpenseRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.*;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.*;
@@ -10,13 +12,22 @@ import com.santoprestandrea_s00007624.backend_travelmates.exception.Unauthorized
 import com.santoprestandrea_s00007624.backend_travelmates.mapper.ExpenseMapper;
 import com.santoprestandrea_s00007624.backend_travelmates.mapper.UserMapper;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.*;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.ExpenseSplitRow;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.ExpenseTotals;
+import com.santoprestandrea_s00007624.backend_travelmates.security.RequireTripRole;
+import com.santoprestandrea_s00007624.backend_travelmates.security.TripId;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -31,6 +42,11 @@ import java.util.stream.Collectors;
 @Service
 public class ExpenseService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Ids per findSplitRows call: keeps the IN list (and its plan cache entry) bounded
+    private static final int SPLIT_ROWS_CHUNK_SIZE = 500;
+
     @Autowired
     private ExpenseRepository expenseRepository;
 
@@ -52,6 +68,18 @@ public class ExpenseService {
     @Autowired
     private TripMemberRepository tripMemberRepository;
 
+    @Autowired
+    private TripAccessService tripAccessService;
+
+    @Autowired
+    private MemberBalanceService memberBalanceService;
+
+    @Autowired
+    private ExpenseNormalizationService expenseNormalizationService;
+
+    @Autowired
+    private SettlementOptimizer settlementOptimizer;
+
     @Autowired
     private ExpenseMapper expenseMapper;
 
@@ -62,19 +90,66 @@ public class ExpenseService {
      * CREATE SHARED EXPENSE
      */
     @Transactional
-    public SharedExpenseResponse createSharedExpense(Long tripId, CreateSharedExpenseRequest request,
+    @CacheEvict(value = CacheConfig.TRIP_STATISTICS, key = "#tripId")
+    @RequireTripRole
+    public SharedExpenseResponse createSharedExpense(@TripId Long tripId, CreateSharedExpenseRequest request,
+            User currentUser) {
+        // Load trip (membership already checked; its currency is used for normalization)
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
+
+        // Payer as a managed reference: currentUser is the cached principal, not an entity
+        User payer = userRepository.getReferenceById(currentUser.getId());
+
+        SharedExpense expense = saveSharedExpense(trip, payer, request,
+                userIds -> resolveParticipants(tripId, userIds));
+
+        return expenseMapper.toSharedExpenseResponse(expense);
+    }
+
+    /**
+     * CREATE PERSONAL EXPENSE
+     */
+    @Transactional
+    @CacheEvict(value = CacheConfig.TRIP_STATISTICS, key = "#tripId")
+    @RequireTripRole
+    public PersonalExpenseResponse createPersonalExpense(@TripId Long tripId, CreatePersonalExpenseRequest request,
             User currentUser) {
-        // Verify trip exists
+        // Load trip (membership already checked; its currency is used for normalization)
         Trip trip = tripRepository.findById(tripId)
                 .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
 
-        // Verify user is member of the trip
-        verifyUserIsMember(tripId, currentUser.getId());
+        // Get the user who should reimburse
+        User forUser = userRepository.findById(request.getForUserId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        // Verify forUser is also a member of the trip
+        verifyUserIsMember(tripId, forUser.getId());
 
+        // Payer as a managed reference: currentUser is the cached principal, not an entity
+        User payer = userRepository.getReferenceById(currentUser.getId());
+
+        PersonalExpense expense = savePersonalExpense(trip, payer, request, forUser);
+
+        return expenseMapper.toPersonalExpenseResponse(expense);
+    }
+
+    // ===== WRITE PATH (shared with ExpenseImportService) =====
+
+    /**
+     * Build, normalize and save a shared expense with its splits, then
+     * update the ledger. Runs in the caller's transaction; the caller has
+     * already checked the permission and loaded the trip.
+     *
+     * @param resolveParticipants resolves the split user ids to users, throwing
+     *                            if one of them is not a member of the trip
+     */
+    SharedExpense saveSharedExpense(Trip trip, User payer, CreateSharedExpenseRequest request,
+            Function<Collection<Long>, Map<Long, User>> resolveParticipants) {
         // Create shared expense
         SharedExpense expense = new SharedExpense();
         expense.setTrip(trip);
-        expense.setPaidBy(currentUser);
+        expense.setPaidBy(payer);
         expense.setAmount(request.getAmount());
         expense.setCurrency(request.getCurrency());
         expense.setDescription(request.getDescription());
@@ -82,46 +157,41 @@ public class ExpenseService {
         expense.setCategory(request.getCategory());
         expense.setReceiptImageUrl(request.getReceiptImageUrl());
         expense.setNotes(request.getNotes());
-        expense.setCreatedBy(currentUser);
+        expense.setCreatedBy(payer);
         expense.setSplitType(request.getSplitType());
 
-        // Save expense first to get ID
-        expense = sharedExpenseRepository.save(expense);
+        // Create splits based on split type and attach them to the expense
+        List<ExpenseSplit> splits = createSplits(expense, request, resolveParticipants);
+        for (ExpenseSplit split : splits) {
+            expense.addSplit(split);
+        }
 
-        // Create splits based on split type
-        List<ExpenseSplit> splits = createSplits(expense, request);
-        expense.setSplits(splits);
+        // Convert amounts into the trip currency
+        expenseNormalizationService.normalize(expense);
+        expenseNormalizationService.normalizeSplits(expense);
 
-        // Save again with splits
+        // Save once: the splits cascade from the expense and go out as a JDBC batch
         expense = sharedExpenseRepository.save(expense);
 
-        return expenseMapper.toSharedExpenseResponse(expense);
+        // Update balance ledger
+        memberBalanceService.recordPaid(trip.getId(), payer.getId(), expense.getAmountInTripCurrency());
+        for (ExpenseSplit split : splits) {
+            memberBalanceService.recordOwed(trip.getId(), split.getUser().getId(), split.getAmountInTripCurrency());
+        }
+
+        return expense;
     }
 
     /**
-     * CREATE PERSONAL EXPENSE
+     * Build, normalize and save a personal expense, then update the ledger.
+     * Runs in the caller's transaction; the caller has already checked the
+     * permission, loaded the trip and checked that forUser is a member.
      */
-    @Transactional
-    public PersonalExpenseResponse createPersonalExpense(Long tripId, CreatePersonalExpenseRequest request,
-            User currentUser) {
-        // Verify trip exists
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
-
-        // Verify user is member of the trip
-        verifyUserIsMember(tripId, currentUser.getId());
-
-        // Get the user who should reimburse
-        User forUser = userRepository.findById(request.getForUserId())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        // Verify forUser is also a member of the trip
-        verifyUserIsMember(tripId, forUser.getId());
-
+    PersonalExpense savePersonalExpense(Trip trip, User payer, CreatePersonalExpenseRequest request, User forUser) {
         // Create personal expense
         PersonalExpense expense = new PersonalExpense();
         expense.setTrip(trip);
-        expense.setPaidBy(currentUser);
+        expense.setPaidBy(payer);
         expense.setAmount(request.getAmount());
         expense.setCurrency(request.getCurrency());
         expense.setDescription(request.getDescription());
@@ -129,68 +199,119 @@ public class ExpenseService {
         expense.setCategory(request.getCategory());
         expense.setReceiptImageUrl(request.getReceiptImageUrl());
         expense.setNotes(request.getNotes());
-        expense.setCreatedBy(currentUser);
+        expense.setCreatedBy(payer);
         expense.setForUser(forUser);
         expense.setIsPaid(false);
 
+        // Convert amount into the trip currency
+        expenseNormalizationService.normalize(expense);
+
         expense = personalExpenseRepository.save(expense);
 
-        return expenseMapper.toPersonalExpenseResponse(expense);
+        // Update balance ledger
+        memberBalanceService.recordPaid(trip.getId(), payer.getId(), expense.getAmountInTripCurrency());
+        memberBalanceService.recordOwed(trip.getId(), forUser.getId(), expense.getAmountInTripCurrency());
+
+        return expense;
     }
 
     /**
      * GET ALL EXPENSES FOR A TRIP
      */
-    public List<ExpenseResponse> getTripExpenses(Long tripId, User currentUser) {
-        verifyUserIsMember(tripId, currentUser.getId());
-
+    @RequireTripRole
+    public List<ExpenseResponse> getTripExpenses(@TripId Long tripId, User currentUser) {
         List<Expense> expenses = expenseRepository.findByTrip_IdOrderByDateDesc(tripId);
 
-        return expenses.stream()
-                .map(expenseMapper::toResponse)
-                .collect(Collectors.toList());
+        return toResponses(expenses);
     }
 
     /**
-     * GET EXPENSE BY ID
+     * GET A PAGE OF TRIP EXPENSES (KEYSET PAGINATION)
+     *
+     * @param cursor nextCursor of the previous page ("yyyy-MM-dd:id"), null for the first page
+     * @param size   page size (1..MAX_PAGE_SIZE)
      */
-    public ExpenseResponse getExpenseById(Long tripId, Long expenseId, User currentUser) {
-        verifyUserIsMember(tripId, currentUser.getId());
+    @RequireTripRole
+    public ExpensePageResponse getTripExpensesPage(@TripId Long tripId, ExpenseFilterRequest filter, String cursor,
+            int size, User currentUser) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
 
-        Expense expense = expenseRepository.findById(expenseId)
+        // 1. Decode the cursor
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        LocalDate cursorDate = after != null ? after.date() : null;
+        Long cursorId = after != null ? after.id() : null;
+
+        // 2. Fetch one extra row to know if there is another page
+        List<Expense> expenses = expenseRepository.findPageByTrip(
+                tripId, cursorDate, cursorId,
+                filter.getCategory(), filter.getPaidByUserId(),
+                filter.getFromDate(), filter.getToDate(),
+                filter.getMinAmount(), filter.getMaxAmount(),
+                size + 1);
+
+        boolean hasMore = expenses.size() > size;
+        if (hasMore) {
+            expenses = expenses.subList(0, size);
+        }
+
+        // 3. The cursor of the next page is the last row of this one
+        String nextCursor = null;
+        if (hasMore) {
+            Expense last = expenses.get(expenses.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getDate(), last.getId());
+        }
+
+        return ExpensePageResponse.builder()
+                .items(toResponses(expenses))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * GET EXPENSE BY ID
+     */
+    @RequireTripRole
+    public ExpenseResponse getExpenseById(@TripId Long tripId, Long expenseId, User currentUser) {
+        Expense expense = expenseRepository.findWithUsersById(expenseId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
 
         if (!expense.getTrip().getId().equals(tripId)) {
             throw new UnauthorizedException("Expense does not belong to this trip");
         }
 
-        return expenseMapper.toResponse(expense);
+        return toResponses(List.of(expense)).get(0);
     }
 
     /**
      * UPDATE EXPENSE
      */
     @Transactional
-    public ExpenseResponse updateExpense(Long tripId, Long expenseId, UpdateExpenseRequest request, User currentUser) {
-        verifyUserIsMember(tripId, currentUser.getId());
-
-        Expense expense = expenseRepository.findById(expenseId)
+    @CacheEvict(value = CacheConfig.TRIP_STATISTICS, key = "#tripId")
+    @RequireTripRole
+    public ExpenseResponse updateExpense(@TripId Long tripId, Long expenseId, UpdateExpenseRequest request,
+            User currentUser) {
+        Expense expense = expenseRepository.findWithUsersById(expenseId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
 
         if (!expense.getTrip().getId().equals(tripId)) {
             throw new UnauthorizedException("Expense does not belong to this trip");
         }
 
-        // Only creator or organizer can update
-        boolean isOrganizer = tripMemberRepository.findByUser_IdAndTrip_Id(currentUser.getId(), tripId)
-                .map(TripMember::isOrganizer)
-                .orElse(false);
+        // Only creator or organizer can update (role memoized by the membership check)
+        boolean isOrganizer = tripAccessService.isOrganizer(tripId, currentUser.getId());
         boolean isCreator = expense.getCreatedBy().getId().equals(currentUser.getId());
 
         if (!isOrganizer && !isCreator) {
             throw new UnauthorizedException("Only expense creator or trip organizer can update expenses");
         }
 
+        BigDecimal oldAmount = expense.getAmountInTripCurrency();
+        String oldCurrency = expense.getCurrency();
+        LocalDate oldDate = expense.getDate();
+
         // Update fields if provided
         if (request.getDescription() != null)
             expense.setDescription(request.getDescription());
@@ -207,18 +328,48 @@ public class ExpenseService {
         if (request.getNotes() != null)
             expense.setNotes(request.getNotes());
 
+        // Convert again into the trip currency (amount, currency or date may have changed)
+        expenseNormalizationService.normalize(expense);
+
+        // Split amounts are not recalculated on update, but a new currency or date
+        // means a new rate for them too
+        boolean rateChanged = !expense.getCurrency().equals(oldCurrency) || !expense.getDate().equals(oldDate);
+        if (rateChanged && expense instanceof SharedExpense sharedExpense) {
+            Map<ExpenseSplit, BigDecimal> oldSplitAmounts = new HashMap<>();
+            for (ExpenseSplit split : sharedExpense.getSplits()) {
+                oldSplitAmounts.put(split, split.getAmountInTripCurrency());
+            }
+            expenseNormalizationService.normalizeSplits(sharedExpense);
+            for (ExpenseSplit split : sharedExpense.getSplits()) {
+                BigDecimal splitDelta = split.getAmountInTripCurrency().subtract(oldSplitAmounts.get(split));
+                if (splitDelta.signum() != 0) {
+                    memberBalanceService.recordOwed(tripId, split.getUser().getId(), splitDelta);
+                }
+            }
+        }
+
         expense = expenseRepository.save(expense);
 
-        return expenseMapper.toResponse(expense);
+        // Update balance ledger (splits are not recalculated on update, only the payer and
+        // an unpaid personal debtor are affected by an amount change)
+        BigDecimal amountDelta = expense.getAmountInTripCurrency().subtract(oldAmount);
+        if (amountDelta.signum() != 0) {
+            memberBalanceService.recordPaid(tripId, expense.getPaidBy().getId(), amountDelta);
+            if (expense instanceof PersonalExpense personalExpense && !personalExpense.getIsPaid()) {
+                memberBalanceService.recordOwed(tripId, personalExpense.getForUser().getId(), amountDelta);
+            }
+        }
+
+        return toResponses(List.of(expense)).get(0);
     }
 
     /**
      * DELETE EXPENSE
      */
     @Transactional
-    public void deleteExpense(Long tripId, Long expenseId, User currentUser) {
-        verifyUserIsMember(tripId, currentUser.getId());
-
+    @CacheEvict(value = CacheConfig.TRIP_STATISTICS, key = "#tripId")
+    @RequireTripRole
+    public void deleteExpense(@TripId Long tripId, Long expenseId, User currentUser) {
         Expense expense = expenseRepository.findById(expenseId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
 
@@ -226,16 +377,26 @@ public class ExpenseService {
             throw new UnauthorizedException("Expense does not belong to this trip");
         }
 
-        // Only creator or organizer can delete
-        boolean isOrganizer = tripMemberRepository.findByUser_IdAndTrip_Id(currentUser.getId(), tripId)
-                .map(TripMember::isOrganizer)
-                .orElse(false);
+        // Only creator or organizer can delete (role memoized by the membership check)
+        boolean isOrganizer = tripAccessService.isOrganizer(tripId, currentUser.getId());
         boolean isCreator = expense.getCreatedBy().getId().equals(currentUser.getId());
 
         if (!isOrganizer && !isCreator) {
             throw new UnauthorizedException("Only expense creator or trip organizer can delete expenses");
         }
 
+        // Update balance ledger (reverse everything the expense contributed)
+        memberBalanceService.recordPaid(tripId, expense.getPaidBy().getId(), expense.getAmountInTripCurrency().negate());
+        if (expense instanceof SharedExpense sharedExpense) {
+            for (ExpenseSplit split : sharedExpense.getSplits()) {
+                memberBalanceService.recordOwed(tripId, split.getUser().getId(),
+                        split.getAmountInTripCurrency().negate());
+            }
+        } else if (expense instanceof PersonalExpense personalExpense && !personalExpense.getIsPaid()) {
+            memberBalanceService.recordOwed(tripId, personalExpense.getForUser().getId(),
+                    expense.getAmountInTripCurrency().negate());
+        }
+
         expenseRepository.delete(expense);
     }
 
@@ -249,15 +410,14 @@ public class ExpenseService {
 
         // Only the user who owes or the trip organizer can mark as paid
         Long tripId = split.getSharedExpense().getTrip().getId();
-        boolean isOrganizer = tripMemberRepository.findByUser_IdAndTrip_Id(currentUser.getId(), tripId)
-                .map(TripMember::isOrganizer)
-                .orElse(false);
+        boolean isOrganizer = tripAccessService.isOrganizer(tripId, currentUser.getId());
         boolean isDebtor = split.getUser().getId().equals(currentUser.getId());
 
         if (!isOrganizer && !isDebtor) {
             throw new UnauthorizedException("Only the debtor or trip organizer can mark split as paid");
         }
 
+        // No ledger update: totalOwed counts every split, paid or not
         split.setIsPaid(true);
         split = expenseSplitRepository.save(split);
 
@@ -268,9 +428,8 @@ public class ExpenseService {
      * MARK PERSONAL EXPENSE AS PAID
      */
     @Transactional
-    public PersonalExpenseResponse markPersonalExpenseAsPaid(Long tripId, Long expenseId, User currentUser) {
-        verifyUserIsMember(tripId, currentUser.getId());
-
+    @RequireTripRole
+    public PersonalExpenseResponse markPersonalExpenseAsPaid(@TripId Long tripId, Long expenseId, User currentUser) {
         PersonalExpense expense = personalExpenseRepository.findById(expenseId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense not found"));
 
@@ -279,15 +438,19 @@ public class ExpenseService {
         }
 
         // Only the debtor or organizer can mark as paid
-        boolean isOrganizer = tripMemberRepository.findByUser_IdAndTrip_Id(currentUser.getId(), tripId)
-                .map(TripMember::isOrganizer)
-                .orElse(false);
+        boolean isOrganizer = tripAccessService.isOrganizer(tripId, currentUser.getId());
         boolean isDebtor = expense.getForUser().getId().equals(currentUser.getId());
 
         if (!isOrganizer && !isDebtor) {
             throw new UnauthorizedException("Only the debtor or trip organizer can mark as paid");
         }
 
+        // Update balance ledger (an unpaid personal expense stops counting as owed)
+        if (!expense.getIsPaid()) {
+            memberBalanceService.recordOwed(tripId, expense.getForUser().getId(),
+                    expense.getAmountInTripCurrency().negate());
+        }
+
         expense.setIsPaid(true);
         expense = personalExpenseRepository.save(expense);
 
@@ -297,22 +460,38 @@ public class ExpenseService {
     /**
      * CALCULATE TRIP BALANCE (WHO OWES WHOM)
      */
-    public TripBalanceResponse calculateTripBalance(Long tripId, User currentUser) {
-        verifyUserIsMember(tripId, currentUser.getId());
+    @RequireTripRole
+    public TripBalanceResponse calculateTripBalance(@TripId Long tripId, User currentUser) {
+        return computeTripBalance(tripId).getBalance();
+    }
 
+    /**
+     * TRIP BALANCE PLUS THE DATA IT WAS BUILT FROM
+     *
+     * Same result as calculateTripBalance, together with the members
+     * (as UserResponse, by id) and the ledger rows, so a caller that needs
+     * them too (SettlementService.getOptimizedBalance) does not query them
+     * again. The caller is responsible for the membership check.
+     */
+    public TripBalanceComputation computeTripBalance(Long tripId) {
         Trip trip = tripRepository.findById(tripId)
                 .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
 
-        // Get all trip members
-        List<TripMember> members = tripMemberRepository.findByTrip_Id(tripId);
+        // Get all trip members (users loaded in the same query)
+        List<TripMember> members = tripMemberRepository.findByTripIdWithUser(tripId);
 
-        // Calculate balances
+        // Read balances from the ledger (one indexed lookup)
+        Map<Long, MemberBalance> ledger = memberBalanceService.getTripBalances(trip);
         Map<Long, TripBalanceResponse.UserBalanceDetail> userBalances = new HashMap<>();
+        Map<Long, UserResponse> usersById = new HashMap<>();
 
         for (TripMember member : members) {
             User user = member.getUser();
-            BigDecimal totalPaid = calculateTotalPaid(tripId, user.getId());
-            BigDecimal totalOwed = calculateTotalOwed(tripId, user.getId());
+            usersById.put(user.getId(), userMapper.toResponse(user));
+
+            MemberBalance balance = ledger.get(user.getId());
+            BigDecimal totalPaid = balance != null ? balance.getTotalPaid() : BigDecimal.ZERO;
+            BigDecimal totalOwed = balance != null ? balance.getTotalOwed() : BigDecimal.ZERO;
             BigDecimal netBalance = totalPaid.subtract(totalOwed);
 
             TripBalanceResponse.UserBalanceDetail detail = TripBalanceResponse.UserBalanceDetail.builder()
@@ -327,22 +506,23 @@ public class ExpenseService {
         }
 
         // Generate settlement suggestions
-        List<TripBalanceResponse.SettlementSuggestion> settlements = generateSettlements(userBalances);
+        List<TripBalanceResponse.SettlementSuggestion> settlements = generateSettlements(userBalances, usersById);
 
-        // Calculate total expenses (sum all expenses for this trip)
-        List<Expense> allExpenses = expenseRepository.findByTrip_IdOrderByDateDesc(tripId);
-        BigDecimal totalExpenses = allExpenses.stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Calculate total expenses (converted ones only) and count the others
+        ExpenseTotals totals = expenseRepository.getExpenseTotals(tripId);
+        BigDecimal totalExpenses = totals.total() != null ? totals.total() : BigDecimal.ZERO;
 
-        return TripBalanceResponse.builder()
+        TripBalanceResponse balance = TripBalanceResponse.builder()
                 .tripId(tripId)
                 .tripTitle(trip.getTitle())
                 .totalExpenses(totalExpenses)
+                .unconvertedExpenses(totals.unconvertedExpenses())
                 .currency(trip.getCurrency())
                 .userBalances(userBalances)
                 .settlements(settlements)
                 .build();
+
+        return new TripBalanceComputation(balance, usersById, ledger);
     }
 
     // ================ PRIVATE HELPER METHODS ================
@@ -350,32 +530,71 @@ public class ExpenseService {
     /**
      * Create splits based on split type
      */
-    private List<ExpenseSplit> createSplits(SharedExpense expense, CreateSharedExpenseRequest request) {
+    private List<ExpenseSplit> createSplits(SharedExpense expense, CreateSharedExpenseRequest request,
+            Function<Collection<Long>, Map<Long, User>> resolveParticipants) {
         List<ExpenseSplit> splits = new ArrayList<>();
 
         switch (request.getSplitType()) {
             case EQUAL:
-                splits = createEqualSplits(expense, request.getParticipantIds());
+                splits = createEqualSplits(expense, request.getParticipantIds(), resolveParticipants);
                 break;
             case PERCENTAGE:
-                splits = createPercentageSplits(expense, request.getSplits());
+                splits = createPercentageSplits(expense, request.getSplits(), resolveParticipants);
                 break;
             case CUSTOM:
-                splits = createCustomSplits(expense, request.getSplits());
+                splits = createCustomSplits(expense, request.getSplits(), resolveParticipants);
                 break;
         }
 
         return splits;
     }
 
+    /**
+     * RESOLVE SPLIT PARTICIPANTS
+     *
+     * Loads all participants with a single query and checks in a second
+     * query that every one of them is a member of the trip.
+     *
+     * @return users indexed by id
+     */
+    private Map<Long, User> resolveParticipants(Long tripId, Collection<Long> userIds) {
+        Set<Long> requestedIds = new HashSet<>(userIds);
+
+        // 1. Load all users in one query
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : userRepository.findAllById(requestedIds)) {
+            usersById.put(user.getId(), user);
+        }
+
+        for (Long userId : requestedIds) {
+            if (!usersById.containsKey(userId)) {
+                throw new ResourceNotFoundException("User not found: " + userId);
+            }
+        }
+
+        // 2. Check trip membership in one query
+        Set<Long> memberIds = new HashSet<>(tripMemberRepository.findMemberUserIds(tripId, requestedIds));
+
+        for (Long userId : requestedIds) {
+            if (!memberIds.contains(userId)) {
+                throw new IllegalArgumentException("User " + userId + " is not a member of this trip");
+            }
+        }
+
+        return usersById;
+    }
+
     /**
      * Create EQUAL splits
      */
-    private List<ExpenseSplit> createEqualSplits(SharedExpense expense, List<Long> participantIds) {
+    private List<ExpenseSplit> createEqualSplits(SharedExpense expense, List<Long> participantIds,
+            Function<Collection<Long>, Map<Long, User>> resolveParticipants) {
         if (participantIds == null || participantIds.isEmpty()) {
             throw new IllegalArgumentException("Participant list cannot be empty for EQUAL split");
         }
 
+        Map<Long, User> participants = resolveParticipants.apply(participantIds);
+
         BigDecimal totalAmount = expense.getAmount();
         int participantCount = participantIds.size();
         BigDecimal amountPerPerson = totalAmount.divide(
@@ -384,11 +603,9 @@ public class ExpenseService {
         List<ExpenseSplit> splits = new ArrayList<>();
 
         for (Long userId : participantIds) {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
+            User user = participants.get(userId);
 
             ExpenseSplit split = new ExpenseSplit();
-            split.setSharedExpense(expense);
             split.setUser(user);
             split.setAmount(amountPerPerson);
             split.setPercentage(null);
@@ -404,7 +621,8 @@ public class ExpenseService {
      * Create PERCENTAGE splits
      */
     private List<ExpenseSplit> createPercentageSplits(SharedExpense expense,
-            List<CreateSharedExpenseRequest.SplitDetailRequest> splitDetails) {
+            List<CreateSharedExpenseRequest.SplitDetailRequest> splitDetails,
+            Function<Collection<Long>, Map<Long, User>> resolveParticipants) {
 
         if (splitDetails == null || splitDetails.isEmpty()) {
             throw new IllegalArgumentException("Split details required for PERCENTAGE split");
@@ -419,18 +637,20 @@ public class ExpenseService {
             throw new IllegalArgumentException("Percentages must sum to 100. Current sum: " + totalPercentage);
         }
 
+        Map<Long, User> participants = resolveParticipants.apply(splitDetails.stream()
+                .map(CreateSharedExpenseRequest.SplitDetailRequest::getUserId)
+                .collect(Collectors.toList()));
+
         List<ExpenseSplit> splits = new ArrayList<>();
 
         for (CreateSharedExpenseRequest.SplitDetailRequest detail : splitDetails) {
-            User user = userRepository.findById(detail.getUserId())
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found: " + detail.getUserId()));
+            User user = participants.get(detail.getUserId());
 
             BigDecimal amount = expense.getAmount()
                     .multiply(detail.getPercentage())
                     .divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
 
             ExpenseSplit split = new ExpenseSplit();
-            split.setSharedExpense(expense);
             split.setUser(user);
             split.setAmount(amount);
             split.setPercentage(detail.getPercentage());
@@ -446,7 +666,8 @@ public class ExpenseService {
      * Create CUSTOM splits
      */
     private List<ExpenseSplit> createCustomSplits(SharedExpense expense,
-            List<CreateSharedExpenseRequest.SplitDetailRequest> splitDetails) {
+            List<CreateSharedExpenseRequest.SplitDetailRequest> splitDetails,
+            Function<Collection<Long>, Map<Long, User>> resolveParticipants) {
 
         if (splitDetails == null || splitDetails.isEmpty()) {
             throw new IllegalArgumentException("Split details required for CUSTOM split");
@@ -463,14 +684,16 @@ public class ExpenseService {
                             ", Got: " + totalSplitAmount);
         }
 
+        Map<Long, User> participants = resolveParticipants.apply(splitDetails.stream()
+                .map(CreateSharedExpenseRequest.SplitDetailRequest::getUserId)
+                .collect(Collectors.toList()));
+
         List<ExpenseSplit> splits = new ArrayList<>();
 
         for (CreateSharedExpenseRequest.SplitDetailRequest detail : splitDetails) {
-            User user = userRepository.findById(detail.getUserId())
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found: " + detail.getUserId()));
+            User user = participants.get(detail.getUserId());
 
             ExpenseSplit split = new ExpenseSplit();
-            split.setSharedExpense(expense);
             split.setUser(user);
             split.setAmount(detail.getAmount());
             split.setPercentage(null);
@@ -482,135 +705,85 @@ public class ExpenseService {
         return splits;
     }
 
-    /**
-     * Calculate total amount paid by a user in a trip
-     */
-    private BigDecimal calculateTotalPaid(Long tripId, Long userId) {
-        List<Expense> paidExpenses = expenseRepository.findByTrip_IdAndPaidBy_Id(tripId, userId);
-        return paidExpenses.stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
-    /**
-     * Calculate total amount owed by a user in a trip
-     */
-    private BigDecimal calculateTotalOwed(Long tripId, Long userId) {
-        BigDecimal totalFromSplits = BigDecimal.ZERO;
-        BigDecimal totalFromPersonal = BigDecimal.ZERO;
-
-        // From shared expense splits
-        List<ExpenseSplit> splits = expenseSplitRepository.findUnpaidSplitsByTripAndUser(tripId, userId);
-        if (!splits.isEmpty()) {
-            totalFromSplits = splits.stream()
-                    .map(ExpenseSplit::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        }
-
-        // From personal expenses where user owes
-        List<PersonalExpense> personalExpenses = personalExpenseRepository
-                .findByTrip_IdAndForUser_IdAndIsPaidFalse(tripId, userId);
-        if (!personalExpenses.isEmpty()) {
-            totalFromPersonal = personalExpenses.stream()
-                    .map(PersonalExpense::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        }
-
-        // Also add paid splits (for total calculation)
-        List<SharedExpense> sharedExpenses = sharedExpenseRepository.findByTrip_Id(tripId);
-        for (SharedExpense se : sharedExpenses) {
-            for (ExpenseSplit split : se.getSplits()) {
-                if (split.getUser().getId().equals(userId)) {
-                    if (!splits.contains(split)) { // If not already counted as unpaid
-                        totalFromSplits = totalFromSplits.add(split.getAmount());
-                    }
-                }
-            }
-        }
-
-        return totalFromSplits.add(totalFromPersonal);
-    }
-
     /**
      * Generate optimal settlement suggestions (minimize transactions)
+     *
+     * The transfers are computed by the configured SettlementOptimizer.
+     * Users are resolved from the preloaded map built from the trip members,
+     * so no query is executed here.
      */
-    private List<TripBalanceResponse.SettlementSuggestion> generateSettlements(
-            Map<Long, TripBalanceResponse.UserBalanceDetail> userBalances) {
-
-        List<TripBalanceResponse.SettlementSuggestion> settlements = new ArrayList<>();
-
-        // Separate creditors (positive balance) and debtors (negative balance)
-        List<UserBalance> creditors = new ArrayList<>();
-        List<UserBalance> debtors = new ArrayList<>();
+    public List<TripBalanceResponse.SettlementSuggestion> generateSettlements(
+            Map<Long, TripBalanceResponse.UserBalanceDetail> userBalances,
+            Map<Long, UserResponse> usersById) {
 
+        Map<Long, BigDecimal> netBalances = new HashMap<>();
         for (TripBalanceResponse.UserBalanceDetail detail : userBalances.values()) {
-            if (detail.getNetBalance().compareTo(BigDecimal.ZERO) > 0) {
-                creditors.add(new UserBalance(detail.getUserId(), detail.getUserName(), detail.getNetBalance()));
-            } else if (detail.getNetBalance().compareTo(BigDecimal.ZERO) < 0) {
-                debtors.add(new UserBalance(detail.getUserId(), detail.getUserName(),
-                        detail.getNetBalance().abs()));
-            }
+            netBalances.put(detail.getUserId(), detail.getNetBalance());
         }
 
-        // Sort: largest amounts first
-        creditors.sort((a, b) -> b.amount.compareTo(a.amount));
-        debtors.sort((a, b) -> b.amount.compareTo(a.amount));
-
-        // Greedy algorithm: match largest debtor with largest creditor
-        int i = 0, j = 0;
-        while (i < debtors.size() && j < creditors.size()) {
-            UserBalance debtor = debtors.get(i);
-            UserBalance creditor = creditors.get(j);
-
-            BigDecimal settlementAmount = debtor.amount.min(creditor.amount);
+        List<TripBalanceResponse.SettlementSuggestion> settlements = new ArrayList<>();
 
-            // Create settlement suggestion
-            User debtorUser = userRepository.findById(debtor.userId).orElse(null);
-            User creditorUser = userRepository.findById(creditor.userId).orElse(null);
+        for (SettlementOptimizer.Transfer transfer : settlementOptimizer.optimize(netBalances)) {
+            UserResponse debtorUser = usersById.get(transfer.getFromUserId());
+            UserResponse creditorUser = usersById.get(transfer.getToUserId());
 
             if (debtorUser != null && creditorUser != null) {
                 settlements.add(TripBalanceResponse.SettlementSuggestion.builder()
-                        .from(userMapper.toResponse(debtorUser))
-                        .to(userMapper.toResponse(creditorUser))
-                        .amount(settlementAmount)
+                        .from(debtorUser)
+                        .to(creditorUser)
+                        .amount(transfer.getAmount())
                         .build());
             }
+        }
+
+        return settlements;
+    }
 
-            // Update balances
-            debtor.amount = debtor.amount.subtract(settlementAmount);
-            creditor.amount = creditor.amount.subtract(settlementAmount);
+    /**
+     * Build responses for a list of expenses
+     *
+     * Splits of all shared expenses are read with one projection query per
+     * SPLIT_ROWS_CHUNK_SIZE expenses instead of walking SharedExpense.splits
+     * (and each split's user) per row.
+     */
+    private List<ExpenseResponse> toResponses(List<Expense> expenses) {
+        List<Long> sharedIds = expenses.stream()
+                .filter(expense -> expense instanceof SharedExpense)
+                .map(Expense::getId)
+                .collect(Collectors.toList());
 
-            // Move to next if settled
-            if (debtor.amount.compareTo(BigDecimal.ZERO) == 0)
-                i++;
-            if (creditor.amount.compareTo(BigDecimal.ZERO) == 0)
-                j++;
+        Map<Long, List<ExpenseSplitRow>> splitsByExpenseId = new HashMap<>();
+        for (int from = 0; from < sharedIds.size(); from += SPLIT_ROWS_CHUNK_SIZE) {
+            List<Long> chunk = sharedIds.subList(from, Math.min(from + SPLIT_ROWS_CHUNK_SIZE, sharedIds.size()));
+            for (ExpenseSplitRow row : sharedExpenseRepository.findSplitRows(chunk)) {
+                splitsByExpenseId.computeIfAbsent(row.sharedExpenseId(), id -> new ArrayList<>()).add(row);
+            }
         }
 
-        return settlements;
+        return expenses.stream()
+                .map(expense -> expenseMapper.toResponse(expense,
+                        splitsByExpenseId.getOrDefault(expense.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
     }
 
     /**
-     * Verify user is member of trip
+     * Verify another user is member of trip (cached, see TripAccessService).
+     * The caller is already checked by @RequireTripRole.
      */
     private void verifyUserIsMember(Long tripId, Long userId) {
-        if (!tripMemberRepository.existsByUser_IdAndTrip_Id(userId, tripId)) {
+        if (!tripAccessService.isMember(tripId, userId)) {
             throw new UnauthorizedException("You are not a member of this trip");
         }
     }
 
     /**
-     * Helper class for settlement calculation
+     * Result of computeTripBalance
      */
-    private static class UserBalance {
-        Long userId;
-        String userName;
-        BigDecimal amount;
-
-        UserBalance(Long userId, String userName, BigDecimal amount) {
-            this.userId = userId;
-            this.userName = userName;
-            this.amount = amount;
-        }
+    @Getter
+    @AllArgsConstructor
+    public static class TripBalanceComputation {
+        private TripBalanceResponse balance;
+        private Map<Long, UserResponse> usersById;
+        private Map<Long, MemberBalance> ledger;
     }
 }
@@ -0,0 +1,85 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.repository.ExpenseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * JOB: FX RATES RELOAD + EXPENSE NORMALIZATION BACKFILL
+ *
+ * - On startup (after the balance ledger is initialized): normalizes the
+ *   trips that still have expenses without normalized_amount (rows written
+ *   before multi-currency support) and rebuilds their ledger
+ * - Periodically: reloads the rates file, then runs the backfill again
+ *
+ * Each trip is backfilled in its own transaction; expenses with a missing
+ * rate keep a null normalized_amount (they stay out of the totals).
+ * A trip is only retried once the rates can convert at least one of its
+ * missing currency pairs: trips still waiting for a rate are not
+ * renormalized (nor their ledger rebuilt) at every startup and reload.
+ */
+@Component
+public class FxRateJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateJob.class);
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired
+    private ExpenseNormalizationService expenseNormalizationService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 10)
+    public void backfillNormalizedAmounts() {
+        // 1. Only trips with at least one currency pair the current rates can convert
+        Set<Long> tripIds = new TreeSet<>();
+        Set<Long> waiting = new HashSet<>();
+        for (Object[] row : expenseRepository.findUnnormalizedCurrencyPairs()) {
+            Long tripId = (Long) row[0];
+            String tripCurrency = (String) row[2];
+            if (tripCurrency == null || fxRateService.canConvert((String) row[1], tripCurrency)) {
+                tripIds.add(tripId);
+            } else {
+                waiting.add(tripId);
+            }
+        }
+        waiting.removeAll(tripIds);
+        if (!waiting.isEmpty()) {
+            logger.info("{} trip(s) still waiting for exchange rates", waiting.size());
+        }
+        if (tripIds.isEmpty()) {
+            return;
+        }
+
+        // 2. Renormalize and rebuild the ledger, one transaction per trip
+        logger.info("Normalizing expenses of {} trip(s) into the trip currency", tripIds.size());
+        for (Long tripId : tripIds) {
+            try {
+                expenseNormalizationService.renormalizeTrip(tripId);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Trip {} not normalized: {}", tripId, e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(cron = "${fx.rates.reload-cron:0 30 3 * * *}")
+    public void reloadRates() {
+        fxRateService.reload();
+        backfillNormalizedAmounts(); // expenses that had no rate may have one now
+    }
+}
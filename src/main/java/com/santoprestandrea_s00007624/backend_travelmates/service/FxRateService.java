@@ -0,0 +1,274 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.FxRate;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.FxRateRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SERVICE: FX RATES
+ *
+ * Converts amounts between currencies with the daily rates of the
+ * fx_rates table.
+ *
+ * HOW IT WORKS:
+ * 1. reload() imports the CSV file (fx.rates.file) into fx_rates (upsert)
+ * 2. The whole table is read into an immutable snapshot:
+ *    currency → (date → rate), sorted by date
+ * 3. The snapshot is published with an atomic swap: readers never lock
+ *    and always see either the old or the new snapshot, never a mix
+ *
+ * A conversion on date D uses the latest rate on or before D
+ * (weekends and holidays have no rates), or the earliest rate if D is
+ * before the first available one. Results are rounded half-even to
+ * 2 decimals (ties do not all round up, so totals carry no bias).
+ *
+ * CSV FORMAT (RFC 4180, header required, lines starting with # are ignored):
+ * date,currency,rate
+ * 2025-06-10,USD,1.1419
+ */
+@Service
+public class FxRateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateService.class);
+
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    private static final int MAX_CSV_FIELD_LENGTH = 100;
+
+    private static final String UPSERT_SQL = "INSERT INTO fx_rates (rate_date, currency, rate) VALUES (?, ?, ?) " +
+            "ON CONFLICT (rate_date, currency) DO UPDATE SET rate = EXCLUDED.rate";
+
+    @Autowired
+    private FxRateRepository fxRateRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${fx.rates.file:classpath:fx-rates.csv}")
+    private String ratesFile;
+
+    @Value("${fx.rates.base-currency:EUR}")
+    private String baseCurrency;
+
+    private final AtomicReference<RateSnapshot> snapshot = new AtomicReference<>(RateSnapshot.EMPTY);
+
+    // ===== CONVERSION =====
+
+    /**
+     * CONVERT AN AMOUNT
+     *
+     * @return amount in the target currency, scale 2
+     * @throws IllegalArgumentException if a rate is missing for one of the currencies
+     */
+    public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency, LocalDate date) {
+        return tryConvert(amount, fromCurrency, toCurrency, date)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "No exchange rate from " + fromCurrency + " to " + toCurrency + " on " + date));
+    }
+
+    /**
+     * CONVERT AN AMOUNT, IF BOTH RATES ARE KNOWN
+     *
+     * @return amount in the target currency (scale 2), empty if a rate is missing
+     */
+    public Optional<BigDecimal> tryConvert(BigDecimal amount, String fromCurrency, String toCurrency, LocalDate date) {
+        if (fromCurrency.equalsIgnoreCase(toCurrency)) {
+            return Optional.of(amount);
+        }
+
+        RateSnapshot current = snapshot.get();
+        BigDecimal fromRate = rateOf(current, fromCurrency, date);
+        BigDecimal toRate = rateOf(current, toCurrency, date);
+
+        if (fromRate == null || toRate == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(amount.multiply(toRate).divide(fromRate, 2, RoundingMode.HALF_EVEN));
+    }
+
+    /**
+     * Whether amounts can be converted between the two currencies
+     * (a currency with at least one rate can be converted on any date)
+     */
+    public boolean canConvert(String fromCurrency, String toCurrency) {
+        if (fromCurrency.equalsIgnoreCase(toCurrency)) {
+            return true;
+        }
+        RateSnapshot current = snapshot.get();
+        return rateOf(current, fromCurrency, LocalDate.now()) != null
+                && rateOf(current, toCurrency, LocalDate.now()) != null;
+    }
+
+    private BigDecimal rateOf(RateSnapshot current, String currency, LocalDate date) {
+        if (currency.equalsIgnoreCase(baseCurrency)) {
+            return BigDecimal.ONE;
+        }
+        return current.rate(currency.toUpperCase(Locale.ROOT), date);
+    }
+
+    // ===== LOADING =====
+
+    /**
+     * Load the rates before the application starts serving requests
+     * (the repository dependency guarantees the schema is already in place)
+     */
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * RELOAD RATES
+     *
+     * Imports the CSV file (if present) and swaps in a new snapshot.
+     * Reloads are serialized; conversions keep using the previous snapshot
+     * until the new one is ready.
+     */
+    public synchronized void reload() {
+        importFile();
+
+        List<FxRate> rates = fxRateRepository.findAll();
+        RateSnapshot next = RateSnapshot.of(rates);
+        snapshot.set(next);
+
+        logger.info("FX rates loaded: {} rates for {} currencies (base {})",
+                rates.size(), next.currencyCount(), baseCurrency);
+    }
+
+    /**
+     * Upsert the rows of the CSV file into fx_rates (JDBC batches)
+     */
+    private void importFile() {
+        Resource resource = resourceLoader.getResource(ratesFile);
+        if (!resource.exists()) {
+            logger.warn("FX rates file {} not found, using the rates already in the database", ratesFile);
+            return;
+        }
+
+        int imported = 0;
+        List<Object[]> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+
+        try (BufferedReader input = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+
+            CsvReader reader = new CsvReader(input, MAX_CSV_FIELD_LENGTH);
+            List<String> fields;
+            int recordNumber = 0;
+            boolean headerSkipped = false;
+
+            while ((fields = reader.readRecord()) != null) {
+                recordNumber++;
+                String first = fields.get(0).trim();
+                if ((fields.size() == 1 && first.isEmpty()) || first.startsWith("#")) {
+                    continue;
+                }
+                if (!headerSkipped) {
+                    headerSkipped = true;
+                    continue;
+                }
+
+                if (fields.size() != 3) {
+                    logger.warn("FX rates file {}: skipping malformed record {}", ratesFile, recordNumber);
+                    continue;
+                }
+
+                try {
+                    batch.add(new Object[] {
+                            Date.valueOf(LocalDate.parse(first)),
+                            fields.get(1).trim().toUpperCase(Locale.ROOT),
+                            new BigDecimal(fields.get(2).trim())
+                    });
+                } catch (RuntimeException e) {
+                    logger.warn("FX rates file {}: skipping invalid record {}", ratesFile, recordNumber);
+                    continue;
+                }
+
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+                    imported += batch.size();
+                    batch.clear();
+                }
+            }
+        } catch (CsvReader.CsvFormatException e) {
+            // Keep the rows read before the broken record
+            logger.error("FX rates file {} is not valid CSV: {}", ratesFile, e.getMessage());
+        } catch (IOException e) {
+            logger.error("Could not read FX rates file {}", ratesFile, e);
+            return;
+        }
+
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+            imported += batch.size();
+        }
+
+        logger.info("FX rates file {} imported: {} rows", ratesFile, imported);
+    }
+
+    // ===== SNAPSHOT =====
+
+    /**
+     * Immutable, date-indexed view of the fx_rates table
+     */
+    private static final class RateSnapshot {
+
+        static final RateSnapshot EMPTY = new RateSnapshot(Map.of());
+
+        private final Map<String, NavigableMap<LocalDate, BigDecimal>> ratesByCurrency;
+
+        private RateSnapshot(Map<String, NavigableMap<LocalDate, BigDecimal>> ratesByCurrency) {
+            this.ratesByCurrency = ratesByCurrency;
+        }
+
+        static RateSnapshot of(List<FxRate> rates) {
+            Map<String, TreeMap<LocalDate, BigDecimal>> building = new HashMap<>();
+            for (FxRate rate : rates) {
+                building.computeIfAbsent(rate.getCurrency(), currency -> new TreeMap<>())
+                        .put(rate.getRateDate(), rate.getRate());
+            }
+
+            Map<String, NavigableMap<LocalDate, BigDecimal>> frozen = new HashMap<>();
+            building.forEach((currency, byDate) -> frozen.put(currency, Collections.unmodifiableNavigableMap(byDate)));
+            return new RateSnapshot(Collections.unmodifiableMap(frozen));
+        }
+
+        /**
+         * Latest rate on or before the date (earliest rate if none), null if unknown currency
+         */
+        BigDecimal rate(String currency, LocalDate date) {
+            NavigableMap<LocalDate, BigDecimal> byDate = ratesByCurrency.get(currency);
+            if (byDate == null || byDate.isEmpty()) {
+                return null;
+            }
+            Map.Entry<LocalDate, BigDecimal> entry = byDate.floorEntry(date);
+            return entry != null ? entry.getValue() : byDate.firstEntry().getValue();
+        }
+
+        int currencyCount() {
+            return ratesByCurrency.size();
+        }
+    }
+}
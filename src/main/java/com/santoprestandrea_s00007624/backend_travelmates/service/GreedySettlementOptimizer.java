@@ -0,0 +1,72 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * SETTLEMENT OPTIMIZER: GREEDY
+ *
+ * Matches the largest debtor with the largest creditor until one of the two
+ * sides is empty. Uses two heaps, so it stays O(n log n) on large trips.
+ *
+ * Fast, but not always minimal:
+ * balances +5, +5, -3, -7 → 3 transfers (the optimum is also 3)
+ * balances +12, +7, -7, -6, -6 → 4 transfers (the optimum is 3)
+ */
+@Component
+public class GreedySettlementOptimizer implements SettlementOptimizer {
+
+    @Override
+    public List<Transfer> optimize(Map<Long, BigDecimal> balances) {
+        List<Transfer> transfers = new ArrayList<>();
+
+        // Separate creditors (positive balance) and debtors (negative balance), largest amounts first
+        Comparator<UserBalance> largestFirst = (a, b) -> b.amount.compareTo(a.amount);
+        PriorityQueue<UserBalance> creditors = new PriorityQueue<>(largestFirst);
+        PriorityQueue<UserBalance> debtors = new PriorityQueue<>(largestFirst);
+
+        for (Map.Entry<Long, BigDecimal> entry : balances.entrySet()) {
+            if (entry.getValue().compareTo(BigDecimal.ZERO) > 0) {
+                creditors.add(new UserBalance(entry.getKey(), entry.getValue()));
+            } else if (entry.getValue().compareTo(BigDecimal.ZERO) < 0) {
+                debtors.add(new UserBalance(entry.getKey(), entry.getValue().abs()));
+            }
+        }
+
+        // Greedy algorithm: match largest debtor with largest creditor
+        while (!debtors.isEmpty() && !creditors.isEmpty()) {
+            UserBalance debtor = debtors.poll();
+            UserBalance creditor = creditors.poll();
+
+            BigDecimal amount = debtor.amount.min(creditor.amount);
+            transfers.add(new Transfer(debtor.userId, creditor.userId, amount));
+
+            // Update balances
+            debtor.amount = debtor.amount.subtract(amount);
+            creditor.amount = creditor.amount.subtract(amount);
+
+            // Put back whoever is not settled yet
+            if (debtor.amount.compareTo(BigDecimal.ZERO) > 0)
+                debtors.add(debtor);
+            if (creditor.amount.compareTo(BigDecimal.ZERO) > 0)
+                creditors.add(creditor);
+        }
+
+        return transfers;
+    }
+
+    /**
+     * Helper class for settlement calculation
+     */
+    private static class UserBalance {
+        Long userId;
+        BigDecimal amount;
+
+        UserBalance(Long userId, BigDecimal amount) {
+            this.userId = userId;
+            this.amount = amount;
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package com.santoprestandrea_s00007624.backend_travelmates.service;
 
 import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import com.santoprestandrea_s00007624.backend_travelmates.security.JwtClaims;
+import com.santoprestandrea_s00007624.backend_travelmates.security.JwtKeyStore;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
+import java.util.Optional;
 
 @Service
 public class JwtService {
@@ -20,55 +26,180 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String jwtSecret;
 
-    // Read the token duration from the .env file (default 24 hours)
+    // Read the access token duration from the .env file (default 15 minutes)
     @Value("${jwt.expiration}")
     private long jwtExpirationMs;
 
+    // ES256 mode only: accept HS256 tokens signed before the switch
+    @Value("${jwt.signing.accept-legacy-hs256:false}")
+    private boolean acceptLegacyHs256;
+
+    // ES256 mode only: HS256 tokens issued at or after this instant are rejected
+    @Value("${jwt.signing.legacy-hs256-cutover:}")
+    private String legacyHs256Cutover;
+
+    // ES256 keys (used when jwt.signing.algorithm=ES256)
+    @Autowired
+    private JwtKeyStore jwtKeyStore;
+
+    // Built once: the keys and the parser are immutable and thread-safe
+    private Key hmacKey;
+    private JwtParser jwtParser;
+    private Instant hs256Cutover;
+
+    /**
+     * BUILDS THE KEYS AND THE PARSER (once, at startup)
+     *
+     * HS256: the secret string is converted to a Key object (the JWT
+     * library needs a Key, not a string).
+     *
+     * ES256: the verification key is picked by the "kid" header among the
+     * keys already parsed by JwtKeyStore. HS256 tokens are REJECTED, because
+     * anyone holding the shared secret could otherwise keep minting tokens.
+     * During a migration they can be let through with
+     * jwt.signing.accept-legacy-hs256=true, optionally limited to tokens
+     * issued before jwt.signing.legacy-hs256-cutover (ISO-8601 instant).
+     */
+    @PostConstruct
+    public void init() {
+        hmacKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+
+        if (!jwtKeyStore.isAsymmetric()) {
+            jwtParser = Jwts.parserBuilder()
+                    .setSigningKey(hmacKey) // Use the same key to verify
+                    .build();
+            return;
+        }
+
+        if (legacyHs256Cutover != null && !legacyHs256Cutover.isBlank()) {
+            hs256Cutover = Instant.parse(legacyHs256Cutover.trim());
+        }
+        if (acceptLegacyHs256) {
+            logger.warn("ES256 signing active, legacy HS256 tokens still accepted{}",
+                    hs256Cutover != null ? " if issued before " + hs256Cutover : "");
+        }
+
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        if (SignatureAlgorithm.HS256.getValue().equals(header.getAlgorithm())) {
+                            return resolveLegacyHmacKey(claims);
+                        }
+                        Key key = jwtKeyStore.getVerificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * HS256 KEY FOR A TOKEN RECEIVED IN ES256 MODE
+     *
+     * Only returned when legacy tokens are explicitly allowed and, if a
+     * cutover is configured, the token was issued before it.
+     */
+    private Key resolveLegacyHmacKey(Claims claims) {
+        if (!acceptLegacyHs256) {
+            throw new UnsupportedJwtException("HS256 tokens are not accepted");
+        }
+        if (hs256Cutover != null) {
+            Date issuedAt = claims.getIssuedAt();
+            if (issuedAt == null || !issuedAt.toInstant().isBefore(hs256Cutover)) {
+                throw new UnsupportedJwtException("HS256 token issued after the ES256 cutover");
+            }
+        }
+        return hmacKey;
+    }
+
     /**
      * GENERATES A JWT TOKEN
      *
      * When the user logs in, we create a token that contains:
      * - User's email (subject)
      * - User ID (custom claim)
-     * - Name (custom claim)
+     * - Name and last name (custom claims)
      * - Role (custom claim)
+     * - Token version and active flag (custom claims, for stateless mode)
      * - Creation date
      * - Expiration date
      *
-     * The token is SIGNED with the secret key, so no one can modify it.
+     * The token is SIGNED with the secret key (HS256) or with the active
+     * private key (ES256, "kid" header), so no one can modify it.
      */
     public String generateToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(user.getEmail()) // Who is the user (email)
                 .claim("userId", user.getId()) // Additional info: ID
                 .claim("firstName", user.getFirstName()) // Name
+                .claim("lastName", user.getLastName())
                 .claim("role", user.getRole().toString()) // Role (e.g., ADMIN)
+                .claim("ver", user.getTokenVersion()) // Token version (revocation)
+                .claim("active", user.getIsActive())
                 .setIssuedAt(now) // When it was created
-                .setExpiration(expiryDate) // When it expires
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256) // Sign with secret key
-                .compact(); // Create the final string
+                .setExpiration(expiryDate); // When it expires
+
+        if (jwtKeyStore.isAsymmetric()) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, jwtKeyStore.getActiveKid())
+                    .signWith(jwtKeyStore.getSigningKey(), SignatureAlgorithm.ES256); // Sign with private key
+        } else {
+            builder.signWith(hmacKey, SignatureAlgorithm.HS256); // Sign with secret key
+        }
+
+        return builder.compact(); // Create the final string
     }
 
     /**
-     * VALIDATES A TOKEN
+     * Lifetime of an access token, in seconds
+     */
+    public long getExpirationSeconds() {
+        return jwtExpirationMs / 1000;
+    }
+
+    /**
+     * PARSES AND VERIFIES A TOKEN
      *
-     * Checks if:
+     * Checks in one pass:
      * 1. The signature is correct (= no one has modified it)
      * 2. The token is not expired
      * 3. The format is valid
      *
-     * Returns true if everything is ok, false otherwise.
+     * and returns the claims. Uses the cached parser, so nothing is rebuilt
+     * per call.
+     *
+     * @throws JwtException             if the token is invalid or expired
+     * @throws IllegalArgumentException if the token is empty
      */
-    public boolean validateToken(String token) {
+    public JwtClaims parseAndVerify(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+
+        return new JwtClaims(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.get("firstName", String.class),
+                claims.get("lastName", String.class),
+                claims.get("role", String.class),
+                claims.get("ver", Integer.class),
+                claims.get("active", Boolean.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    /**
+     * PARSES A TOKEN, LOGGING WHY IT IS INVALID
+     *
+     * Same as parseAndVerify, but returns an empty Optional instead of
+     * throwing.
+     */
+    public Optional<JwtClaims> tryParse(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey()) // Use the same key to verify
-                    .build()
-                    .parseClaimsJws(token); // Check signature and expiration
-            return true;
+            return Optional.of(parseAndVerify(token));
         } catch (MalformedJwtException ex) {
             logger.error("Malformed JWT token: {}", ex.getMessage());
         } catch (ExpiredJwtException ex) {
@@ -80,44 +211,6 @@ public class JwtService {
         } catch (Exception ex) {
             logger.error("JWT validation error: {}", ex.getMessage());
         }
-        return false;
-    }
-
-    /**
-     * EXTRACTS EMAIL FROM TOKEN
-     *
-     * Reads the "subject" of the token (which contains the email).
-     */
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject(); // Returns the email
-    }
-
-    /**
-     * EXTRACTS USER ID FROM TOKEN
-     */
-    public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.get("userId", Long.class);
-    }
-
-    /**
-     * CONVERTS THE SECRET STRING TO A KEY OBJECT
-     *
-     * The JWT library needs a Key object, not a string.
-     */
-    private Key getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        return Optional.empty();
     }
 }
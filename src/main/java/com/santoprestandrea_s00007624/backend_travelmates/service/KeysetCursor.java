@@ -0,0 +1,44 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import java.time.LocalDate;
+
+/**
+ * KEYSET PAGINATION CURSOR
+ *
+ * Position after the last row of a page ordered by (date DESC, id DESC),
+ * sent to clients as "yyyy-MM-dd:id". Shared by the expense and trip pages,
+ * so both reject a malformed cursor the same way (400 Bad Request).
+ */
+record KeysetCursor(LocalDate date, Long id) {
+
+    /**
+     * Decode a cursor received from a client
+     *
+     * @return null for the first page (no cursor)
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        int separator = cursor.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            return new KeysetCursor(
+                    LocalDate.parse(cursor.substring(0, separator)),
+                    Long.valueOf(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Cursor of the page that starts after the given row
+     */
+    static String encode(LocalDate date, Long id) {
+        return date + ":" + id;
+    }
+}
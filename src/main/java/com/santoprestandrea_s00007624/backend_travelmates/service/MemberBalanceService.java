@@ -0,0 +1,292 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.MemberBalance;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * SERVICE: MEMBER BALANCE LEDGER
+ *
+ * Maintains the member_balances projection:
+ * - Applies deltas when expenses/settlements change (same transaction)
+ * - Serves balance reads with a single indexed lookup
+ * - Rebuilds/verifies the ledger from the raw expense and settlement rows
+ *
+ * A trip whose ledger was never built (Trip.ledgerBuiltAt null: the trip is
+ * older than the ledger) is read with the aggregate computation instead,
+ * until MemberBalanceVerificationJob builds it.
+ *
+ * CONCURRENCY:
+ * Every write takes a trip-level advisory lock first (shared for deltas,
+ * exclusive for rebuilds, see MemberBalanceRepository). Without it a
+ * rebuild could read the raw rows, then delete and re-insert the ledger
+ * while an expense transaction applies its delta, losing or doubling it.
+ */
+@Service
+@Transactional
+public class MemberBalanceService {
+
+    // Transaction resource: trips already locked (shared) by this transaction
+    private static final String SHARED_LOCKS_KEY = MemberBalanceService.class.getName() + ".sharedLocks";
+
+    @Autowired
+    private MemberBalanceRepository memberBalanceRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ExpenseSplitRepository expenseSplitRepository;
+
+    @Autowired
+    private PersonalExpenseRepository personalExpenseRepository;
+
+    @Autowired
+    private SettlementRepository settlementRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    // ============================================
+    // DELTAS
+    // ============================================
+
+    /**
+     * User paid an expense (negative amount = expense removed/reduced)
+     */
+    public void recordPaid(Long tripId, Long userId, BigDecimal amount) {
+        applyDelta(tripId, userId, amount, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    /**
+     * User owes an amount (negative amount = debt removed/reduced)
+     */
+    public void recordOwed(Long tripId, Long userId, BigDecimal amount) {
+        applyDelta(tripId, userId, BigDecimal.ZERO, amount, BigDecimal.ZERO);
+    }
+
+    /**
+     * A settlement was completed (negative amount = completion undone)
+     */
+    public void recordSettlement(Long tripId, Long fromUserId, Long toUserId, BigDecimal amount) {
+        applyDelta(tripId, fromUserId, BigDecimal.ZERO, BigDecimal.ZERO, amount);
+        applyDelta(tripId, toUserId, BigDecimal.ZERO, BigDecimal.ZERO, amount.negate());
+    }
+
+    private void applyDelta(Long tripId, Long userId, BigDecimal paid, BigDecimal owed, BigDecimal adjustment) {
+        if (paid.signum() == 0 && owed.signum() == 0 && adjustment.signum() == 0) {
+            return;
+        }
+        lockShared(tripId);
+        memberBalanceRepository.applyDelta(tripId, userId, paid, owed, adjustment);
+    }
+
+    // ============================================
+    // READ
+    // ============================================
+
+    /**
+     * Get the balances of a trip, keyed by user ID
+     *
+     * From the ledger rows (one indexed lookup) once the trip's ledger is
+     * built, from the grouped aggregates before that. Users without an
+     * entry have no expenses yet (all totals are zero).
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, MemberBalance> getTripBalances(Trip trip) {
+        if (trip.getLedgerBuiltAt() == null) {
+            return computeFromRawRows(trip.getId());
+        }
+        return readLedger(trip.getId());
+    }
+
+    // ============================================
+    // REBUILD / VERIFY
+    // ============================================
+
+    /**
+     * Compare the ledger of a trip with the raw rows
+     *
+     * @return one entry per user whose ledger row differs (empty = no drift)
+     */
+    @Transactional(readOnly = true)
+    public List<BalanceDrift> verify(Long tripId) {
+        Map<Long, MemberBalance> expected = computeFromRawRows(tripId);
+        Map<Long, MemberBalance> actual = readLedger(tripId);
+
+        Set<Long> userIds = new HashSet<>(expected.keySet());
+        userIds.addAll(actual.keySet());
+
+        List<BalanceDrift> drifts = new ArrayList<>();
+        for (Long userId : userIds) {
+            MemberBalance exp = expected.getOrDefault(userId, emptyBalance(tripId, userId));
+            MemberBalance act = actual.getOrDefault(userId, emptyBalance(tripId, userId));
+
+            if (exp.getTotalPaid().compareTo(act.getTotalPaid()) != 0
+                    || exp.getTotalOwed().compareTo(act.getTotalOwed()) != 0
+                    || exp.getSettlementAdjustment().compareTo(act.getSettlementAdjustment()) != 0) {
+                drifts.add(new BalanceDrift(tripId, userId,
+                        act.getTotalPaid(), exp.getTotalPaid(),
+                        act.getTotalOwed(), exp.getTotalOwed(),
+                        act.getSettlementAdjustment(), exp.getSettlementAdjustment()));
+            }
+        }
+        return drifts;
+    }
+
+    /**
+     * Verify a trip and rebuild its ledger if it drifted
+     *
+     * @return the drift found before the repair
+     */
+    public List<BalanceDrift> verifyAndRepair(Long tripId) {
+        memberBalanceRepository.lockTripExclusive(tripId);
+        List<BalanceDrift> drifts = verify(tripId);
+        if (!drifts.isEmpty()) {
+            rebuild(tripId);
+        }
+        return drifts;
+    }
+
+    /**
+     * Recompute the ledger of a trip from the raw rows and mark it built
+     * (from then on reads use the ledger)
+     */
+    public void rebuild(Long tripId) {
+        memberBalanceRepository.lockTripExclusive(tripId);
+        Map<Long, MemberBalance> balances = computeFromRawRows(tripId);
+
+        memberBalanceRepository.deleteByTripId(tripId);
+        memberBalanceRepository.flush();
+
+        LocalDateTime now = LocalDateTime.now();
+        balances.values().forEach(balance -> balance.setUpdatedAt(now));
+        memberBalanceRepository.saveAll(balances.values());
+        tripRepository.markLedgerBuilt(tripId, now);
+    }
+
+    /**
+     * Remove the ledger of a trip (the rows reference the trip by id only,
+     * so they are not cascaded with the trip)
+     */
+    public void deleteTripLedger(Long tripId) {
+        memberBalanceRepository.lockTripExclusive(tripId);
+        memberBalanceRepository.deleteByTripId(tripId);
+    }
+
+    private Map<Long, MemberBalance> readLedger(Long tripId) {
+        Map<Long, MemberBalance> balances = new HashMap<>();
+        for (MemberBalance balance : memberBalanceRepository.findByTripId(tripId)) {
+            balances.put(balance.getUserId(), balance);
+        }
+        return balances;
+    }
+
+    // ============================================
+    // LOCKING
+    // ============================================
+
+    /**
+     * Take the shared ledger lock of a trip once per transaction
+     * (an expense with many splits applies many deltas)
+     */
+    private void lockShared(Long tripId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            memberBalanceRepository.lockTripShared(tripId);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Long> locked = (Set<Long>) TransactionSynchronizationManager.getResource(SHARED_LOCKS_KEY);
+        if (locked == null) {
+            locked = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(SHARED_LOCKS_KEY, locked);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SHARED_LOCKS_KEY);
+                }
+            });
+        }
+        if (locked.add(tripId)) {
+            memberBalanceRepository.lockTripShared(tripId);
+        }
+    }
+
+    /**
+     * Compute the ledger of a trip from expenses, splits and settlements
+     * (grouped aggregates, one row per user). The result is not saved.
+     */
+    private Map<Long, MemberBalance> computeFromRawRows(Long tripId) {
+        Map<Long, MemberBalance> balances = new HashMap<>();
+
+        for (Object[] row : expenseRepository.getTotalPaidPerUser(tripId)) {
+            MemberBalance balance = balances.computeIfAbsent((Long) row[0], id -> emptyBalance(tripId, id));
+            balance.setTotalPaid(balance.getTotalPaid().add(amountOf(row)));
+        }
+        for (Object[] row : expenseSplitRepository.getTotalSplitsPerUser(tripId)) {
+            MemberBalance balance = balances.computeIfAbsent((Long) row[0], id -> emptyBalance(tripId, id));
+            balance.setTotalOwed(balance.getTotalOwed().add(amountOf(row)));
+        }
+        for (Object[] row : personalExpenseRepository.getTotalUnpaidPerDebtor(tripId)) {
+            MemberBalance balance = balances.computeIfAbsent((Long) row[0], id -> emptyBalance(tripId, id));
+            balance.setTotalOwed(balance.getTotalOwed().add(amountOf(row)));
+        }
+        for (Object[] row : settlementRepository.getCompletedSentPerUser(tripId)) {
+            MemberBalance balance = balances.computeIfAbsent((Long) row[0], id -> emptyBalance(tripId, id));
+            balance.setSettlementAdjustment(balance.getSettlementAdjustment().add(amountOf(row)));
+        }
+        for (Object[] row : settlementRepository.getCompletedReceivedPerUser(tripId)) {
+            MemberBalance balance = balances.computeIfAbsent((Long) row[0], id -> emptyBalance(tripId, id));
+            balance.setSettlementAdjustment(balance.getSettlementAdjustment().subtract(amountOf(row)));
+        }
+
+        return balances;
+    }
+
+    private MemberBalance emptyBalance(Long tripId, Long userId) {
+        return MemberBalance.builder()
+                .tripId(tripId)
+                .userId(userId)
+                .build();
+    }
+
+    private BigDecimal amountOf(Object[] row) {
+        return row[1] != null ? (BigDecimal) row[1] : BigDecimal.ZERO;
+    }
+
+    /**
+     * Difference between the ledger and the raw rows for one user
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class BalanceDrift {
+        private Long tripId;
+        private Long userId;
+        private BigDecimal ledgerPaid;
+        private BigDecimal actualPaid;
+        private BigDecimal ledgerOwed;
+        private BigDecimal actualOwed;
+        private BigDecimal ledgerAdjustment;
+        private BigDecimal actualAdjustment;
+
+        @Override
+        public String toString() {
+            return "trip=" + tripId + " user=" + userId
+                    + " paid=" + ledgerPaid + "/" + actualPaid
+                    + " owed=" + ledgerOwed + "/" + actualOwed
+                    + " settlements=" + ledgerAdjustment + "/" + actualAdjustment;
+        }
+    }
+}
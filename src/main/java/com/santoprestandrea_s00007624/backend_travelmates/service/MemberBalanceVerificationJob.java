@@ -0,0 +1,67 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.repository.TripRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * JOB: MEMBER BALANCE LEDGER REBUILD / VERIFY
+ *
+ * - On startup: builds the ledger of every trip that has none yet
+ *   (Trip.ledgerBuiltAt null: trips older than the ledger). Until then
+ *   their balances are computed from the raw rows, never read as zero
+ * - Periodically: recomputes every trip from the raw rows, logs any drift
+ *   and repairs the drifted trips
+ *
+ * Each trip is processed in its own transaction (calls go through the
+ * MemberBalanceService proxy).
+ */
+@Component
+public class MemberBalanceVerificationJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemberBalanceVerificationJob.class);
+
+    @Autowired
+    private MemberBalanceService memberBalanceService;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void initializeLedger() {
+        List<Long> tripIds = tripRepository.findIdsWithoutLedger();
+        if (tripIds.isEmpty()) {
+            return;
+        }
+
+        logger.info("Building the member balance ledger of {} trip(s)", tripIds.size());
+        for (Long tripId : tripIds) {
+            memberBalanceService.rebuild(tripId);
+        }
+    }
+
+    @Scheduled(cron = "${balance.ledger.verify-cron:0 0 4 * * *}")
+    public void verifyLedger() {
+        int driftedTrips = 0;
+
+        for (Long tripId : tripRepository.findAllIds()) {
+            List<MemberBalanceService.BalanceDrift> drifts = memberBalanceService.verifyAndRepair(tripId);
+            if (!drifts.isEmpty()) {
+                driftedTrips++;
+                drifts.forEach(drift -> logger.warn("Member balance drift repaired: {}", drift));
+            }
+        }
+
+        logger.info("Member balance ledger verified, {} trip(s) repaired", driftedTrips);
+    }
+}
@@ -0,0 +1,173 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SETTLEMENT OPTIMIZER: MINIMUM NUMBER OF TRANSFERS
+ *
+ * IDEA:
+ * A group of k people whose balances sum to zero can always be settled
+ * with k - 1 transfers. So the minimum number of transfers is
+ * n - (maximum number of disjoint zero-sum groups).
+ *
+ * EXAMPLE:
+ * balances +12, +7, -7, -6, -6
+ * → groups {+7, -7} and {+12, -6, -6} → 3 transfers (greedy needs 4)
+ *
+ * ALGORITHM (bitmask DP over the non-zero balances):
+ * - sum[mask]    = sum of the balances in mask
+ * - groups[mask] = max zero-sum groups that mask can be split into
+ *                = max over i in mask of groups[mask without i]
+ *                  (+1 if sum[mask] == 0)
+ * Then the groups are rebuilt from the table and each one is settled greedily.
+ *
+ * LIMITS (greedy is used instead when one of them is hit):
+ * - O(n * 2^n): above MAX_EXACT_MEMBERS non-zero balances
+ * - Before allocating the 2^n tables: if they would not fit
+ *   settlement.optimizer.max-table-bytes, or if the estimated run time
+ *   would not fit settlement.optimizer.time-budget-ms
+ * - While running: if the time budget runs out
+ */
+@Component
+public class MinimumTransferSettlementOptimizer implements SettlementOptimizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MinimumTransferSettlementOptimizer.class);
+
+    static final int MAX_EXACT_MEMBERS = 20;
+
+    // sum[mask] (long) + groups[mask] (byte)
+    static final int TABLE_BYTES_PER_MASK = Long.BYTES + Byte.BYTES;
+
+    // Conservative DP throughput, for the estimate made before allocating
+    static final long ESTIMATED_STEPS_PER_MS = 100_000;
+
+    @Autowired
+    private GreedySettlementOptimizer greedySettlementOptimizer;
+
+    @Value("${settlement.optimizer.time-budget-ms:200}")
+    private long timeBudgetMs;
+
+    @Value("${settlement.optimizer.max-table-bytes:16777216}")
+    private long maxTableBytes;
+
+    @Override
+    public List<Transfer> optimize(Map<Long, BigDecimal> balances) {
+        // Only non-zero balances take part (amounts in cents to compare sums exactly)
+        List<Long> userIds = new ArrayList<>();
+        List<Long> cents = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> entry : balances.entrySet()) {
+            long value = toCents(entry.getValue());
+            if (value != 0) {
+                userIds.add(entry.getKey());
+                cents.add(value);
+            }
+        }
+
+        int n = userIds.size();
+        if (n > MAX_EXACT_MEMBERS || !fitsBudget(n)) {
+            logger.debug("Settlement optimizer budget too small for {} balances, using greedy", n);
+            return greedySettlementOptimizer.optimize(balances);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        int[] order = findGroupOrder(cents.stream().mapToLong(Long::longValue).toArray(), deadline);
+        if (order == null) {
+            logger.debug("Settlement optimizer time budget exceeded for {} balances, using greedy", n);
+            return greedySettlementOptimizer.optimize(balances);
+        }
+
+        // Walk the order: every time the running sum is zero a group is closed
+        List<Transfer> transfers = new ArrayList<>();
+        Map<Long, BigDecimal> group = new HashMap<>();
+        long runningSum = 0;
+
+        for (int index : order) {
+            group.put(userIds.get(index), BigDecimal.valueOf(cents.get(index), 2));
+            runningSum += cents.get(index);
+
+            if (runningSum == 0) {
+                transfers.addAll(greedySettlementOptimizer.optimize(group));
+                group = new HashMap<>();
+            }
+        }
+
+        // Balances that do not sum to zero (e.g. rounding leftovers)
+        if (!group.isEmpty()) {
+            transfers.addAll(greedySettlementOptimizer.optimize(group));
+        }
+
+        return transfers;
+    }
+
+    /**
+     * Whether the exact solver can run on n balances within the memory and
+     * time budgets (checked before the tables are allocated)
+     */
+    boolean fitsBudget(int n) {
+        long masks = 1L << n;
+        if (masks * TABLE_BYTES_PER_MASK > maxTableBytes) {
+            return false;
+        }
+        // Every mask loops over its members: n / 2 on average
+        long steps = n * (masks / 2);
+        return steps / ESTIMATED_STEPS_PER_MS <= timeBudgetMs;
+    }
+
+    /**
+     * Order the balances so that the number of zero-sum prefixes is maximal
+     *
+     * @return indexes in settlement order, or null if the deadline was reached
+     */
+    private int[] findGroupOrder(long[] cents, long deadline) {
+        int n = cents.length;
+        int full = (1 << n) - 1;
+
+        long[] sum = new long[1 << n];
+        byte[] groups = new byte[1 << n];
+
+        for (int mask = 1; mask <= full; mask++) {
+            if ((mask & 0xFFF) == 0 && System.nanoTime() > deadline) {
+                return null;
+            }
+
+            int lowest = Integer.numberOfTrailingZeros(mask);
+            sum[mask] = sum[mask & (mask - 1)] + cents[lowest];
+
+            int best = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                best = Math.max(best, groups[mask ^ (rest & -rest)]);
+            }
+            groups[mask] = (byte) (best + (sum[mask] == 0 ? 1 : 0));
+        }
+
+        // Rebuild the order backwards: remove the element that keeps the optimum
+        int[] order = new int[n];
+        int mask = full;
+        for (int position = n - 1; position >= 0; position--) {
+            int target = groups[mask] - (sum[mask] == 0 ? 1 : 0);
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int bit = rest & -rest;
+                if (groups[mask ^ bit] == target) {
+                    order[position] = Integer.numberOfTrailingZeros(bit);
+                    mask ^= bit;
+                    break;
+                }
+            }
+        }
+
+        return order;
+    }
+
+    private long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,200 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.exception.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * PASSWORD HASHING SERVICE
+ *
+ * Runs every BCrypt operation on a dedicated, bounded thread pool instead
+ * of on the request threads. BCrypt is deliberately slow (~100-300 ms of
+ * CPU): a login burst would otherwise keep all the request threads busy
+ * and starve every other endpoint.
+ *
+ * LOAD SHEDDING:
+ * - at most security.password.hash-threads hashes run at the same time
+ * - at most security.password.queue-capacity wait in the queue
+ * - beyond that → ServiceUnavailableException (HTTP 503, Retry-After)
+ *
+ * COST FACTOR:
+ * - fixed by security.password.bcrypt-strength (default 12), so every
+ * instance hashes with the same cost whatever machine it runs on
+ * - security.password.calibrate=true only LOGS the highest cost (10..14)
+ * whose hash takes at most security.password.target-hash-ms here, as a
+ * hint for tuning the setting
+ * - passwords hashed with a lower cost are rehashed after a successful
+ * login (see needsRehash); higher costs are left alone
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private static final int MIN_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 14;
+
+    @Value("${security.password.bcrypt-strength:12}")
+    private int strength;
+
+    @Value("${security.password.calibrate:false}")
+    private boolean calibrate;
+
+    @Value("${security.password.target-hash-ms:250}")
+    private long targetHashMs;
+
+    @Value("${security.password.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${security.password.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${security.password.hash-timeout-ms:5000}")
+    private long hashTimeoutMs;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        // 1. Cost factor (fixed; calibration is only a recommendation)
+        encoder = new BCryptPasswordEncoder(strength);
+        if (calibrate) {
+            logCalibration();
+        }
+
+        // 2. Bounded pool: fixed size, bounded queue, reject when full
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        logger.info("Password hashing: BCrypt strength {}, {} threads, queue {}", strength, threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // ===== HASHING =====
+
+    public String encode(String rawPassword) {
+        return runOnHashPool(() -> encoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return runOnHashPool(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * True if the hash was made with a lower cost than the current one.
+     * Stronger hashes are kept: downgrading them would weaken them.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        // Format: $2a$10$<salt+hash> → cost = characters 4-5
+        if (encodedPassword == null || encodedPassword.length() < 7) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) < strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Rehashes a password in the background (best effort: if the pool is
+     * busy it is simply skipped and retried at the next login)
+     */
+    public void rehashAsync(String rawPassword, Consumer<String> onRehashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onRehashed.accept(encoder.encode(rawPassword));
+                } catch (Exception e) {
+                    logger.warn("Password rehash failed: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Password rehash skipped, hashing pool is full");
+        }
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    // ===== HELPER METHODS =====
+
+    private <T> T runOnHashPool(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Password hashing queue full, rejecting request");
+            throw new ServiceUnavailableException("Too many login attempts in progress, please retry", 1);
+        }
+
+        try {
+            return future.get(hashTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceUnavailableException("Password check timed out, please retry", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password check interrupted, please retry", 1);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Logs the highest cost whose hash time stays within the target.
+     * Every extra cost point doubles the time, so the search stops at the
+     * first cost that is too slow. The configured cost is not changed.
+     */
+    private void logCalibration() {
+        int chosen = MIN_STRENGTH;
+        new BCryptPasswordEncoder(MIN_STRENGTH).encode("warm-up"); // JIT warm-up
+
+        for (int cost = MIN_STRENGTH; cost <= MAX_STRENGTH; cost++) {
+            BCryptPasswordEncoder candidate = new BCryptPasswordEncoder(cost);
+
+            long start = System.nanoTime();
+            candidate.encode("calibration-password");
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            logger.debug("BCrypt cost {}: {} ms", cost, elapsedMs);
+            if (elapsedMs > targetHashMs) {
+                break;
+            }
+            chosen = cost;
+        }
+
+        logger.info("BCrypt calibration: recommended strength {} for a {} ms target (configured: {})",
+                chosen, targetHashMs, strength);
+    }
+}
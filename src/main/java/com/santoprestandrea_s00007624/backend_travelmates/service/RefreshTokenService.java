@@ -0,0 +1,168 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.RefreshToken;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * REFRESH TOKEN SERVICE
+ *
+ * Issues and rotates the opaque refresh tokens (see RefreshToken).
+ *
+ * A refresh never touches BCrypt: the token is 256 random bits, so a
+ * single SHA-256 is enough to look it up safely.
+ *
+ * FLOW:
+ * 1. Login/registration → access token (short-lived JWT) + refresh token
+ * 2. Access token expired → POST /api/auth/refresh with the refresh token
+ * 3. The refresh token is marked as used and a new pair is returned
+ * 4. An already used token presented again → the whole family is revoked
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${jwt.refresh-expiration-days:30}")
+    private long refreshExpirationDays;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Result of a rotation: the owner of the token and the new refresh token
+     */
+    public record RotatedToken(User user, String refreshToken) {
+    }
+
+    // ===== ISSUE =====
+
+    /**
+     * Issues the first refresh token of a new family (after a login)
+     *
+     * @return the raw token, to be sent to the client (only its hash is stored)
+     */
+    @Transactional
+    public String issue(User user) {
+        return create(user, UUID.randomUUID().toString());
+    }
+
+    // ===== ROTATE =====
+
+    /**
+     * EXCHANGES A REFRESH TOKEN FOR A NEW ONE
+     *
+     * noRollbackFor: the family revocation done on reuse detection must be
+     * committed even though the request fails.
+     *
+     * @throws UnauthorizedException if the token is unknown, expired, revoked or reused
+     */
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public RotatedToken rotate(String rawToken) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // 1. Find the token (row locked until commit)
+        RefreshToken token = refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken))
+                .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+
+        // 2. Revoked (logout, deactivation, earlier reuse)
+        if (token.getRevokedAt() != null) {
+            throw new UnauthorizedException("Refresh token revoked");
+        }
+
+        // 3. Already used: the token has been copied → revoke the whole family
+        if (token.getUsedAt() != null) {
+            int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            logger.warn("Refresh token reuse detected for user {}: {} tokens revoked",
+                    token.getUser().getId(), revoked);
+            throw new UnauthorizedException("Refresh token revoked");
+        }
+
+        // 4. Expired
+        if (token.getExpiresAt().isBefore(now)) {
+            throw new UnauthorizedException("Refresh token expired");
+        }
+
+        // 5. Account disabled after the login
+        User user = token.getUser();
+        if (!Boolean.TRUE.equals(user.getIsActive())) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            throw new UnauthorizedException("Account disabled");
+        }
+
+        // 6. Rotate
+        token.setUsedAt(now);
+        String newToken = create(user, token.getFamilyId());
+
+        return new RotatedToken(user, newToken);
+    }
+
+    // ===== REVOKE =====
+
+    /**
+     * Revokes the family of a token (logout). Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    /**
+     * Nightly cleanup of expired tokens
+     */
+    @Scheduled(cron = "${jwt.refresh-cleanup-cron:0 15 4 * * *}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        logger.info("Deleted {} expired refresh tokens", deleted);
+    }
+
+    // ===== HELPER METHODS =====
+
+    private String create(User user, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = RefreshToken.builder()
+                .user(user)
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .expiresAt(LocalDateTime.now().plusDays(refreshExpirationDays))
+                .build();
+        refreshTokenRepository.save(token);
+
+        return rawToken;
+    }
+
+    private String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * STRATEGY: SETTLEMENT OPTIMIZER
+ *
+ * Turns the net balances of a trip into a list of transfers that settles them.
+ *
+ * IMPLEMENTATIONS:
+ * - GreedySettlementOptimizer: largest debtor pays largest creditor
+ * - MinimumTransferSettlementOptimizer: exact minimum number of transfers
+ *
+ * The one used by the application is selected with the
+ * "settlement.optimizer" property (see SettlementOptimizerConfig).
+ */
+public interface SettlementOptimizer {
+
+    /**
+     * @param balances userId → net balance (+ = is owed money, - = owes money)
+     * @return transfers from debtors to creditors
+     */
+    List<Transfer> optimize(Map<Long, BigDecimal> balances);
+
+    /**
+     * A single suggested payment
+     */
+    @Getter
+    @AllArgsConstructor
+    class Transfer {
+        private Long fromUserId;
+        private Long toUserId;
+        private BigDecimal amount;
+    }
+}
@@ -8,11 +8,12 @@ import com.santoprestandrea_s00007624.backend_travelmates.exception.ResourceNotF
 import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
 import com.santoprestandrea_s00007624.backend_travelmates.mapper.SettlementMapper;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.*;
+import com.santoprestandrea_s00007624.backend_travelmates.security.RequireTripRole;
+import com.santoprestandrea_s00007624.backend_travelmates.security.TripId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -33,7 +34,7 @@ public class SettlementService {
     private TripRepository tripRepository;
 
     @Autowired
-    private TripMemberRepository tripMemberRepository;
+    private TripAccessService tripAccessService;
 
     @Autowired
     private UserRepository userRepository;
@@ -41,6 +42,9 @@ public class SettlementService {
     @Autowired
     private ExpenseService expenseService;
 
+    @Autowired
+    private MemberBalanceService memberBalanceService;
+
     @Autowired
     private SettlementMapper settlementMapper;
 
@@ -51,31 +55,25 @@ public class SettlementService {
     /**
      * Create a new settlement (payment record)
      */
-    public SettlementResponse createSettlement(Long tripId, CreateSettlementRequest request, User currentUser) {
-        // 1. Check if trip exists
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new ResourceNotFoundException("Trip not found with id: " + tripId));
-
-        // 2. Check if current user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 3. Check if toUser is a member
+    @RequireTripRole
+    public SettlementResponse createSettlement(@TripId Long tripId, CreateSettlementRequest request, User currentUser) {
+        // 1. Check if toUser is a member
         User toUser = userRepository.findById(request.getToUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + request.getToUserId()));
 
-        TripMember toUserMembership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, toUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("Target user is not a member of this trip"));
+        if (!tripAccessService.isMember(tripId, toUser.getId())) {
+            throw new UnauthorizedException("Target user is not a member of this trip");
+        }
 
-        // 4. Validate: cannot create settlement to yourself
+        // 2. Validate: cannot create settlement to yourself
         if (currentUser.getId().equals(toUser.getId())) {
             throw new IllegalArgumentException("Cannot create settlement to yourself");
         }
 
-        // 5. Create settlement
+        // 3. Create settlement
         Settlement settlement = Settlement.builder()
-                .trip(trip)
-                .fromUser(currentUser)
+                .trip(tripRepository.getReferenceById(tripId))
+                .fromUser(userRepository.getReferenceById(currentUser.getId())) // managed, not the cached principal
                 .toUser(toUser)
                 .amount(request.getAmount())
                 .currency(request.getCurrency())
@@ -83,7 +81,7 @@ public class SettlementService {
                 .notes(request.getNotes())
                 .build();
 
-        // 6. Save and return
+        // 4. Save and return
         Settlement savedSettlement = settlementRepository.save(settlement);
         return settlementMapper.toResponse(savedSettlement);
     }
@@ -96,7 +94,8 @@ public class SettlementService {
      * Mark a settlement as completed
      * Only the receiver (toUser) or ORGANIZER can mark as completed
      */
-    public SettlementResponse markAsCompleted(Long tripId, Long settlementId, User currentUser) {
+    @RequireTripRole
+    public SettlementResponse markAsCompleted(@TripId Long tripId, Long settlementId, User currentUser) {
         // 1. Check if settlement exists
         Settlement settlement = settlementRepository.findById(settlementId)
                 .orElseThrow(() -> new ResourceNotFoundException("Settlement not found with id: " + settlementId));
@@ -105,18 +104,20 @@ public class SettlementService {
             throw new UnauthorizedException("Settlement does not belong to this trip");
         }
 
-        // 2. Check if user is the receiver or ORGANIZER
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
+        // 2. Check if user is the receiver or ORGANIZER (role memoized by the membership check)
         boolean isReceiver = settlement.getToUser().getId().equals(currentUser.getId());
-        boolean isOrganizer = membership.getRole() == MemberRole.ORGANIZER;
+        boolean isOrganizer = tripAccessService.isOrganizer(tripId, currentUser.getId());
 
         if (!isReceiver && !isOrganizer) {
             throw new UnauthorizedException("Only the receiver or organizers can mark settlement as completed");
         }
 
-        // 3. Mark as completed
+        // 3. Mark as completed (and update the balance ledger only once)
+        if (settlement.getStatus() != SettlementStatus.COMPLETED) {
+            memberBalanceService.recordSettlement(tripId, settlement.getFromUser().getId(),
+                    settlement.getToUser().getId(), settlement.getAmount());
+        }
+
         settlement.setStatus(SettlementStatus.COMPLETED);
         settlement.setSettledAt(LocalDateTime.now());
 
@@ -131,12 +132,9 @@ public class SettlementService {
     /**
      * Get all settlements for a trip
      */
-    public List<SettlementResponse> getSettlementsByTrip(Long tripId, User currentUser, SettlementStatus status) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get settlements
+    @RequireTripRole
+    public List<SettlementResponse> getSettlementsByTrip(@TripId Long tripId, User currentUser, SettlementStatus status) {
+        // 1. Get settlements
         List<Settlement> settlements;
         if (status != null) {
             settlements = settlementRepository.findByTrip_IdAndStatusOrderByCreatedAtDesc(tripId, status);
@@ -144,7 +142,7 @@ public class SettlementService {
             settlements = settlementRepository.findByTrip_IdOrderByCreatedAtDesc(tripId);
         }
 
-        // 3. Convert to response
+        // 2. Convert to response
         return settlements.stream()
                 .map(settlementMapper::toResponse)
                 .collect(Collectors.toList());
@@ -153,15 +151,12 @@ public class SettlementService {
     /**
      * Get settlements involving current user
      */
-    public List<SettlementResponse> getMySettlements(Long tripId, User currentUser) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get user's settlements
+    @RequireTripRole
+    public List<SettlementResponse> getMySettlements(@TripId Long tripId, User currentUser) {
+        // 1. Get user's settlements
         List<Settlement> settlements = settlementRepository.findByTripAndUser(tripId, currentUser.getId());
 
-        // 3. Convert to response
+        // 2. Convert to response
         return settlements.stream()
                 .map(settlementMapper::toResponse)
                 .collect(Collectors.toList());
@@ -175,45 +170,37 @@ public class SettlementService {
      * Calculate optimized balance including settlements
      * This shows the net balance after considering both expenses and settlements
      */
-    public TripBalanceResponse getOptimizedBalance(Long tripId, User currentUser) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get balance from expenses
-        TripBalanceResponse expenseBalance = expenseService.calculateTripBalance(tripId, currentUser);
+    @RequireTripRole
+    public TripBalanceResponse getOptimizedBalance(@TripId Long tripId, User currentUser) {
+        // 1. Get balance from expenses (with the members and ledger rows it read)
+        ExpenseService.TripBalanceComputation computation = expenseService.computeTripBalance(tripId);
+        TripBalanceResponse expenseBalance = computation.getBalance();
 
-        // 3. Adjust for completed settlements
-        List<Settlement> completedSettlements = settlementRepository.findByTrip_IdAndStatusOrderByCreatedAtDesc(
-                tripId, SettlementStatus.COMPLETED);
+        // 2. Adjust for completed settlements (pre-aggregated in the balance ledger)
+        Map<Long, MemberBalance> ledger = computation.getLedger();
 
         Map<Long, TripBalanceResponse.UserBalanceDetail> adjustedBalances = new HashMap<>(
                 expenseBalance.getUserBalances());
 
-        for (Settlement settlement : completedSettlements) {
-            Long fromUserId = settlement.getFromUser().getId();
-            Long toUserId = settlement.getToUser().getId();
-            BigDecimal amount = settlement.getAmount();
-
-            // Adjust balances
-            TripBalanceResponse.UserBalanceDetail fromBalance = adjustedBalances.get(fromUserId);
-            if (fromBalance != null) {
-                fromBalance.setNetBalance(fromBalance.getNetBalance().add(amount));
-            }
-
-            TripBalanceResponse.UserBalanceDetail toBalance = adjustedBalances.get(toUserId);
-            if (toBalance != null) {
-                toBalance.setNetBalance(toBalance.getNetBalance().subtract(amount));
+        for (TripBalanceResponse.UserBalanceDetail balance : adjustedBalances.values()) {
+            MemberBalance ledgerRow = ledger.get(balance.getUserId());
+            if (ledgerRow != null) {
+                balance.setNetBalance(balance.getNetBalance().add(ledgerRow.getSettlementAdjustment()));
             }
         }
 
+        // 3. Suggest transfers for what is still open after the completed settlements
+        List<TripBalanceResponse.SettlementSuggestion> suggestions = expenseService.generateSettlements(
+                adjustedBalances, computation.getUsersById());
+
         // 4. Create optimized balance response
         return TripBalanceResponse.builder()
                 .tripId(tripId)
                 .totalExpenses(expenseBalance.getTotalExpenses())
+                .unconvertedExpenses(expenseBalance.getUnconvertedExpenses())
                 .currency(expenseBalance.getCurrency())
                 .userBalances(adjustedBalances)
-                .settlements(expenseBalance.getSettlements())
+                .settlements(suggestions)
                 .build();
     }
 
@@ -221,7 +208,8 @@ public class SettlementService {
      * Delete a settlement
      * Only the creator or ORGANIZER can delete
      */
-    public void deleteSettlement(Long tripId, Long settlementId, User currentUser) {
+    @RequireTripRole
+    public void deleteSettlement(@TripId Long tripId, Long settlementId, User currentUser) {
         // 1. Check if settlement exists
         Settlement settlement = settlementRepository.findById(settlementId)
                 .orElseThrow(() -> new ResourceNotFoundException("Settlement not found with id: " + settlementId));
@@ -230,18 +218,21 @@ public class SettlementService {
             throw new UnauthorizedException("Settlement does not belong to this trip");
         }
 
-        // 2. Check if user is the creator or ORGANIZER
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
+        // 2. Check if user is the creator or ORGANIZER (role memoized by the membership check)
         boolean isCreator = settlement.getFromUser().getId().equals(currentUser.getId());
-        boolean isOrganizer = membership.getRole() == MemberRole.ORGANIZER;
+        boolean isOrganizer = tripAccessService.isOrganizer(tripId, currentUser.getId());
 
         if (!isCreator && !isOrganizer) {
             throw new UnauthorizedException("Only the creator or organizers can delete this settlement");
         }
 
-        // 3. Delete settlement
+        // 3. Undo the ledger adjustment of a completed settlement
+        if (settlement.getStatus() == SettlementStatus.COMPLETED) {
+            memberBalanceService.recordSettlement(tripId, settlement.getFromUser().getId(),
+                    settlement.getToUser().getId(), settlement.getAmount().negate());
+        }
+
+        // 4. Delete settlement
         settlementRepository.delete(settlement);
     }
 }
@@ -0,0 +1,199 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.TripMemberRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripAccess;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SERVICE FOR TRIP PERMISSIONS
+ *
+ * Single entry point for "is this user a member / an organizer of this
+ * trip?", used by TripPermissionAspect (@RequireTripRole) and by the
+ * author-or-organizer checks of the trip-scoped services.
+ *
+ * Only members who accepted the invitation count: a PENDING or DECLINED
+ * trip_members row grants no access (find still returns it, so callers can
+ * tell an invitee from a stranger).
+ *
+ * Two levels of caching of (tripId, userId) → TripAccess:
+ * 1. Per-request memo: repeated checks in the same request (e.g. member
+ * check + organizer check in updateExpense) are free
+ * 2. Bounded cross-request cache with a TTL: a warm check costs no query
+ *
+ * Non-members are cached too (empty result), so a denied request does not
+ * hit the database again and again.
+ *
+ * INVALIDATION: TripService publishes a TripMembershipChangedEvent for
+ * every membership change (invite, accept, decline, remove, role change);
+ * the entry is dropped after the commit. The TTL bounds staleness for
+ * changes made outside TripService.
+ */
+@Service
+public class TripAccessService {
+
+    private static final String MEMO_ATTRIBUTE = TripAccessService.class.getName() + ".MEMO";
+
+    @Autowired
+    private TripMemberRepository tripMemberRepository;
+
+    @Value("${trip.access-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${trip.access-cache.max-size:50000}")
+    private int maxSize;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    private record Key(Long tripId, Long userId) {
+    }
+
+    private record Entry(Optional<TripAccess> access, long expiresAtNanos) {
+    }
+
+    // ===== CHECKS =====
+
+    /**
+     * Role and invitation status of the user in the trip (empty if not a member)
+     */
+    public Optional<TripAccess> find(Long tripId, Long userId) {
+        Key key = new Key(tripId, userId);
+
+        // 1. Same request
+        Map<Key, Optional<TripAccess>> memo = requestMemo();
+        if (memo != null) {
+            Optional<TripAccess> memoized = memo.get(key);
+            if (memoized != null) {
+                return memoized;
+            }
+        }
+
+        // 2. Cross-request cache, 3. database
+        long now = System.nanoTime();
+        Entry entry = cache.get(key);
+        Optional<TripAccess> access;
+        if (entry != null && now - entry.expiresAtNanos() < 0) {
+            access = entry.access();
+        } else {
+            access = tripMemberRepository.findAccess(tripId, userId);
+            ensureCapacity(now);
+            cache.put(key, new Entry(access, now + ttlSeconds * 1_000_000_000L));
+        }
+
+        if (memo != null) {
+            memo.put(key, access);
+        }
+        return access;
+    }
+
+    /**
+     * Same as find, empty unless the invitation was accepted
+     */
+    public Optional<TripAccess> findAccepted(Long tripId, Long userId) {
+        return find(tripId, userId).filter(TripAccess::hasAcceptedInvitation);
+    }
+
+    public boolean isMember(Long tripId, Long userId) {
+        return findAccepted(tripId, userId).isPresent();
+    }
+
+    public boolean isOrganizer(Long tripId, Long userId) {
+        return findAccepted(tripId, userId).map(TripAccess::isOrganizer).orElse(false);
+    }
+
+    /**
+     * @throws UnauthorizedException if the user is not an (accepted) member of the trip
+     */
+    public TripAccess requireMember(Long tripId, Long userId) {
+        return findAccepted(tripId, userId)
+                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
+    }
+
+    // ===== INVALIDATION =====
+
+    /**
+     * Drops the cached permissions after the membership change is committed
+     * (immediately if there is no transaction)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(TripMembershipChangedEvent event) {
+        if (event.userId() != null) {
+            invalidate(event.tripId(), event.userId());
+        } else {
+            invalidateTrip(event.tripId());
+        }
+    }
+
+    public void invalidate(Long tripId, Long userId) {
+        Key key = new Key(tripId, userId);
+        cache.remove(key);
+
+        Map<Key, Optional<TripAccess>> memo = requestMemo();
+        if (memo != null) {
+            memo.remove(key);
+        }
+    }
+
+    public void invalidateTrip(Long tripId) {
+        cache.keySet().removeIf(key -> key.tripId().equals(tripId));
+
+        Map<Key, Optional<TripAccess>> memo = requestMemo();
+        if (memo != null) {
+            memo.keySet().removeIf(key -> key.tripId().equals(tripId));
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Map stored in the current HTTP request (null outside a request, e.g.
+     * in scheduled jobs: only the shared cache is used there)
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Key, Optional<TripAccess>> requestMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Map<Key, Optional<TripAccess>> memo = (Map<Key, Optional<TripAccess>>) attributes
+                .getAttribute(MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<>();
+            attributes.setAttribute(MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memo;
+    }
+
+    private void ensureCapacity(long now) {
+        if (cache.size() < maxSize) {
+            return;
+        }
+
+        // 1. Drop expired entries
+        cache.values().removeIf(entry -> now - entry.expiresAtNanos() >= 0);
+        if (cache.size() < maxSize) {
+            return;
+        }
+
+        // 2. Still full: drop ~10% of the entries
+        int toEvict = cache.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<Key> it = cache.keySet().iterator();
+        while (toEvict > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            toEvict--;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+/**
+ * EVENT: THE MEMBERS OF A TRIP HAVE CHANGED
+ *
+ * Published by TripService when a member is invited, accepts/declines,
+ * changes role or is removed (userId set), or when the trip is deleted
+ * (userId null = every member of the trip).
+ *
+ * TripAccessService listens to it to drop its cached permissions.
+ */
+public record TripMembershipChangedEvent(Long tripId, Long userId) {
+
+    public static TripMembershipChangedEvent wholeTrip(Long tripId) {
+        return new TripMembershipChangedEvent(tripId, null);
+    }
+}
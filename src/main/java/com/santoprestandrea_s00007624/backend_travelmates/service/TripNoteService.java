@@ -3,13 +3,16 @@ package com.santoprestandrea_s00007624.backend_travelmates.service;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateNoteRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.UpdateNoteRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripNoteResponse;
-import com.santoprestandrea_s00007624.backend_travelmates.entity.*;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.TripNote;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
 import com.santoprestandrea_s00007624.backend_travelmates.exception.ResourceNotFoundException;
 import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
 import com.santoprestandrea_s00007624.backend_travelmates.mapper.TripNoteMapper;
-import com.santoprestandrea_s00007624.backend_travelmates.repository.TripMemberRepository;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.TripNoteRepository;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.TripRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.UserRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.security.RequireTripRole;
+import com.santoprestandrea_s00007624.backend_travelmates.security.TripId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -35,7 +38,10 @@ public class TripNoteService {
     private TripRepository tripRepository;
 
     @Autowired
-    private TripMemberRepository tripMemberRepository;
+    private UserRepository userRepository;
+
+    @Autowired
+    private TripAccessService tripAccessService;
 
     @Autowired
     private TripNoteMapper tripNoteMapper;
@@ -48,21 +54,15 @@ public class TripNoteService {
      * Create a new note in a trip
      * All trip members can create notes
      */
-    public TripNoteResponse createNote(Long tripId, CreateNoteRequest request, User currentUser) {
-        // 1. Check if trip exists
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new ResourceNotFoundException("Trip not found with id: " + tripId));
-
-        // 2. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 3. Create note
+    @RequireTripRole
+    public TripNoteResponse createNote(@TripId Long tripId, CreateNoteRequest request, User currentUser) {
+        // 1. Create note (trip and membership already checked: a reference is enough)
         TripNote note = tripNoteMapper.toEntity(request);
-        note.setTrip(trip);
-        note.setAuthor(currentUser);
+        note.setTrip(tripRepository.getReferenceById(tripId));
+        // Author as a managed reference: currentUser is the cached principal, not an entity
+        note.setAuthor(userRepository.getReferenceById(currentUser.getId()));
 
-        // 4. Save and return
+        // 2. Save and return
         TripNote savedNote = tripNoteRepository.save(note);
         return tripNoteMapper.toResponse(savedNote);
     }
@@ -75,7 +75,9 @@ public class TripNoteService {
      * Update an existing note
      * Only the author or ORGANIZER can update
      */
-    public TripNoteResponse updateNote(Long tripId, Long noteId, UpdateNoteRequest request, User currentUser) {
+    @RequireTripRole
+    public TripNoteResponse updateNote(@TripId Long tripId, Long noteId, UpdateNoteRequest request,
+            User currentUser) {
         // 1. Check if note exists and belongs to the trip
         TripNote note = tripNoteRepository.findById(noteId)
                 .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + noteId));
@@ -84,12 +86,9 @@ public class TripNoteService {
             throw new UnauthorizedException("Note does not belong to this trip");
         }
 
-        // 2. Check if user is the author or ORGANIZER
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
+        // 2. Check if user is the author or ORGANIZER (role memoized by the membership check)
         boolean isAuthor = note.getAuthor().getId().equals(currentUser.getId());
-        boolean isOrganizer = membership.getRole() == MemberRole.ORGANIZER;
+        boolean isOrganizer = tripAccessService.isOrganizer(tripId, currentUser.getId());
 
         if (!isAuthor && !isOrganizer) {
             throw new UnauthorizedException("Only the author or organizers can update this note");
@@ -111,7 +110,8 @@ public class TripNoteService {
      * Delete a note
      * Only the author or ORGANIZER can delete
      */
-    public void deleteNote(Long tripId, Long noteId, User currentUser) {
+    @RequireTripRole
+    public void deleteNote(@TripId Long tripId, Long noteId, User currentUser) {
         // 1. Check if note exists and belongs to the trip
         TripNote note = tripNoteRepository.findById(noteId)
                 .orElseThrow(() -> new ResourceNotFoundException("Note not found with id: " + noteId));
@@ -120,12 +120,9 @@ public class TripNoteService {
             throw new UnauthorizedException("Note does not belong to this trip");
         }
 
-        // 2. Check if user is the author or ORGANIZER
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
+        // 2. Check if user is the author or ORGANIZER (role memoized by the membership check)
         boolean isAuthor = note.getAuthor().getId().equals(currentUser.getId());
-        boolean isOrganizer = membership.getRole() == MemberRole.ORGANIZER;
+        boolean isOrganizer = tripAccessService.isOrganizer(tripId, currentUser.getId());
 
         if (!isAuthor && !isOrganizer) {
             throw new UnauthorizedException("Only the author or organizers can delete this note");
@@ -143,30 +140,24 @@ public class TripNoteService {
      * Get all notes for a trip with pagination
      * Pinned notes appear first
      */
-    public Page<TripNoteResponse> getNotesByTrip(Long tripId, User currentUser, Pageable pageable) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get notes with pagination
+    @RequireTripRole
+    public Page<TripNoteResponse> getNotesByTrip(@TripId Long tripId, User currentUser, Pageable pageable) {
+        // 1. Get notes with pagination
         Page<TripNote> notes = tripNoteRepository.findByTrip_IdOrderByIsPinnedDescCreatedAtDesc(tripId, pageable);
 
-        // 3. Convert to response
+        // 2. Convert to response
         return notes.map(tripNoteMapper::toResponse);
     }
 
     /**
      * Get all notes for a trip without pagination
      */
-    public List<TripNoteResponse> getAllNotesByTrip(Long tripId, User currentUser) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get all notes
+    @RequireTripRole
+    public List<TripNoteResponse> getAllNotesByTrip(@TripId Long tripId, User currentUser) {
+        // 1. Get all notes
         List<TripNote> notes = tripNoteRepository.findByTrip_IdOrderByIsPinnedDescCreatedAtDesc(tripId);
 
-        // 3. Convert to response
+        // 2. Convert to response
         return notes.stream()
                 .map(tripNoteMapper::toResponse)
                 .collect(Collectors.toList());
@@ -175,15 +166,12 @@ public class TripNoteService {
     /**
      * Get pinned notes only
      */
-    public List<TripNoteResponse> getPinnedNotes(Long tripId, User currentUser) {
-        // 1. Check if user is a member
-        TripMember membership = tripMemberRepository.findByTrip_IdAndUser_Id(tripId, currentUser.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        // 2. Get pinned notes
+    @RequireTripRole
+    public List<TripNoteResponse> getPinnedNotes(@TripId Long tripId, User currentUser) {
+        // 1. Get pinned notes
         List<TripNote> notes = tripNoteRepository.findByTrip_IdAndIsPinnedTrueOrderByCreatedAtDesc(tripId);
 
-        // 3. Convert to response
+        // 2. Convert to response
         return notes.stream()
                 .map(tripNoteMapper::toResponse)
                 .collect(Collectors.toList());
@@ -0,0 +1,250 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripPageResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.TripStatus;
+import com.santoprestandrea_s00007624.backend_travelmates.mapper.TripMapper;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SERVICE: TRIP SEARCH
+ *
+ * Searches the current user's trips by title, destination and description.
+ *
+ * FULL-TEXT MODE (PostgreSQL):
+ * - trips.search_vector is a generated tsvector column (title and
+ * destination weight A, description weight B) with a GIN index, created
+ * once by hand with db/trip-search-fulltext.sql (the app runs no DDL for
+ * it). Whether the column exists is checked at startup.
+ * - Every word of the keyword is a prefix ("par rom" → par:* & rom:*),
+ * so results show up while the user is typing
+ * - Results are ranked with ts_rank, best match first
+ *
+ * LIKE MODE (fallback):
+ * - Used on databases other than PostgreSQL (e.g. H2 in tests), while the
+ * column has not been created yet, or with trip.search.mode=like
+ * - Substring match on the whole keyword, latest trips first
+ *
+ * Both modes only return trips the user is a member of, a page at a time:
+ * the cursor is the offset of the next page (opaque for clients).
+ */
+@Service
+public class TripSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripSearchService.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_TERMS = 8;
+    private static final int MAX_TERM_LENGTH = 50;
+
+    private static final Pattern TERM = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private static final String SEARCH_VECTOR_EXISTS_SQL = "SELECT EXISTS (SELECT 1 FROM information_schema.columns "
+            + "WHERE table_schema = current_schema() AND table_name = 'trips' AND column_name = 'search_vector')";
+
+    private static final String SEARCH_INDEX_VALID_SQL = "SELECT EXISTS (SELECT 1 FROM pg_index i "
+            + "JOIN pg_class c ON c.oid = i.indexrelid "
+            + "WHERE c.relname = 'idx_trips_search_vector' "
+            + "AND c.relnamespace = (SELECT n.oid FROM pg_namespace n WHERE n.nspname = current_schema()) "
+            + "AND i.indisvalid)";
+
+    /**
+     * Summary columns and member count of the user's trips (see TripSummary)
+     */
+    private static final String SUMMARY_SELECT = "SELECT t.id, t.title, t.description, t.destination, "
+            + "t.start_date, t.end_date, t.budget, t.currency, t.cover_image_url, t.status, "
+            + "t.created_at, t.updated_at, "
+            + "(SELECT COUNT(*) FROM trip_members c WHERE c.trip_id = t.id) AS member_count "
+            + "FROM trips t "
+            + "JOIN trip_members m ON m.trip_id = t.id AND m.user_id = ? ";
+
+    private static final String FULL_TEXT_SEARCH_SQL = SUMMARY_SELECT
+            + "CROSS JOIN to_tsquery('simple'::regconfig, ?) q "
+            + "WHERE t.search_vector @@ q "
+            + "ORDER BY ts_rank(t.search_vector, q) DESC, t.id DESC "
+            + "LIMIT ? OFFSET ?";
+
+    private static final String LIKE_SEARCH_SQL = SUMMARY_SELECT
+            + "WHERE (LOWER(t.title) LIKE ? OR LOWER(t.destination) LIKE ? "
+            + "OR LOWER(COALESCE(t.description, '')) LIKE ?) "
+            + "ORDER BY t.start_date DESC, t.id DESC "
+            + "LIMIT ? OFFSET ?";
+
+    private static final RowMapper<TripSummary> SUMMARY_ROW_MAPPER = (rs, rowNum) -> new TripSummary(
+            rs.getLong("id"),
+            rs.getString("title"),
+            rs.getString("description"),
+            rs.getString("destination"),
+            rs.getObject("start_date", LocalDate.class),
+            rs.getObject("end_date", LocalDate.class),
+            rs.getBigDecimal("budget"),
+            rs.getString("currency"),
+            rs.getString("cover_image_url"),
+            TripStatus.valueOf(rs.getString("status")),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("updated_at", LocalDateTime.class),
+            rs.getLong("member_count"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TripMapper tripMapper;
+
+    /**
+     * auto: full-text on PostgreSQL when the search column exists, LIKE otherwise
+     * fulltext: same as auto, but log an error if full-text is unavailable
+     * like: always LIKE
+     */
+    @Value("${trip.search.mode:auto}")
+    private String mode;
+
+    /**
+     * Set once the search column has been found (LIKE is used until then)
+     */
+    private volatile boolean fullTextReady;
+
+    // ===== SCHEMA =====
+
+    /**
+     * Checks whether db/trip-search-fulltext.sql has been applied
+     * (read-only: nothing is created here)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void detectFullText() {
+        if ("like".equalsIgnoreCase(mode)) {
+            logger.info("Trip search: LIKE mode (trip.search.mode=like)");
+            return;
+        }
+
+        try {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equalsIgnoreCase(database)) {
+                logUnavailable("database is " + database);
+                return;
+            }
+
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(SEARCH_VECTOR_EXISTS_SQL, Boolean.class))) {
+                logUnavailable("trips.search_vector missing, run db/trip-search-fulltext.sql");
+                return;
+            }
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(SEARCH_INDEX_VALID_SQL, Boolean.class))) {
+                logger.warn("Trip search: idx_trips_search_vector missing or invalid, "
+                        + "full-text queries will not use an index (see db/trip-search-fulltext.sql)");
+            }
+
+            fullTextReady = true;
+            logger.info("Trip search: full-text mode (trips.search_vector)");
+        } catch (DataAccessException e) {
+            logUnavailable(e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    // ===== SEARCH =====
+
+    /**
+     * SEARCH THE USER'S TRIPS
+     *
+     * @param keyword one or more words
+     * @param cursor  nextCursor of the previous page, null for the first page
+     * @param size    page size (1..MAX_PAGE_SIZE), null for the default
+     */
+    public TripPageResponse search(Long userId, String keyword, String cursor, Integer size) {
+        // 1. Validate parameters
+        if (keyword == null || keyword.isBlank()) {
+            throw new IllegalArgumentException("Keyword is required");
+        }
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        int offset = decodeCursor(cursor);
+
+        // 2. Fetch one extra row to know if there is another page
+        List<TripSummary> trips;
+        String query = fullTextReady ? toPrefixQuery(keyword) : null;
+        if (query != null) {
+            trips = jdbcTemplate.query(FULL_TEXT_SEARCH_SQL, SUMMARY_ROW_MAPPER,
+                    userId, query, pageSize + 1, offset);
+        } else {
+            String pattern = "%" + keyword.trim().toLowerCase(Locale.ROOT) + "%";
+            trips = jdbcTemplate.query(LIKE_SEARCH_SQL, SUMMARY_ROW_MAPPER,
+                    userId, pattern, pattern, pattern, pageSize + 1, offset);
+        }
+
+        boolean hasMore = trips.size() > pageSize;
+        if (hasMore) {
+            trips = trips.subList(0, pageSize);
+        }
+
+        return TripPageResponse.builder()
+                .items(tripMapper.toSummaryResponseList(trips))
+                .nextCursor(hasMore ? String.valueOf(offset + pageSize) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * "Paris  weekend!" → "paris:* & weekend:*"
+     *
+     * Only letters and digits are kept, so the result is always a valid
+     * tsquery. Null if the keyword has no searchable word.
+     */
+    static String toPrefixQuery(String keyword) {
+        List<String> terms = new ArrayList<>();
+        Matcher matcher = TERM.matcher(keyword.toLowerCase(Locale.ROOT));
+        while (matcher.find() && terms.size() < MAX_TERMS) {
+            String term = matcher.group();
+            if (term.length() > MAX_TERM_LENGTH) {
+                term = term.substring(0, MAX_TERM_LENGTH);
+            }
+            terms.add(term + ":*");
+        }
+        return terms.isEmpty() ? null : String.join(" & ", terms);
+    }
+
+    private static int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(cursor);
+            if (offset < 0) {
+                throw new NumberFormatException();
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private void logUnavailable(String reason) {
+        if ("fulltext".equalsIgnoreCase(mode)) {
+            logger.error("Trip search: full-text unavailable ({}), falling back to LIKE", reason);
+        } else {
+            logger.info("Trip search: LIKE mode ({})", reason);
+        }
+    }
+}
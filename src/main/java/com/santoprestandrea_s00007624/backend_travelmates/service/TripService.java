@@ -2,14 +2,24 @@ package com.santoprestandrea_s00007624.backend_travelmates.service;
 
 
 
+import com.santoprestandrea_s00007624.backend_travelmates.config.CacheConfig;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.InviteMemberRequest;
 import com.santoprestandrea_s00007624.backend_travelmates.dto.request.UpdateTripRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripPageResponse;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.*;
 import com.santoprestandrea_s00007624.backend_travelmates.exception.ResourceNotFoundException;
 import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.TripMemberRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.mapper.TripMapper;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.TripRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.projection.TripSummary;
+import com.santoprestandrea_s00007624.backend_travelmates.security.ActingUserId;
+import com.santoprestandrea_s00007624.backend_travelmates.security.RequireTripRole;
+import com.santoprestandrea_s00007624.backend_travelmates.security.TripId;
+import com.santoprestandrea_s00007624.backend_travelmates.security.TripPermission;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,13 +32,15 @@ import java.util.List;
  * Manages all business logic for trips:
  * - Create/update/delete trips
  * - Manage members (invitations, removals, role changes)
- * - Authorization checks
+ * - Authorization checks (@RequireTripRole, cached in TripAccessService)
  * - Business logic validations
  */
 @Service
 @Transactional
 public class TripService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private TripRepository tripRepository;
 
@@ -38,6 +50,21 @@ public class TripService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ExpenseNormalizationService expenseNormalizationService;
+
+    @Autowired
+    private TripAccessService tripAccessService;
+
+    @Autowired
+    private MemberBalanceService memberBalanceService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TripMapper tripMapper;
+
     // ===== CREATE =====
 
     /**
@@ -71,6 +98,7 @@ public class TripService {
 
         savedTrip.addMember(organizerMember);
         tripMemberRepository.save(organizerMember);
+        eventPublisher.publishEvent(new TripMembershipChangedEvent(savedTrip.getId(), creatorId));
 
         return savedTrip;
     }
@@ -87,6 +115,30 @@ public class TripService {
                 .orElseThrow(() -> new ResourceNotFoundException("Trip not found with ID: " + tripId));
     }
 
+    /**
+     * FIND TRIP FOR THE DETAIL PAGE
+     *
+     * Trip, members and their users in one query. Membership is checked on
+     * the loaded members, so no extra lookup is needed.
+     *
+     * @throws ResourceNotFoundException if the trip does not exist
+     * @throws UnauthorizedException     if the user is not a member (or has not accepted the invitation)
+     */
+    @Transactional(readOnly = true)
+    public Trip findDetailForMember(Long tripId, Long userId) {
+        Trip trip = tripRepository.findWithMembersById(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("Trip not found with ID: " + tripId));
+
+        boolean isMember = trip.getMembers().stream()
+                .anyMatch(member -> member.getUser().getId().equals(userId)
+                        && "ACCEPTED".equals(member.getInvitationStatus()));
+        if (!isMember) {
+            throw new UnauthorizedException("You are not a member of this trip");
+        }
+
+        return trip;
+    }
+
     /**
      * FIND ALL TRIPS FOR A USER
      */
@@ -94,6 +146,50 @@ public class TripService {
         return tripRepository.findByMembers_User_Id(userId);
     }
 
+    /**
+     * PAGE OF THE USER'S TRIPS (KEYSET PAGINATION)
+     *
+     * A single query: summary columns and member counts come from
+     * TripRepository.findSummariesByUserId, no entity is loaded.
+     *
+     * @param status optional status filter
+     * @param cursor nextCursor of the previous page ("yyyy-MM-dd:id"), null for the first page
+     * @param size   page size (1..MAX_PAGE_SIZE), null for all the trips
+     */
+    @Transactional(readOnly = true)
+    public TripPageResponse findTripPageByUserId(Long userId, TripStatus status, String cursor, Integer size) {
+        if (size != null && (size < 1 || size > MAX_PAGE_SIZE)) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        // 1. Decode the cursor
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        LocalDate cursorDate = after != null ? after.date() : null;
+        Long cursorId = after != null ? after.id() : null;
+
+        // 2. Fetch one extra row to know if there is another page
+        List<TripSummary> trips = tripRepository.findSummariesByUserId(
+                userId, status, cursorDate, cursorId, size != null ? size + 1 : null);
+
+        boolean hasMore = size != null && trips.size() > size;
+        if (hasMore) {
+            trips = trips.subList(0, size);
+        }
+
+        // 3. The cursor of the next page is the last row of this one
+        String nextCursor = null;
+        if (hasMore) {
+            TripSummary last = trips.get(trips.size() - 1);
+            nextCursor = KeysetCursor.encode(last.startDate(), last.id());
+        }
+
+        return TripPageResponse.builder()
+                .items(tripMapper.toSummaryResponseList(trips))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
     /**
      * FIND TRIPS BY STATUS
      */
@@ -108,13 +204,6 @@ public class TripService {
         return tripRepository.findTripsWhereUserIsOrganizer(userId);
     }
 
-    /**
-     * SEARCH TRIPS BY KEYWORD
-     */
-    public List<Trip> searchTrips(String keyword) {
-        return tripRepository.searchTrips(keyword);
-    }
-
     /**
      * COUNT USER'S TRIPS
      */
@@ -137,13 +226,12 @@ public class TripService {
      * @param userId  ID of the user requesting the update
      * @return The updated trip
      */
-    public Trip updateTrip(Long tripId, UpdateTripRequest request, Long userId) {
-        // Find trip
+    @CacheEvict(value = CacheConfig.TRIP_STATISTICS, key = "#tripId")
+    @RequireTripRole(TripPermission.ORGANIZER)
+    public Trip updateTrip(@TripId Long tripId, UpdateTripRequest request, @ActingUserId Long userId) {
+        // Find trip (ORGANIZER role already checked)
         Trip trip = findByIdOrThrow(tripId);
 
-        // Verify user is ORGANIZER
-        checkUserIsOrganizer(trip, userId);
-
         // Validate dates if provided
         LocalDate newStartDate = request.getStartDate() != null ? request.getStartDate() : trip.getStartDate();
         LocalDate newEndDate = request.getEndDate() != null ? request.getEndDate() : trip.getEndDate();
@@ -163,6 +251,8 @@ public class TripService {
             trip.setEndDate(request.getEndDate());
         if (request.getBudget() != null)
             trip.setBudget(request.getBudget());
+        boolean currencyChanged = request.getCurrency() != null
+                && !request.getCurrency().equals(trip.getCurrency());
         if (request.getCurrency() != null)
             trip.setCurrency(request.getCurrency());
         if (request.getCoverImageUrl() != null)
@@ -170,7 +260,14 @@ public class TripService {
         if (request.getStatus() != null)
             trip.setStatus(request.getStatus());
 
-        return tripRepository.save(trip);
+        trip = tripRepository.save(trip);
+
+        // Expenses are stored in the trip currency too: convert them again
+        if (currencyChanged) {
+            expenseNormalizationService.renormalizeTrip(tripId);
+        }
+
+        return trip;
     }
 
     /**
@@ -178,9 +275,9 @@ public class TripService {
      *
      * Only ORGANIZER can change status.
      */
-    public Trip updateTripStatus(Long tripId, TripStatus newStatus, Long userId) {
+    @RequireTripRole(TripPermission.ORGANIZER)
+    public Trip updateTripStatus(@TripId Long tripId, TripStatus newStatus, @ActingUserId Long userId) {
         Trip trip = findByIdOrThrow(tripId);
-        checkUserIsOrganizer(trip, userId);
 
         trip.setStatus(newStatus);
         return tripRepository.save(trip);
@@ -192,13 +289,16 @@ public class TripService {
      * DELETE TRIP
      *
      * Only ORGANIZER can delete.
-     * Also deletes all members (cascade).
+     * Also deletes all members (cascade) and the balance ledger rows.
      */
-    public void deleteTrip(Long tripId, Long userId) {
+    @CacheEvict(value = CacheConfig.TRIP_STATISTICS, key = "#tripId")
+    @RequireTripRole(TripPermission.ORGANIZER)
+    public void deleteTrip(@TripId Long tripId, @ActingUserId Long userId) {
         Trip trip = findByIdOrThrow(tripId);
-        checkUserIsOrganizer(trip, userId);
 
+        memberBalanceService.deleteTripLedger(tripId);
         tripRepository.delete(trip);
+        eventPublisher.publishEvent(TripMembershipChangedEvent.wholeTrip(tripId));
     }
 
     // ===== MEMBER MANAGEMENT =====
@@ -217,11 +317,8 @@ public class TripService {
      * @param inviterId ID of the inviter
      * @return The created TripMember
      */
-    public TripMember inviteMember(Long tripId, InviteMemberRequest request, Long inviterId) {
-        // Check permissions
-        Trip trip = findByIdOrThrow(tripId);
-        checkUserIsOrganizer(trip, inviterId);
-
+    @RequireTripRole(TripPermission.ORGANIZER)
+    public TripMember inviteMember(@TripId Long tripId, InviteMemberRequest request, @ActingUserId Long inviterId) {
         // Find user to invite
         User userToInvite = userService.findByEmail(request.getUserEmail())
                 .orElseThrow(
@@ -234,13 +331,15 @@ public class TripService {
 
         // Create member
         TripMember newMember = TripMember.builder()
-                .trip(trip)
+                .trip(tripRepository.getReferenceById(tripId))
                 .user(userToInvite)
                 .role(request.getRole())
                 .invitationStatus("PENDING")
                 .build();
 
-        return tripMemberRepository.save(newMember);
+        TripMember saved = tripMemberRepository.save(newMember);
+        eventPublisher.publishEvent(new TripMembershipChangedEvent(tripId, userToInvite.getId()));
+        return saved;
     }
 
     /**
@@ -257,7 +356,9 @@ public class TripService {
         }
 
         member.setInvitationStatus("ACCEPTED");
-        return tripMemberRepository.save(member);
+        TripMember saved = tripMemberRepository.save(member);
+        eventPublisher.publishEvent(new TripMembershipChangedEvent(tripId, userId));
+        return saved;
     }
 
     /**
@@ -269,6 +370,7 @@ public class TripService {
 
         member.setInvitationStatus("DECLINED");
         tripMemberRepository.save(member);
+        eventPublisher.publishEvent(new TripMembershipChangedEvent(tripId, userId));
     }
 
     /**
@@ -277,10 +379,8 @@ public class TripService {
      * Only ORGANIZER can remove members.
      * Cannot remove themselves if they are the only ORGANIZER.
      */
-    public void removeMember(Long tripId, Long memberUserId, Long requesterId) {
-        Trip trip = findByIdOrThrow(tripId);
-        checkUserIsOrganizer(trip, requesterId);
-
+    @RequireTripRole(TripPermission.ORGANIZER)
+    public void removeMember(@TripId Long tripId, Long memberUserId, @ActingUserId Long requesterId) {
         // Verify member exists
         TripMember member = tripMemberRepository.findByUser_IdAndTrip_Id(memberUserId, tripId)
                 .orElseThrow(() -> new ResourceNotFoundException("Member not found in this trip"));
@@ -294,6 +394,7 @@ public class TripService {
         }
 
         tripMemberRepository.delete(member);
+        eventPublisher.publishEvent(new TripMembershipChangedEvent(tripId, memberUserId));
     }
 
     /**
@@ -301,10 +402,9 @@ public class TripService {
      *
      * Only ORGANIZER can change roles.
      */
-    public TripMember updateMemberRole(Long tripId, Long memberUserId, MemberRole newRole, Long requesterId) {
-        Trip trip = findByIdOrThrow(tripId);
-        checkUserIsOrganizer(trip, requesterId);
-
+    @RequireTripRole(TripPermission.ORGANIZER)
+    public TripMember updateMemberRole(@TripId Long tripId, Long memberUserId, MemberRole newRole,
+            @ActingUserId Long requesterId) {
         TripMember member = tripMemberRepository.findByUser_IdAndTrip_Id(memberUserId, tripId)
                 .orElseThrow(() -> new ResourceNotFoundException("Member not found"));
 
@@ -317,7 +417,9 @@ public class TripService {
         }
 
         member.setRole(newRole);
-        return tripMemberRepository.save(member);
+        TripMember saved = tripMemberRepository.save(member);
+        eventPublisher.publishEvent(new TripMembershipChangedEvent(tripId, memberUserId));
+        return saved;
     }
 
     /**
@@ -336,27 +438,13 @@ public class TripService {
 
     // ===== AUTHORIZATION CHECKS =====
 
-    /**
-     * CHECK IF USER IS ORGANIZER
-     *
-     * Throws exception if not.
-     */
-    private void checkUserIsOrganizer(Trip trip, Long userId) {
-        TripMember member = tripMemberRepository.findByUser_IdAndTrip_Id(userId, trip.getId())
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this trip"));
-
-        if (!member.isOrganizer()) {
-            throw new UnauthorizedException("Only organizers can perform this action");
-        }
-    }
-
     /**
      * CHECK IF USER IS MEMBER
      *
      * Throws exception if not.
      */
     public void checkUserIsMember(Trip trip, Long userId) {
-        if (!tripMemberRepository.existsByUser_IdAndTrip_Id(userId, trip.getId())) {
+        if (!tripAccessService.isMember(trip.getId(), userId)) {
             throw new UnauthorizedException("You are not a member of this trip");
         }
     }
@@ -0,0 +1,141 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.config.CacheConfig;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripSpendingStatisticsResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripSpendingStatisticsResponse.CategoryTotal;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripSpendingStatisticsResponse.DailyTotal;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripSpendingStatisticsResponse.PayerTotal;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.exception.ResourceNotFoundException;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.ExpenseRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.TripRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * SERVICE: TRIP SPENDING STATISTICS
+ *
+ * Builds the statistics of a trip from one multi-aggregate query
+ * (ExpenseRepository.getSpendingStatistics) and caches the result per trip.
+ *
+ * Expenses without an exchange rate to the trip currency are counted in
+ * numberOfExpenses and unconvertedExpenses but left out of every total.
+ *
+ * The cache entry is evicted by every write that changes the numbers:
+ * expense create/update/delete, trip update (budget/currency), trip
+ * renormalization. The caller is responsible for the membership check.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TripStatisticsService {
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    /**
+     * GET TRIP SPENDING STATISTICS
+     */
+    @Cacheable(value = CacheConfig.TRIP_STATISTICS, key = "#tripId")
+    public TripSpendingStatisticsResponse getStatistics(Long tripId) {
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
+
+        // 1. One scan, four aggregations
+        List<CategoryTotal> byCategory = new ArrayList<>();
+        List<DailyTotal> byDay = new ArrayList<>();
+        List<PayerTotal> topPayers = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        long count = 0;
+        long unconverted = 0;
+
+        for (Object[] row : expenseRepository.getSpendingStatistics(tripId)) {
+            BigDecimal sum = row[6] != null ? (BigDecimal) row[6] : BigDecimal.ZERO;
+            long rowCount = ((Number) row[7]).longValue();
+
+            switch ((String) row[0]) {
+                case "CATEGORY" -> byCategory.add(CategoryTotal.builder()
+                        .category(ExpenseCategory.valueOf((String) row[1]))
+                        .total(sum)
+                        .count(rowCount)
+                        .build());
+                case "DAY" -> byDay.add(DailyTotal.builder()
+                        .date(toLocalDate(row[2]))
+                        .total(sum)
+                        .build());
+                case "PAYER" -> topPayers.add(PayerTotal.builder()
+                        .userId(((Number) row[3]).longValue())
+                        .name(fullName((String) row[4], (String) row[5]))
+                        .total(sum)
+                        .count(rowCount)
+                        .build());
+                default -> {
+                    total = sum;
+                    count = rowCount;
+                    unconverted = ((Number) row[8]).longValue();
+                }
+            }
+        }
+
+        byCategory.sort(Comparator.comparing(CategoryTotal::getTotal).reversed());
+        topPayers.sort(Comparator.comparing(PayerTotal::getTotal).reversed());
+
+        // 2. Budget burn-down: running total per day
+        BigDecimal budget = trip.getBudget();
+        byDay.sort(Comparator.comparing(DailyTotal::getDate));
+        BigDecimal cumulative = BigDecimal.ZERO;
+        for (DailyTotal day : byDay) {
+            cumulative = cumulative.add(day.getTotal());
+            day.setCumulative(cumulative);
+            day.setBudgetRemaining(budget != null ? budget.subtract(cumulative) : null);
+        }
+
+        // Average of the expenses that are part of the total
+        long converted = count - unconverted;
+        BigDecimal average = converted > 0
+                ? total.divide(BigDecimal.valueOf(converted), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        BigDecimal budgetUsedPercentage = budget != null && budget.signum() > 0
+                ? total.multiply(BigDecimal.valueOf(100)).divide(budget, 2, RoundingMode.HALF_UP)
+                : null;
+
+        return TripSpendingStatisticsResponse.builder()
+                .tripId(tripId)
+                .currency(trip.getCurrency())
+                .totalExpenses(total)
+                .numberOfExpenses(count)
+                .unconvertedExpenses(unconverted)
+                .averageExpense(average)
+                .budget(budget)
+                .budgetRemaining(budget != null ? budget.subtract(total) : null)
+                .budgetUsedPercentage(budgetUsedPercentage)
+                .byCategory(byCategory)
+                .byDay(byDay)
+                .topPayers(topPayers)
+                .build();
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    private String fullName(String firstName, String lastName) {
+        return ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+    }
+}
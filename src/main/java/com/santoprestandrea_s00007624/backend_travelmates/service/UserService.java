@@ -2,7 +2,10 @@ package com.santoprestandrea_s00007624.backend_travelmates.service;
 
 import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
 import com.santoprestandrea_s00007624.backend_travelmates.entity.UserRole;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.RefreshTokenRepository;
 import com.santoprestandrea_s00007624.backend_travelmates.repository.UserRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.security.PrincipalCache;
+import com.santoprestandrea_s00007624.backend_travelmates.security.TokenRevocationList;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.santoprestandrea_s00007624.backend_travelmates.exception.EmailAlreadyExistsException;
@@ -17,10 +20,17 @@ import java.util.List;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final RefreshTokenRepository refreshTokenRepository;
 
     // Constructor Injection (best practice)
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, PrincipalCache principalCache,
+            TokenRevocationList tokenRevocationList, RefreshTokenRepository refreshTokenRepository) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.tokenRevocationList = tokenRevocationList;
+        this.refreshTokenRepository = refreshTokenRepository;
     }
 
     // ===== CREATE =====
@@ -113,25 +123,51 @@ public class UserService {
             existingUser.setBio(updatedData.getBio());
         }
 
+        principalCache.invalidate(id);
         return userRepository.save(existingUser);
     }
 
     public User updateProfileImage(Long id, String imageUrl) {
         User user = findByIdOrThrow(id);
         user.setProfileImageUrl(imageUrl);
+        principalCache.invalidate(id);
         return userRepository.save(user);
     }
 
+    /**
+     * Disables the account and revokes its tokens: they stay invalid even
+     * if the account is activated again.
+     */
     public void deactivateUser(Long id) {
         User user = findByIdOrThrow(id);
         user.setIsActive(false);
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        principalCache.invalidate(id);
+        refreshTokenRepository.revokeAllForUser(id, LocalDateTime.now());
+        tokenRevocationList.userDisabled(id);
+        tokenRevocationList.tokenVersionChanged(id, user.getTokenVersion());
     }
 
     public void activateUser(Long id) {
         User user = findByIdOrThrow(id);
         user.setIsActive(true);
         userRepository.save(user);
+        principalCache.invalidate(id);
+        tokenRevocationList.userEnabled(id);
+    }
+
+    /**
+     * REVOKES ALL THE TOKENS OF A USER
+     * Bumps the token version: tokens issued before are rejected.
+     * Refresh tokens are revoked too.
+     */
+    public void revokeTokens(Long id) {
+        User user = findByIdOrThrow(id);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        refreshTokenRepository.revokeAllForUser(id, LocalDateTime.now());
+        tokenRevocationList.tokenVersionChanged(id, user.getTokenVersion());
     }
 
     // ===== DELETE =====
@@ -139,7 +175,10 @@ public class UserService {
         if (!userRepository.existsById(id)) {
             throw new ResourceNotFoundException("User not found with ID: " + id);
         }
+        refreshTokenRepository.deleteByUserId(id);
         userRepository.deleteById(id);
+        principalCache.invalidate(id);
+        tokenRevocationList.userDisabled(id);
     }
 
     // ===== UTILITY =====
@@ -159,6 +198,16 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    /**
+     * UPDATE PASSWORD HASH
+     * Called after a login when the hash was made with a lower cost factor.
+     * Single-column UPDATE: it runs in the background, so it must not write
+     * back a stale copy of the user (e.g. over lastLogin).
+     */
+    public void updatePassword(Long userId, String oldHash, String newHash) {
+        userRepository.updatePasswordHash(userId, oldHash, newHash);
+    }
+
     /**
      * UPDATE LAST LOGIN
      * Called when user logs in
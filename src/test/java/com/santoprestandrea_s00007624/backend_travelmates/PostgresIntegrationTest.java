@@ -0,0 +1,110 @@
+package com.santoprestandrea_s00007624.backend_travelmates;
+
+import com.santoprestandrea_s00007624.backend_travelmates.entity.*;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.TripRepository;
+import com.santoprestandrea_s00007624.backend_travelmates.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * BASE CLASS FOR INTEGRATION TESTS AGAINST POSTGRESQL
+ *
+ * The queries rely on PostgreSQL features (ON CONFLICT, advisory locks,
+ * row-value comparisons), so tests run against a real database in a
+ * container shared by every test class.
+ *
+ * Hibernate statistics are enabled to count the statements a call issues.
+ * Tests seed their own users and trips (unique emails), so they do not
+ * need to clean up after themselves.
+ */
+@SpringBootTest
+@Testcontainers
+public abstract class PostgresIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer POSTGRES = new PostgreSQLContainer("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void databaseProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("jwt.secret", () -> "integration-test-secret-integration-test-secret");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected TripRepository tripRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // ===== STATEMENT COUNTING =====
+
+    /**
+     * Number of JDBC statements prepared while running the action
+     */
+    protected long countStatements(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // ===== TEST DATA =====
+
+    protected User createUser(String firstName) {
+        return userRepository.save(User.builder()
+                .email(firstName.toLowerCase() + "-" + UUID.randomUUID() + "@test.travelmates.com")
+                .password("not-a-real-hash")
+                .firstName(firstName)
+                .lastName("Test")
+                .role(UserRole.TRAVELER)
+                .isActive(true)
+                .build());
+    }
+
+    /**
+     * Creates a trip organized by the first user, with the others as participants
+     */
+    protected Trip createTrip(List<User> users) {
+        Trip trip = Trip.builder()
+                .title("Test trip")
+                .destination("Rome")
+                .startDate(LocalDate.now().minusDays(10))
+                .endDate(LocalDate.now().plusDays(10))
+                .build();
+
+        for (int i = 0; i < users.size(); i++) {
+            trip.addMember(TripMember.builder()
+                    .user(users.get(i))
+                    .role(i == 0 ? MemberRole.ORGANIZER : MemberRole.PARTICIPANT)
+                    .build());
+        }
+        return tripRepository.save(trip);
+    }
+
+    protected List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(createUser("Member" + i));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,126 @@
+package com.santoprestandrea_s00007624.backend_travelmates.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LOGIN RATE LIMITER: TOKEN BUCKETS PER IP AND PER EMAIL
+ *
+ * Time is passed explicitly (System.nanoTime() instants), so refills are
+ * tested without sleeping.
+ * IP bucket: 3 attempts, 1 token per second.
+ * Email bucket: 2 attempts, 1 token every 10 seconds.
+ */
+class InMemoryLoginRateLimiterTest {
+
+    private static final long T0 = TimeUnit.HOURS.toNanos(1);
+
+    private InMemoryLoginRateLimiter limiter;
+
+    @BeforeEach
+    void createLimiter() {
+        limiter = new InMemoryLoginRateLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "ipCapacity", 3);
+        ReflectionTestUtils.setField(limiter, "ipRefillPerMinute", 60);
+        ReflectionTestUtils.setField(limiter, "emailCapacity", 2);
+        ReflectionTestUtils.setField(limiter, "emailRefillPerMinute", 6);
+    }
+
+    @Test
+    void emailIsLockedOutAcrossIpsUntilItRefills() {
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", "victim@test.com", T0));
+        assertEquals(0, limiter.tryAcquire("10.0.0.2", "victim@test.com", T0));
+
+        assertEquals(10, limiter.tryAcquire("10.0.0.3", "Victim@Test.com ", T0));
+
+        // Other accounts are not affected
+        assertEquals(0, limiter.tryAcquire("10.0.0.3", "other@test.com", T0));
+
+        // One token back after 10 seconds, not before
+        assertTrue(limiter.tryAcquire("10.0.0.4", "victim@test.com", T0 + seconds(9)) > 0);
+        assertEquals(0, limiter.tryAcquire("10.0.0.5", "victim@test.com", T0 + seconds(10)));
+        assertTrue(limiter.tryAcquire("10.0.0.6", "victim@test.com", T0 + seconds(10)) > 0);
+    }
+
+    @Test
+    void ipIsLockedOutAcrossEmailsUntilItRefills() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1", "user" + i + "@test.com", T0));
+        }
+
+        assertEquals(1, limiter.tryAcquire("10.0.0.1", "user3@test.com", T0));
+
+        // Other clients are not affected
+        assertEquals(0, limiter.tryAcquire("10.0.0.2", "user3@test.com", T0));
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", "user4@test.com", T0 + seconds(1)));
+        assertEquals(1, limiter.tryAcquire("10.0.0.1", "user5@test.com", T0 + seconds(1)));
+    }
+
+    @Test
+    void attemptRejectedByIpDoesNotSpendTheEmailBudget() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("10.0.0.1", "spray" + i + "@test.com", T0);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("10.0.0.1", "victim@test.com", T0) > 0);
+        }
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.2", "victim@test.com", T0));
+        assertEquals(0, limiter.tryAcquire("10.0.0.3", "victim@test.com", T0));
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToCapacity() {
+        limiter.tryAcquire("10.0.0.1", "user@test.com", T0);
+
+        long later = T0 + TimeUnit.HOURS.toNanos(1);
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", "user@test.com", later));
+        assertEquals(0, limiter.tryAcquire("10.0.0.2", "user@test.com", later));
+        assertTrue(limiter.tryAcquire("10.0.0.3", "user@test.com", later) > 0);
+    }
+
+    @Test
+    void successfulLoginRestoresTheEmailBudget() {
+        limiter.tryAcquire("10.0.0.1", "user@test.com", T0);
+        limiter.tryAcquire("10.0.0.1", "user@test.com", T0);
+        assertTrue(limiter.tryAcquire("10.0.0.2", "user@test.com", T0) > 0);
+
+        limiter.onSuccess("10.0.0.1", "user@test.com");
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.2", "user@test.com", T0));
+    }
+
+    @Test
+    void onlyFullBucketsAreEvicted() {
+        limiter.tryAcquire("10.0.0.1", "user@test.com", T0);
+        assertEquals(2, limiter.bucketCount());
+
+        // IP bucket full again after 1 s, email bucket after 10 s
+        limiter.evictIdleBuckets(T0 + seconds(1));
+        assertEquals(1, limiter.bucketCount());
+
+        limiter.evictIdleBuckets(T0 + seconds(10));
+        assertEquals(0, limiter.bucketCount());
+    }
+
+    @Test
+    void disabledLimiterAllowsEveryAttempt() {
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1", "user@test.com", T0));
+        }
+    }
+
+    private long seconds(long seconds) {
+        return TimeUnit.SECONDS.toNanos(seconds);
+    }
+}
@@ -0,0 +1,65 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndNewlines() throws IOException {
+        String csv = "description,notes\n"
+                + "\"Dinner, day 1\",\"say \"\"hi\"\"\"\n"
+                + "\"line one\nline two\",\"a\r\nb\"\n";
+
+        assertEquals(List.of(
+                List.of("description", "notes"),
+                List.of("Dinner, day 1", "say \"hi\""),
+                List.of("line one\nline two", "a\r\nb")), readAll(csv, 100));
+    }
+
+    @Test
+    void crlfAndLfLineEndingsAreBothRecordSeparators() throws IOException {
+        String csv = "a,b\r\n1,2\n\"3\",4\r\n5,";
+
+        assertEquals(List.of(
+                List.of("a", "b"),
+                List.of("1", "2"),
+                List.of("3", "4"),
+                List.of("5", "")), readAll(csv, 100));
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertEquals(List.of(), readAll("", 100));
+    }
+
+    @Test
+    void unterminatedQuoteIsRejected() {
+        assertThrows(CsvReader.CsvFormatException.class, () -> readAll("a,\"never closed\nb,c\n", 100));
+    }
+
+    @Test
+    void fieldLongerThanTheLimitIsRejected() throws IOException {
+        assertEquals(List.of(List.of("12345")), readAll("12345", 5));
+        assertThrows(CsvReader.CsvFormatException.class, () -> readAll("123456", 5));
+        assertThrows(CsvReader.CsvFormatException.class, () -> readAll("\"12,456\"", 5));
+    }
+
+    private List<List<String>> readAll(String csv, int maxFieldLength) throws IOException {
+        CsvReader reader = new CsvReader(new BufferedReader(new StringReader(csv)), maxFieldLength);
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,90 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.BulkImportResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripBalanceResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BULK IMPORT: A ROW FAILING INSIDE A CHUNK
+ *
+ * The chunk is rolled back and its rows retried one by one: only the bad
+ * row is rejected, every other row is saved exactly once (ledger
+ * included), and the trip statistics are evicted after the import.
+ */
+class ExpenseImportServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ExpenseImportService expenseImportService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private TripStatisticsService tripStatisticsService;
+
+    @Test
+    void rowFailingMidChunkIsRejectedAloneAndOthersAreSavedOnce() throws IOException {
+        List<User> users = createUsers(3);
+        Trip trip = createTrip(users);
+        User payer = users.get(0);
+        User outsider = createUser("Outsider");
+        long a = users.get(0).getId();
+        long b = users.get(1).getId();
+        long c = users.get(2).getId();
+
+        // Cached before the import
+        assertEquals(0, BigDecimal.ZERO.compareTo(tripStatisticsService.getStatistics(trip.getId()).getTotalExpenses()));
+
+        String csv = "type,description,amount,currency,category,date,splitType,participantIds,forUserId\r\n"
+                + "SHARED,\"Dinner, day 1\",30.00,EUR,FOOD,2026-01-10,EQUAL," + a + ";" + b + ";" + c + ",\r\n"
+                + "SHARED,Taxi,12.00,EUR,TRANSPORT,2026-01-10,EQUAL," + a + ";" + b + ",\r\n"
+                + "SHARED,Museum,20.00,EUR,ACTIVITIES,2026-01-11,EQUAL," + a + ";" + outsider.getId() + ",\r\n"
+                + "PERSONAL,Sunscreen,8.00,EUR,SHOPPING,2026-01-11,,," + b + "\r\n"
+                + "SHARED,\"Hotel\nsecond night\",60.00,EUR,ACCOMMODATION,2026-01-12,EQUAL,"
+                + a + ";" + b + ";" + c + ",\r\n";
+
+        BulkImportResponse report = expenseImportService.importCsv(
+                trip.getId(), new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), payer);
+
+        assertEquals(5, report.getTotalRows());
+        assertEquals(4, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertFalse(report.isAborted());
+        assertEquals(1, report.getErrors().size());
+        assertEquals(3, report.getErrors().get(0).getRow());
+        assertTrue(report.getErrors().get(0).getMessage().contains("is not a member"),
+                report.getErrors().get(0).getMessage());
+
+        // Ledger: each surviving row counted once despite the rolled-back chunk
+        TripBalanceResponse balance = expenseService.calculateTripBalance(trip.getId(), payer);
+        assertEquals(0, new BigDecimal("110.00").compareTo(balance.getTotalExpenses()));
+        Map<Long, BigDecimal> owed = Map.of(
+                a, new BigDecimal("36.00"),
+                b, new BigDecimal("44.00"),
+                c, new BigDecimal("30.00"));
+        balance.getUserBalances().forEach((userId, detail) -> {
+            BigDecimal paid = userId.equals(a) ? new BigDecimal("110.00") : BigDecimal.ZERO;
+            assertEquals(0, paid.compareTo(detail.getTotalPaid()), "paid by " + userId);
+            assertEquals(0, owed.get(userId).compareTo(detail.getTotalOwed()), "owed by " + userId);
+        });
+
+        // Statistics evicted once at the end of the import
+        assertEquals(0, new BigDecimal("110.00").compareTo(
+                tripStatisticsService.getStatistics(trip.getId()).getTotalExpenses()));
+    }
+}
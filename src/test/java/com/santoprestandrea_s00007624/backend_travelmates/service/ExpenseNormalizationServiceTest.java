@@ -0,0 +1,160 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest.SplitDetailRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.SharedExpenseResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripBalanceResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripSpendingStatisticsResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SplitType;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * EXPENSE NORMALIZATION INTO THE TRIP CURRENCY
+ *
+ * - Splits converted one by one still add up to the converted expense:
+ *   the rounding remainder goes to the largest split
+ * - An expense without a rate stays out of every total, is reported as
+ *   unconverted, and is picked up by FxRateJob once its rate is loaded
+ *
+ * Trips use the default currency (EUR); expenses use test currencies.
+ */
+class ExpenseNormalizationServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private TripStatisticsService tripStatisticsService;
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired
+    private FxRateJob fxRateJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void splitsAddUpToTheNormalizedAmount() {
+        insertRate("XTS", "7.0");
+        fxRateService.reload();
+
+        List<User> users = createUsers(3);
+        Trip trip = createTrip(users);
+
+        // 100.00 XTS = 14.29 EUR, but each third converts to 4.76 (3 x 4.76 = 14.28)
+        SharedExpenseResponse dinner = expenseService.createSharedExpense(trip.getId(), expense("100.00", "XTS")
+                .splitType(SplitType.CUSTOM)
+                .splits(List.of(
+                        split(users.get(0), "33.33"),
+                        split(users.get(1), "33.34"),
+                        split(users.get(2), "33.33")))
+                .build(), users.get(0));
+
+        BigDecimal normalized = jdbcTemplate.queryForObject(
+                "SELECT normalized_amount FROM expenses WHERE id = ?", BigDecimal.class, dinner.getId());
+        Map<Long, BigDecimal> splits = normalizedSplits(dinner.getId());
+
+        assertEquals(new BigDecimal("14.29"), normalized);
+        assertEquals(normalized, splits.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+        // Remainder (+0.01) on the largest split
+        assertEquals(new BigDecimal("4.76"), splits.get(users.get(0).getId()));
+        assertEquals(new BigDecimal("4.77"), splits.get(users.get(1).getId()));
+        assertEquals(new BigDecimal("4.76"), splits.get(users.get(2).getId()));
+
+        TripBalanceResponse balance = expenseService.calculateTripBalance(trip.getId(), users.get(0));
+        assertEquals(0, normalized.compareTo(balance.getTotalExpenses()));
+        assertEquals(0L, balance.getUnconvertedExpenses());
+    }
+
+    @Test
+    void expenseWithoutRateIsLeftOutUntilTheRateIsLoaded() {
+        List<User> users = createUsers(2);
+        Trip trip = createTrip(users);
+        List<Long> participants = users.stream().map(User::getId).toList();
+
+        expenseService.createSharedExpense(trip.getId(), expense("40.00", "EUR")
+                .splitType(SplitType.EQUAL)
+                .participantIds(participants)
+                .build(), users.get(0));
+        SharedExpenseResponse foreign = expenseService.createSharedExpense(trip.getId(), expense("90.00", "XTQ")
+                .splitType(SplitType.EQUAL)
+                .participantIds(participants)
+                .build(), users.get(1));
+
+        // 1. No XTQ rate: only the EUR expense is counted
+        assertNull(jdbcTemplate.queryForObject(
+                "SELECT normalized_amount FROM expenses WHERE id = ?", BigDecimal.class, foreign.getId()));
+        assertTotals(trip, users.get(0), "40.00", 1);
+        assertEquals(0, BigDecimal.ZERO.compareTo(expenseService.calculateTripBalance(trip.getId(), users.get(0))
+                .getUserBalances().get(users.get(1).getId()).getTotalPaid()));
+
+        // 2. Still no rate: the backfill only runs its lookup and leaves the trip alone
+        assertEquals(1, countStatements(fxRateJob::backfillNormalizedAmounts));
+        assertTotals(trip, users.get(0), "40.00", 1);
+
+        // 3. Rate loaded (1 EUR = 3 XTQ): the next run converts the expense
+        insertRate("XTQ", "3.0");
+        fxRateService.reload();
+        fxRateJob.backfillNormalizedAmounts();
+
+        assertTotals(trip, users.get(0), "70.00", 0);
+        assertEquals(0, new BigDecimal("30.00").compareTo(expenseService.calculateTripBalance(trip.getId(), users.get(0))
+                .getUserBalances().get(users.get(1).getId()).getTotalPaid()));
+    }
+
+    private void assertTotals(Trip trip, User member, String total, long unconverted) {
+        TripBalanceResponse balance = expenseService.calculateTripBalance(trip.getId(), member);
+        assertEquals(0, new BigDecimal(total).compareTo(balance.getTotalExpenses()), "balance total");
+        assertEquals(unconverted, balance.getUnconvertedExpenses(), "balance unconverted");
+
+        TripSpendingStatisticsResponse statistics = tripStatisticsService.getStatistics(trip.getId());
+        assertEquals(0, new BigDecimal(total).compareTo(statistics.getTotalExpenses()), "statistics total");
+        assertEquals(unconverted, statistics.getUnconvertedExpenses(), "statistics unconverted");
+        assertEquals(2L, statistics.getNumberOfExpenses());
+    }
+
+    private Map<Long, BigDecimal> normalizedSplits(Long expenseId) {
+        return jdbcTemplate.queryForList(
+                        "SELECT user_id, normalized_amount FROM expense_splits WHERE shared_expense_id = ?", expenseId)
+                .stream()
+                .collect(Collectors.toMap(
+                        row -> ((Number) row.get("user_id")).longValue(),
+                        row -> (BigDecimal) row.get("normalized_amount")));
+    }
+
+    private void insertRate(String currency, String rate) {
+        jdbcTemplate.update("INSERT INTO fx_rates (rate_date, currency, rate) VALUES (?, ?, ?) "
+                        + "ON CONFLICT (rate_date, currency) DO NOTHING",
+                java.sql.Date.valueOf("2025-01-01"), currency, new BigDecimal(rate));
+    }
+
+    private CreateSharedExpenseRequest.CreateSharedExpenseRequestBuilder expense(String amount, String currency) {
+        return CreateSharedExpenseRequest.builder()
+                .description("Dinner")
+                .amount(new BigDecimal(amount))
+                .currency(currency)
+                .category(ExpenseCategory.FOOD)
+                .date(LocalDate.now());
+    }
+
+    private SplitDetailRequest split(User user, String amount) {
+        return SplitDetailRequest.builder().userId(user.getId()).amount(new BigDecimal(amount)).build();
+    }
+}
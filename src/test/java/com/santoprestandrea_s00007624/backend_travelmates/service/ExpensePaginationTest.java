@@ -0,0 +1,130 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreatePersonalExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.ExpenseFilterRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.ExpensePageResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.ExpenseResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SplitType;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EXPENSE PAGES: KEYSET CURSOR ACROSS EQUAL DATES
+ *
+ * Most expenses share a date, so a page boundary falls in the middle of a
+ * date. Walking the pages must return every expense exactly once, in
+ * (date DESC, id DESC) order, with and without filters.
+ */
+class ExpensePaginationTest extends PostgresIntegrationTest {
+
+    private static final int PAGE_SIZE = 4;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    private List<User> users;
+    private Trip trip;
+
+    @BeforeEach
+    void seedTrip() {
+        users = createUsers(3);
+        trip = createTrip(users);
+
+        // 17 shared on 3 dates (10 on the same day), 6 personal on the same day
+        for (int i = 0; i < 17; i++) {
+            expenseService.createSharedExpense(trip.getId(), CreateSharedExpenseRequest.builder()
+                    .description("Shared " + i)
+                    .amount(new BigDecimal("30.00"))
+                    .currency("EUR")
+                    .category(i % 2 == 0 ? ExpenseCategory.FOOD : ExpenseCategory.TRANSPORT)
+                    .date(LocalDate.now().minusDays(i < 10 ? 1 : i % 3))
+                    .splitType(SplitType.EQUAL)
+                    .participantIds(users.stream().map(User::getId).toList())
+                    .build(), users.get(i % users.size()));
+        }
+        for (int i = 0; i < 6; i++) {
+            expenseService.createPersonalExpense(trip.getId(), CreatePersonalExpenseRequest.builder()
+                    .description("Personal " + i)
+                    .amount(new BigDecimal("9.00"))
+                    .currency("EUR")
+                    .category(ExpenseCategory.FOOD)
+                    .date(LocalDate.now().minusDays(1))
+                    .forUserId(users.get((i + 1) % users.size()).getId())
+                    .build(), users.get(i % users.size()));
+        }
+    }
+
+    @Test
+    void pagesNeitherOverlapNorSkipAcrossEqualDates() {
+        List<ExpenseResponse> all = walkPages(new ExpenseFilterRequest());
+
+        assertEquals(23, all.size());
+        assertEveryRowOnceInOrder(all);
+    }
+
+    @Test
+    void filteredPagesNeitherOverlapNorSkip() {
+        ExpenseFilterRequest filter = ExpenseFilterRequest.builder()
+                .category(ExpenseCategory.FOOD)
+                .build();
+
+        List<ExpenseResponse> food = walkPages(filter);
+
+        // 9 shared (even i) + 6 personal
+        assertEquals(15, food.size());
+        assertTrue(food.stream().allMatch(expense -> expense.getCategory() == ExpenseCategory.FOOD));
+        assertEveryRowOnceInOrder(food);
+    }
+
+    private List<ExpenseResponse> walkPages(ExpenseFilterRequest filter) {
+        List<ExpenseResponse> all = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            ExpensePageResponse page = expenseService.getTripExpensesPage(trip.getId(), filter, cursor, PAGE_SIZE,
+                    users.get(0));
+            assertTrue(page.getItems().size() <= PAGE_SIZE);
+            all.addAll(page.getItems());
+
+            if (!page.isHasMore()) {
+                assertNull(page.getNextCursor());
+                break;
+            }
+            assertFalse(page.getItems().isEmpty());
+            cursor = page.getNextCursor();
+        } while (true);
+
+        return all;
+    }
+
+    private void assertEveryRowOnceInOrder(List<ExpenseResponse> rows) {
+        Set<Long> ids = new HashSet<>();
+        rows.forEach(row -> assertTrue(ids.add(row.getId()), "returned twice: " + row.getId()));
+
+        List<ExpenseResponse> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(ExpenseResponse::getDate)
+                .thenComparing(ExpenseResponse::getId)
+                .reversed());
+        assertEquals(sorted.stream().map(ExpenseResponse::getId).toList(),
+                rows.stream().map(ExpenseResponse::getId).toList());
+    }
+}
@@ -0,0 +1,168 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreatePersonalExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest.SplitDetailRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.PersonalExpenseResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.SharedExpenseResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripBalanceResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * TRIP BALANCE: LEDGER VS PER-EXPENSE COMPUTATION
+ *
+ * calculateTripBalance reads the pre-aggregated ledger. These tests compare
+ * it with the original algorithm, which walked every expense of the trip:
+ * - totalPaid: amounts of the expenses the member paid
+ * - totalOwed: every split assigned to the member (paid or not)
+ *   plus the unpaid personal expenses charged to the member
+ */
+class ExpenseServiceBalanceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void ledgerBalanceMatchesPerExpenseComputation() {
+        List<User> users = createUsers(4);
+        User anna = users.get(0);
+        User bruno = users.get(1);
+        User carla = users.get(2);
+        User dario = users.get(3);
+        Trip trip = createTrip(users);
+        Long tripId = trip.getId();
+
+        // 1. Shared expenses with every split type (EQUAL leaves a rounding remainder)
+        SharedExpenseResponse dinner = expenseService.createSharedExpense(tripId, sharedExpense("Dinner", "100.00")
+                .splitType(SplitType.EQUAL)
+                .participantIds(List.of(anna.getId(), bruno.getId(), carla.getId()))
+                .build(), anna);
+
+        expenseService.createSharedExpense(tripId, sharedExpense("Museum", "60.00")
+                .splitType(SplitType.PERCENTAGE)
+                .splits(List.of(
+                        SplitDetailRequest.builder().userId(anna.getId()).percentage(new BigDecimal("50")).build(),
+                        SplitDetailRequest.builder().userId(carla.getId()).percentage(new BigDecimal("25")).build(),
+                        SplitDetailRequest.builder().userId(dario.getId()).percentage(new BigDecimal("25")).build()))
+                .build(), bruno);
+
+        expenseService.createSharedExpense(tripId, sharedExpense("Taxi", "45.50")
+                .splitType(SplitType.CUSTOM)
+                .splits(List.of(
+                        SplitDetailRequest.builder().userId(anna.getId()).amount(new BigDecimal("20.50")).build(),
+                        SplitDetailRequest.builder().userId(bruno.getId()).amount(new BigDecimal("25.00")).build()))
+                .build(), carla);
+
+        // 2. Personal expenses, one of them paid back
+        expenseService.createPersonalExpense(tripId, personalExpense("Tickets", "30.00", anna), dario);
+        PersonalExpenseResponse coffee = expenseService.createPersonalExpense(tripId,
+                personalExpense("Coffee", "12.00", bruno), anna);
+        expenseService.markPersonalExpenseAsPaid(tripId, coffee.getId(), bruno);
+
+        // 3. A paid split still counts as owed
+        Long brunoDinnerSplit = dinner.getSplits().stream()
+                .filter(split -> split.getUser().getId().equals(bruno.getId()))
+                .findFirst().orElseThrow().getId();
+        expenseService.markSplitAsPaid(brunoDinnerSplit, bruno);
+
+        TripBalanceResponse balance = expenseService.calculateTripBalance(tripId, anna);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Expense> expenses = entityManager
+                    .createQuery("SELECT e FROM Expense e WHERE e.trip.id = :tripId", Expense.class)
+                    .setParameter("tripId", tripId)
+                    .getResultList();
+
+            BigDecimal totalExpenses = expenses.stream()
+                    .map(Expense::getAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertAmountEquals(totalExpenses, balance.getTotalExpenses(), "totalExpenses");
+
+            for (User user : users) {
+                BigDecimal totalPaid = totalPaid(expenses, user.getId());
+                BigDecimal totalOwed = totalOwed(expenses, user.getId());
+
+                TripBalanceResponse.UserBalanceDetail detail = balance.getUserBalances().get(user.getId());
+                assertNotNull(detail, "balance of " + user.getFirstName());
+                assertAmountEquals(totalPaid, detail.getTotalPaid(), user.getFirstName() + " totalPaid");
+                assertAmountEquals(totalOwed, detail.getTotalOwed(), user.getFirstName() + " totalOwed");
+                assertAmountEquals(totalPaid.subtract(totalOwed), detail.getNetBalance(),
+                        user.getFirstName() + " netBalance");
+            }
+        });
+    }
+
+    // ===== PER-EXPENSE COMPUTATION =====
+
+    private BigDecimal totalPaid(List<Expense> expenses, Long userId) {
+        return expenses.stream()
+                .filter(expense -> expense.getPaidBy().getId().equals(userId))
+                .map(Expense::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private BigDecimal totalOwed(List<Expense> expenses, Long userId) {
+        BigDecimal owed = BigDecimal.ZERO;
+        for (Expense expense : expenses) {
+            if (expense instanceof SharedExpense sharedExpense) {
+                for (ExpenseSplit split : sharedExpense.getSplits()) {
+                    if (split.getUser().getId().equals(userId)) {
+                        owed = owed.add(split.getAmount());
+                    }
+                }
+            } else if (expense instanceof PersonalExpense personalExpense
+                    && personalExpense.getForUser().getId().equals(userId)
+                    && !personalExpense.getIsPaid()) {
+                owed = owed.add(personalExpense.getAmount());
+            }
+        }
+        return owed;
+    }
+
+    // ===== HELPERS =====
+
+    private CreateSharedExpenseRequest.CreateSharedExpenseRequestBuilder sharedExpense(String description,
+            String amount) {
+        return CreateSharedExpenseRequest.builder()
+                .description(description)
+                .amount(new BigDecimal(amount))
+                .currency("EUR")
+                .category(ExpenseCategory.FOOD)
+                .date(LocalDate.now());
+    }
+
+    private CreatePersonalExpenseRequest personalExpense(String description, String amount, User forUser) {
+        return CreatePersonalExpenseRequest.builder()
+                .description(description)
+                .amount(new BigDecimal(amount))
+                .currency("EUR")
+                .category(ExpenseCategory.FOOD)
+                .date(LocalDate.now())
+                .forUserId(forUser.getId())
+                .build();
+    }
+
+    private void assertAmountEquals(BigDecimal expected, BigDecimal actual, String what) {
+        assertNotNull(actual, what);
+        assertEquals(0, expected.compareTo(actual), what + ": expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,119 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreatePersonalExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.ExpenseFilterRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.ExpensePageResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.ExpenseResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.SharedExpenseResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SplitType;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EXPENSE LISTS: STATEMENTS PER REQUEST
+ *
+ * A list of expenses costs a fixed number of statements, whatever its size:
+ * 1. expenses (payer and creator joined)
+ * 2. split rows of the shared expenses (projection, users joined)
+ * 3. users of the personal expenses (batch fetch)
+ *
+ * Calls run in a read-only transaction, like a request with open-in-view.
+ */
+class ExpenseServiceQueryCountTest extends PostgresIntegrationTest {
+
+    private static final long MAX_STATEMENTS = 3;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private List<User> users;
+    private Trip trip;
+
+    @BeforeEach
+    void seedTrip() {
+        users = createUsers(5);
+        trip = createTrip(users);
+
+        for (int i = 0; i < 30; i++) {
+            expenseService.createSharedExpense(trip.getId(), CreateSharedExpenseRequest.builder()
+                    .description("Shared " + i)
+                    .amount(new BigDecimal("50.00"))
+                    .currency("EUR")
+                    .category(ExpenseCategory.FOOD)
+                    .date(LocalDate.now().minusDays(i % 7))
+                    .splitType(SplitType.EQUAL)
+                    .participantIds(users.stream().map(User::getId).toList())
+                    .build(), users.get(i % users.size()));
+        }
+        for (int i = 0; i < 10; i++) {
+            expenseService.createPersonalExpense(trip.getId(), CreatePersonalExpenseRequest.builder()
+                    .description("Personal " + i)
+                    .amount(new BigDecimal("12.00"))
+                    .currency("EUR")
+                    .category(ExpenseCategory.TRANSPORT)
+                    .date(LocalDate.now().minusDays(i % 7))
+                    .forUserId(users.get((i + 1) % users.size()).getId())
+                    .build(), users.get(i % users.size()));
+        }
+
+        // Warm the membership cache
+        expenseService.getTripExpenses(trip.getId(), users.get(0));
+    }
+
+    @Test
+    void tripExpensesListUsesFixedStatementCount() {
+        List<ExpenseResponse> expenses = new ArrayList<>();
+
+        long statements = countStatements(() -> transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            expenses.addAll(expenseService.getTripExpenses(trip.getId(), users.get(0)));
+        }));
+
+        assertEquals(40, expenses.size());
+        assertTrue(statements <= MAX_STATEMENTS, "statements for 40 expenses: " + statements);
+    }
+
+    @Test
+    void expensePageUsesFixedStatementCountAndProjectsSplitUsers() {
+        List<ExpensePageResponse> pages = new ArrayList<>();
+
+        long statements = countStatements(() -> transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            pages.add(expenseService.getTripExpensesPage(trip.getId(), new ExpenseFilterRequest(), null, 20,
+                    users.get(0)));
+        }));
+
+        assertTrue(statements <= MAX_STATEMENTS, "statements for a page of 20: " + statements);
+
+        ExpensePageResponse page = pages.get(0);
+        assertEquals(20, page.getItems().size());
+        page.getItems().stream()
+                .filter(item -> item instanceof SharedExpenseResponse)
+                .map(item -> (SharedExpenseResponse) item)
+                .forEach(shared -> {
+                    assertEquals(users.size(), shared.getSplits().size());
+                    shared.getSplits().forEach(split -> {
+                        assertTrue(split.getUser().getEmail().endsWith("@test.travelmates.com"));
+                        assertEquals("Test", split.getUser().getLastName());
+                    });
+                });
+    }
+}
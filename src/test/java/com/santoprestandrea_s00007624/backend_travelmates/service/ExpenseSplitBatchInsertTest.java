@@ -0,0 +1,82 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.SharedExpenseResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SplitType;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SHARED EXPENSE: SPLITS INSERTED AS ONE BATCH
+ *
+ * Split ids come from expense_splits_seq (not IDENTITY), so Hibernate can
+ * send all split inserts of an expense as one JDBC batch. The only
+ * statements that grow with the number of participants are the ledger
+ * deltas (one upsert per participant).
+ */
+class ExpenseSplitBatchInsertTest extends PostgresIntegrationTest {
+
+    private static final int PARTICIPANTS = 12;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void splitInsertsDoNotAddStatementsPerParticipant() {
+        List<User> users = createUsers(PARTICIPANTS);
+        Trip trip = createTrip(users);
+        User payer = users.get(0);
+
+        // Warm the membership cache and create every ledger row
+        expenseService.createSharedExpense(trip.getId(), request(users), payer);
+
+        List<SharedExpenseResponse> created = new ArrayList<>();
+        long fewStatements = countStatements(
+                () -> created.add(expenseService.createSharedExpense(trip.getId(), request(users.subList(0, 3)), payer)));
+        long manyStatements = countStatements(
+                () -> created.add(expenseService.createSharedExpense(trip.getId(), request(users), payer)));
+
+        // 9 more ledger deltas, plus at most one sequence call if the id pool ran out
+        long extra = manyStatements - fewStatements;
+        assertTrue(extra >= PARTICIPANTS - 3 && extra <= PARTICIPANTS - 3 + 1,
+                "statements: " + fewStatements + " for 3 participants, " + manyStatements + " for " + PARTICIPANTS);
+
+        // Ids handed out by the sequence
+        Long expenseId = created.get(1).getId();
+        assertEquals(PARTICIPANTS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM expense_splits WHERE shared_expense_id = ?", Integer.class, expenseId));
+        Long maxSplitId = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM expense_splits WHERE shared_expense_id = ?", Long.class, expenseId);
+        Long sequenceValue = jdbcTemplate.queryForObject(
+                "SELECT last_value FROM expense_splits_seq", Long.class);
+        assertTrue(maxSplitId <= sequenceValue, "split id " + maxSplitId + " beyond sequence " + sequenceValue);
+    }
+
+    private CreateSharedExpenseRequest request(List<User> participants) {
+        return CreateSharedExpenseRequest.builder()
+                .description("Dinner")
+                .amount(new BigDecimal("120.00"))
+                .currency("EUR")
+                .category(ExpenseCategory.FOOD)
+                .date(LocalDate.now())
+                .splitType(SplitType.EQUAL)
+                .participantIds(participants.stream().map(User::getId).toList())
+                .build();
+    }
+}
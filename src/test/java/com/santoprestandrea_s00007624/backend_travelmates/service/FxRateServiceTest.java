@@ -0,0 +1,89 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FX RATES: CONVERSION AND ROUNDING
+ *
+ * Test currencies (XT*) are added to fx_rates and the snapshot reloaded,
+ * so the bundled sample rates are left untouched. Base currency is EUR.
+ */
+class FxRateServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void loadTestRates() {
+        insertRate("2025-01-01", "XTD", "2.0");
+        insertRate("2025-02-01", "XTD", "4.0");
+        insertRate("2025-01-01", "XTC", "7.0");
+        insertRate("2025-01-01", "XTH", "0.5");
+        fxRateService.reload();
+    }
+
+    @Test
+    void usesTheLatestRateOnOrBeforeTheDate() {
+        BigDecimal ten = new BigDecimal("10.00");
+
+        assertAmount("20.00", fxRateService.convert(ten, "EUR", "XTD", LocalDate.of(2025, 1, 15)));
+        assertAmount("40.00", fxRateService.convert(ten, "EUR", "XTD", LocalDate.of(2025, 2, 10)));
+        // Before the first rate: earliest rate
+        assertAmount("20.00", fxRateService.convert(ten, "EUR", "XTD", LocalDate.of(2024, 12, 1)));
+        // Back to the base currency
+        assertAmount("2.50", fxRateService.convert(ten, "XTD", "EUR", LocalDate.of(2025, 2, 10)));
+    }
+
+    @Test
+    void convertsBetweenTwoNonBaseCurrenciesThroughTheBase() {
+        // 14 XTD = 7 EUR = 49 XTC
+        assertAmount("49.00", fxRateService.convert(
+                new BigDecimal("14.00"), "XTD", "XTC", LocalDate.of(2025, 1, 15)));
+    }
+
+    @Test
+    void roundsTiesHalfEven() {
+        LocalDate date = LocalDate.of(2025, 1, 15);
+
+        // 0.25 * 0.5 = 0.125 and 0.27 * 0.5 = 0.135: ties go to the even cent
+        assertAmount("0.12", fxRateService.convert(new BigDecimal("0.25"), "EUR", "XTH", date));
+        assertAmount("0.14", fxRateService.convert(new BigDecimal("0.27"), "EUR", "XTH", date));
+        // Not a tie: normal rounding (100 / 7 = 14.2857...)
+        assertAmount("14.29", fxRateService.convert(new BigDecimal("100.00"), "XTC", "EUR", date));
+    }
+
+    @Test
+    void missingRateIsReported() {
+        assertTrue(fxRateService.tryConvert(BigDecimal.TEN, "XTY", "EUR", LocalDate.now()).isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> fxRateService.convert(BigDecimal.TEN, "XTY", "EUR", LocalDate.now()));
+        assertFalse(fxRateService.canConvert("XTY", "EUR"));
+        assertTrue(fxRateService.canConvert("XTC", "XTD"));
+        assertTrue(fxRateService.canConvert("XTY", "XTY"));
+    }
+
+    private void insertRate(String date, String currency, String rate) {
+        jdbcTemplate.update("INSERT INTO fx_rates (rate_date, currency, rate) VALUES (?, ?, ?) "
+                        + "ON CONFLICT (rate_date, currency) DO NOTHING",
+                java.sql.Date.valueOf(date), currency, new BigDecimal(rate));
+    }
+
+    private void assertAmount(String expected, BigDecimal actual) {
+        assertEquals(new BigDecimal(expected), actual);
+    }
+}
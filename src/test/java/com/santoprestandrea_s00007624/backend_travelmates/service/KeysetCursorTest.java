@@ -0,0 +1,33 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodedCursorDecodesToTheSamePosition() {
+        String cursor = KeysetCursor.encode(LocalDate.of(2026, 3, 14), 42L);
+
+        assertEquals("2026-03-14:42", cursor);
+        assertEquals(new KeysetCursor(LocalDate.of(2026, 3, 14), 42L), KeysetCursor.decode(cursor));
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(" "));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        for (String cursor : new String[] { "42", "2026-03-14", "2026-03-14:", "2026-13-01:1", "2026-03-14:x" }) {
+            assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(cursor), cursor);
+        }
+    }
+}
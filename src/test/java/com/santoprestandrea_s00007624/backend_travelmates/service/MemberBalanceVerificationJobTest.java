@@ -0,0 +1,81 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripBalanceResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SplitType;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * LEDGER BACKFILL FOR TRIPS OLDER THAN THE LEDGER
+ *
+ * A trip without a built ledger (ledger_built_at null, rows missing or
+ * partial) reads its balances from the aggregates, and the startup job
+ * builds its ledger even when other trips already have one.
+ */
+class MemberBalanceVerificationJobTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MemberBalanceVerificationJob memberBalanceVerificationJob;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void tripWithoutLedgerIsReadFromAggregatesThenBackfilled() {
+        List<User> users = createUsers(3);
+        Trip trip = createTrip(users);
+        User payer = users.get(0);
+
+        expenseService.createSharedExpense(trip.getId(), CreateSharedExpenseRequest.builder()
+                .description("Hotel")
+                .amount(new BigDecimal("120.00"))
+                .currency("EUR")
+                .category(ExpenseCategory.ACCOMMODATION)
+                .date(LocalDate.now())
+                .splitType(SplitType.EQUAL)
+                .participantIds(users.stream().map(User::getId).toList())
+                .build(), payer);
+
+        // Trip created before the ledger existed: partial rows, never built
+        jdbcTemplate.update("UPDATE trips SET ledger_built_at = NULL WHERE id = ?", trip.getId());
+        jdbcTemplate.update("DELETE FROM member_balances WHERE trip_id = ? AND user_id <> ?",
+                trip.getId(), payer.getId());
+
+        assertBalances(trip, payer);
+
+        memberBalanceVerificationJob.initializeLedger();
+
+        assertNotNull(jdbcTemplate.queryForObject(
+                "SELECT ledger_built_at FROM trips WHERE id = ?", Object.class, trip.getId()));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM member_balances WHERE trip_id = ?", Integer.class, trip.getId()));
+        assertBalances(trip, payer);
+    }
+
+    private void assertBalances(Trip trip, User payer) {
+        TripBalanceResponse balance = expenseService.calculateTripBalance(trip.getId(), payer);
+
+        assertEquals(3, balance.getUserBalances().size());
+        balance.getUserBalances().forEach((userId, detail) -> {
+            BigDecimal paid = userId.equals(payer.getId()) ? new BigDecimal("120.00") : BigDecimal.ZERO;
+            assertEquals(0, paid.compareTo(detail.getTotalPaid()), "paid by " + userId);
+            assertEquals(0, new BigDecimal("40.00").compareTo(detail.getTotalOwed()), "owed by " + userId);
+        });
+    }
+}
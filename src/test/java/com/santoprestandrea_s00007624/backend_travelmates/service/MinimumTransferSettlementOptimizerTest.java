@@ -0,0 +1,167 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.service.SettlementOptimizer.Transfer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MINIMUM-TRANSFER OPTIMIZER VS BRUTE FORCE
+ *
+ * For small groups the minimum number of transfers is computed by trying
+ * every partition of the balances into zero-sum groups (n - max groups),
+ * independently of the bitmask DP.
+ */
+class MinimumTransferSettlementOptimizerTest {
+
+    private final GreedySettlementOptimizer greedy = new GreedySettlementOptimizer();
+    private MinimumTransferSettlementOptimizer optimizer;
+
+    @BeforeEach
+    void createOptimizer() {
+        optimizer = optimizer(200, 16L << 20);
+    }
+
+    @Test
+    void matchesBruteForceOnRandomBalances() {
+        Random random = new Random(42);
+
+        for (int n = 2; n <= 8; n++) {
+            for (int run = 0; run < 200; run++) {
+                // Small whole amounts, so zero-sum subgroups are frequent
+                Map<Long, BigDecimal> balances = new HashMap<>();
+                long[] cents = new long[n];
+                long total = 0;
+                for (int i = 0; i < n - 1; i++) {
+                    cents[i] = (random.nextInt(13) - 6) * 100L;
+                    total += cents[i];
+                }
+                cents[n - 1] = -total;
+                for (int i = 0; i < n; i++) {
+                    balances.put((long) i + 1, BigDecimal.valueOf(cents[i], 2));
+                }
+
+                List<Transfer> transfers = optimizer.optimize(balances);
+
+                String context = "balances " + balances;
+                assertEquals(bruteForceMinimum(cents), transfers.size(), context);
+                assertTrue(transfers.size() <= greedy.optimize(balances).size(), context);
+                assertSettles(balances, transfers, context);
+            }
+        }
+    }
+
+    @Test
+    void findsGroupsTheGreedyMisses() {
+        Map<Long, BigDecimal> balances = balances("12.00", "7.00", "-7.00", "-6.00", "-6.00");
+
+        assertEquals(4, greedy.optimize(balances).size());
+        List<Transfer> transfers = optimizer.optimize(balances);
+        assertEquals(3, transfers.size());
+        assertSettles(balances, transfers, "example");
+    }
+
+    @Test
+    void fallsBackToGreedyWhenTheTablesDoNotFitTheBudget() {
+        Map<Long, BigDecimal> balances = balances("12.00", "7.00", "-7.00", "-6.00", "-6.00");
+
+        // 2^5 masks x 9 bytes = 288 bytes
+        MinimumTransferSettlementOptimizer small = optimizer(200, 256);
+        assertFalse(small.fitsBudget(5));
+        assertEquals(4, small.optimize(balances).size());
+    }
+
+    @Test
+    void budgetIsCheckedBeforeAllocating() {
+        assertTrue(optimizer.fitsBudget(MinimumTransferSettlementOptimizer.MAX_EXACT_MEMBERS));
+
+        // 2^20 x 9 bytes = 9 MB
+        assertFalse(optimizer(200, 8L << 20).fitsBudget(20));
+        assertTrue(optimizer(200, 8L << 20).fitsBudget(19));
+
+        // 20 x 2^19 steps cannot run in 1 ms, 10 x 2^9 can
+        assertFalse(optimizer(1, 16L << 20).fitsBudget(20));
+        assertTrue(optimizer(1, 16L << 20).fitsBudget(10));
+    }
+
+    // ===== HELPERS =====
+
+    private MinimumTransferSettlementOptimizer optimizer(long timeBudgetMs, long maxTableBytes) {
+        MinimumTransferSettlementOptimizer created = new MinimumTransferSettlementOptimizer();
+        ReflectionTestUtils.setField(created, "greedySettlementOptimizer", greedy);
+        ReflectionTestUtils.setField(created, "timeBudgetMs", timeBudgetMs);
+        ReflectionTestUtils.setField(created, "maxTableBytes", maxTableBytes);
+        return created;
+    }
+
+    private Map<Long, BigDecimal> balances(String... amounts) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (int i = 0; i < amounts.length; i++) {
+            balances.put((long) i + 1, new BigDecimal(amounts[i]));
+        }
+        return balances;
+    }
+
+    /**
+     * Every transfer is positive, from a debtor to a creditor, and together
+     * they bring every balance to zero
+     */
+    private void assertSettles(Map<Long, BigDecimal> balances, List<Transfer> transfers, String context) {
+        Map<Long, BigDecimal> remaining = new HashMap<>(balances);
+        for (Transfer transfer : transfers) {
+            assertTrue(transfer.getAmount().signum() > 0, context);
+            remaining.merge(transfer.getFromUserId(), transfer.getAmount(), BigDecimal::add);
+            remaining.merge(transfer.getToUserId(), transfer.getAmount().negate(), BigDecimal::add);
+        }
+        remaining.forEach((userId, amount) -> assertEquals(0, amount.signum(), context + ", user " + userId));
+    }
+
+    /**
+     * Non-zero balances minus the largest number of zero-sum groups they
+     * can be partitioned into (every partition is tried)
+     */
+    private int bruteForceMinimum(long[] cents) {
+        List<Long> nonZero = new ArrayList<>();
+        for (long value : cents) {
+            if (value != 0) {
+                nonZero.add(value);
+            }
+        }
+        return nonZero.size() - maxZeroSumGroups(nonZero, 0, new ArrayList<>());
+    }
+
+    private int maxZeroSumGroups(List<Long> values, int index, List<Long> groupSums) {
+        if (index == values.size()) {
+            for (long sum : groupSums) {
+                if (sum != 0) {
+                    return -1;
+                }
+            }
+            return groupSums.size();
+        }
+
+        int best = -1;
+        // Add the value to an existing group...
+        for (int group = 0; group < groupSums.size(); group++) {
+            groupSums.set(group, groupSums.get(group) + values.get(index));
+            best = Math.max(best, maxZeroSumGroups(values, index + 1, groupSums));
+            groupSums.set(group, groupSums.get(group) - values.get(index));
+        }
+        // ...or open a new one
+        groupSums.add(values.get(index));
+        best = Math.max(best, maxZeroSumGroups(values, index + 1, groupSums));
+        groupSums.remove(groupSums.size() - 1);
+        return best;
+    }
+}
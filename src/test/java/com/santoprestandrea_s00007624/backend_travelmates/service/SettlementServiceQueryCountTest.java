@@ -0,0 +1,65 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SplitType;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OPTIMIZED BALANCE: STATEMENTS PER REQUEST
+ *
+ * getOptimizedBalance reuses the members and ledger rows read by the
+ * expense balance: trip, members (with users), ledger and total expenses,
+ * whatever the number of members.
+ */
+class SettlementServiceQueryCountTest extends PostgresIntegrationTest {
+
+    private static final long MAX_STATEMENTS = 4;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Test
+    void optimizedBalanceReadsMembersAndLedgerOnce() {
+        long small = countOptimizedBalance(3);
+        long large = countOptimizedBalance(20);
+
+        assertTrue(small <= MAX_STATEMENTS, "statements for 3 members: " + small);
+        assertEquals(small, large, "statement count must not grow with the members");
+    }
+
+    private long countOptimizedBalance(int memberCount) {
+        List<User> users = createUsers(memberCount);
+        Trip trip = createTrip(users);
+        User organizer = users.get(0);
+
+        expenseService.createSharedExpense(trip.getId(), CreateSharedExpenseRequest.builder()
+                .description("Dinner")
+                .amount(new BigDecimal("90.00"))
+                .currency("EUR")
+                .category(ExpenseCategory.FOOD)
+                .date(LocalDate.now())
+                .splitType(SplitType.EQUAL)
+                .participantIds(users.stream().map(User::getId).toList())
+                .build(), organizer);
+
+        // First call warms the membership cache
+        settlementService.getOptimizedBalance(trip.getId(), organizer);
+
+        return countStatements(() -> settlementService.getOptimizedBalance(trip.getId(), organizer));
+    }
+}
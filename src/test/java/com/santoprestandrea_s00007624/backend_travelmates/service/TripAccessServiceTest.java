@@ -0,0 +1,76 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.InviteMemberRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import com.santoprestandrea_s00007624.backend_travelmates.exception.UnauthorizedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TRIP PERMISSIONS: INVITATION STATUS
+ *
+ * Only accepted members have access, and an accept/decline takes effect
+ * at once even though the previous status is cached.
+ */
+class TripAccessServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TripAccessService tripAccessService;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Test
+    void pendingInviteeGetsAccessOnlyAfterAccepting() {
+        User organizer = createUser("Organizer");
+        User invitee = createUser("Invitee");
+        Trip trip = createTrip(List.of(organizer));
+
+        tripService.inviteMember(trip.getId(), invite(invitee), organizer.getId());
+
+        // Pending: the row exists but grants nothing (and is now cached)
+        assertTrue(tripAccessService.find(trip.getId(), invitee.getId()).isPresent());
+        assertFalse(tripAccessService.isMember(trip.getId(), invitee.getId()));
+        assertThrows(UnauthorizedException.class,
+                () -> expenseService.calculateTripBalance(trip.getId(), invitee));
+        assertThrows(UnauthorizedException.class,
+                () -> tripService.findDetailForMember(trip.getId(), invitee.getId()));
+
+        tripService.acceptInvitation(trip.getId(), invitee.getId());
+
+        assertTrue(tripAccessService.isMember(trip.getId(), invitee.getId()));
+        assertDoesNotThrow(() -> expenseService.calculateTripBalance(trip.getId(), invitee));
+    }
+
+    @Test
+    void declinedInviteeHasNoAccess() {
+        User organizer = createUser("Organizer");
+        User invitee = createUser("Invitee");
+        Trip trip = createTrip(List.of(organizer));
+
+        tripService.inviteMember(trip.getId(), invite(invitee), organizer.getId());
+        tripService.declineInvitation(trip.getId(), invitee.getId());
+
+        assertFalse(tripAccessService.isMember(trip.getId(), invitee.getId()));
+        assertThrows(UnauthorizedException.class,
+                () -> expenseService.calculateTripBalance(trip.getId(), invitee));
+    }
+
+    private InviteMemberRequest invite(User user) {
+        return InviteMemberRequest.builder()
+                .userEmail(user.getEmail())
+                .build();
+    }
+}
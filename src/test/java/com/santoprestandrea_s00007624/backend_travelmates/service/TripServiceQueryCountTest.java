@@ -0,0 +1,72 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripDetailResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SplitType;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import com.santoprestandrea_s00007624.backend_travelmates.mapper.TripMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * TRIP DETAIL: STATEMENTS PER REQUEST
+ *
+ * GET /api/trips/{id} loads the trip with members and users in one query
+ * and all the statistics in a second one, whatever the number of members.
+ * Runs in a read-only transaction, like a request with open-in-view.
+ */
+class TripServiceQueryCountTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private TripMapper tripMapper;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void tripDetailWithThirtyMembersTakesTwoStatements() {
+        List<User> users = createUsers(30);
+        Trip trip = createTrip(users);
+        User organizer = users.get(0);
+
+        expenseService.createSharedExpense(trip.getId(), CreateSharedExpenseRequest.builder()
+                .description("Boat tour")
+                .amount(new BigDecimal("300.00"))
+                .currency("EUR")
+                .category(ExpenseCategory.ACTIVITIES)
+                .date(LocalDate.now())
+                .splitType(SplitType.EQUAL)
+                .participantIds(users.stream().map(User::getId).toList())
+                .build(), organizer);
+
+        List<TripDetailResponse> responses = new ArrayList<>();
+        long statements = countStatements(() -> transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            Trip detail = tripService.findDetailForMember(trip.getId(), users.get(29).getId());
+            responses.add(tripMapper.toDetailResponse(detail));
+        }));
+
+        assertEquals(2, statements);
+
+        TripDetailResponse response = responses.get(0);
+        assertEquals(30, response.getMembers().size());
+        assertEquals(0, new BigDecimal("300.00").compareTo(response.getStatistics().getTotalExpenses()));
+    }
+}
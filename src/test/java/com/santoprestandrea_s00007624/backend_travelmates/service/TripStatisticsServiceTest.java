@@ -0,0 +1,140 @@
+package com.santoprestandrea_s00007624.backend_travelmates.service;
+
+import com.santoprestandrea_s00007624.backend_travelmates.PostgresIntegrationTest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreatePersonalExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.CreateSharedExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.request.UpdateExpenseRequest;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.SharedExpenseResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripSpendingStatisticsResponse;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripSpendingStatisticsResponse.CategoryTotal;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripSpendingStatisticsResponse.DailyTotal;
+import com.santoprestandrea_s00007624.backend_travelmates.dto.response.TripSpendingStatisticsResponse.PayerTotal;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.ExpenseCategory;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.SplitType;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.Trip;
+import com.santoprestandrea_s00007624.backend_travelmates.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * TRIP SPENDING STATISTICS
+ *
+ * Each GROUPING SETS row lands in its own bucket (category, day, payer,
+ * total), and the cached result is evicted by every expense write.
+ */
+class TripStatisticsServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TripStatisticsService tripStatisticsService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Test
+    void groupingSetRowsMapToTheirBuckets() {
+        List<User> users = createUsers(2);
+        User a = users.get(0);
+        User b = users.get(1);
+        Trip trip = createTrip(users);
+        trip.setBudget(new BigDecimal("500.00"));
+        tripRepository.save(trip);
+
+        LocalDate day1 = LocalDate.now().minusDays(2);
+        LocalDate day2 = LocalDate.now().minusDays(1);
+        shared(trip, a, users, "30.00", ExpenseCategory.FOOD, day1);
+        shared(trip, a, users, "20.00", ExpenseCategory.FOOD, day2);
+        shared(trip, a, users, "15.00", ExpenseCategory.TRANSPORT, day1);
+        shared(trip, b, users, "100.00", ExpenseCategory.ACCOMMODATION, day2);
+        expenseService.createPersonalExpense(trip.getId(), CreatePersonalExpenseRequest.builder()
+                .description("Sunscreen")
+                .amount(new BigDecimal("5.00"))
+                .currency("EUR")
+                .category(ExpenseCategory.SHOPPING)
+                .date(day2)
+                .forUserId(a.getId())
+                .build(), b);
+
+        TripSpendingStatisticsResponse statistics = tripStatisticsService.getStatistics(trip.getId());
+
+        // Total row
+        assertAmount("170.00", statistics.getTotalExpenses());
+        assertEquals(5L, statistics.getNumberOfExpenses());
+        assertEquals(0L, statistics.getUnconvertedExpenses());
+        assertAmount("34.00", statistics.getAverageExpense());
+        assertAmount("330.00", statistics.getBudgetRemaining());
+        assertAmount("34.00", statistics.getBudgetUsedPercentage());
+
+        // Category rows, largest first
+        List<CategoryTotal> byCategory = statistics.getByCategory();
+        assertEquals(List.of(ExpenseCategory.ACCOMMODATION, ExpenseCategory.FOOD,
+                        ExpenseCategory.TRANSPORT, ExpenseCategory.SHOPPING),
+                byCategory.stream().map(CategoryTotal::getCategory).toList());
+        assertAmount("50.00", byCategory.get(1).getTotal());
+        assertEquals(2L, byCategory.get(1).getCount());
+
+        // Day rows, oldest first, with the burn-down
+        List<DailyTotal> byDay = statistics.getByDay();
+        assertEquals(List.of(day1, day2), byDay.stream().map(DailyTotal::getDate).toList());
+        assertAmount("45.00", byDay.get(0).getTotal());
+        assertAmount("455.00", byDay.get(0).getBudgetRemaining());
+        assertAmount("125.00", byDay.get(1).getTotal());
+        assertAmount("170.00", byDay.get(1).getCumulative());
+        assertAmount("330.00", byDay.get(1).getBudgetRemaining());
+
+        // Payer rows, largest first
+        List<PayerTotal> topPayers = statistics.getTopPayers();
+        assertEquals(List.of(b.getId(), a.getId()), topPayers.stream().map(PayerTotal::getUserId).toList());
+        assertAmount("105.00", topPayers.get(0).getTotal());
+        assertEquals(2L, topPayers.get(0).getCount());
+        assertEquals("Member1 Test", topPayers.get(0).getName());
+        assertAmount("65.00", topPayers.get(1).getTotal());
+        assertEquals(3L, topPayers.get(1).getCount());
+    }
+
+    @Test
+    void expenseWritesEvictTheCachedStatistics() {
+        List<User> users = createUsers(2);
+        User payer = users.get(0);
+        Trip trip = createTrip(users);
+
+        shared(trip, payer, users, "40.00", ExpenseCategory.FOOD, LocalDate.now());
+        assertAmount("40.00", tripStatisticsService.getStatistics(trip.getId()).getTotalExpenses());
+
+        // Create
+        SharedExpenseResponse taxi = shared(trip, payer, users, "10.00", ExpenseCategory.TRANSPORT, LocalDate.now());
+        assertAmount("50.00", tripStatisticsService.getStatistics(trip.getId()).getTotalExpenses());
+
+        // Update
+        expenseService.updateExpense(trip.getId(), taxi.getId(), UpdateExpenseRequest.builder()
+                .amount(new BigDecimal("25.00"))
+                .build(), payer);
+        assertAmount("65.00", tripStatisticsService.getStatistics(trip.getId()).getTotalExpenses());
+
+        // Delete
+        expenseService.deleteExpense(trip.getId(), taxi.getId(), payer);
+        assertAmount("40.00", tripStatisticsService.getStatistics(trip.getId()).getTotalExpenses());
+    }
+
+    private SharedExpenseResponse shared(Trip trip, User payer, List<User> participants, String amount,
+            ExpenseCategory category, LocalDate date) {
+        return expenseService.createSharedExpense(trip.getId(), CreateSharedExpenseRequest.builder()
+                .description(category.name())
+                .amount(new BigDecimal(amount))
+                .currency("EUR")
+                .category(category)
+                .date(date)
+                .splitType(SplitType.EQUAL)
+                .participantIds(participants.stream().map(User::getId).toList())
+                .build(), payer);
+    }
+
+    private void assertAmount(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "expected " + expected + " but was " + actual);
+    }
+}